@@ -0,0 +1,214 @@
+package com.example.recipe_worker.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for write requests, decided before their bodies are read. Writes run in one of
+ * two bulkheads so small JSON writes never queue behind uploads: each lane has its own concurrency
+ * limit and a bounded wait queue with a timeout, and the upload lane also has a byte budget charged
+ * with the request's Content-Length. On top of that each user may only have a few writes in flight.
+ * Reads are never admitted through here, so they keep the connection pool and threads to themselves.
+ */
+@Component
+public class UploadAdmission {
+
+    public enum Lane { UPLOAD, WRITE }
+
+    public enum Outcome {
+        ADMITTED,
+        USER_LIMIT, // the caller already has its share in flight: 429
+        BUSY        // the lane stayed full for the whole queue timeout, or its queue was full: 503
+    }
+
+    private static final int KIB = 1024;
+
+    private final int perUserMaxConcurrent;
+    private final long lightRequestMaxBytes;
+    private final long unknownLengthBytes;
+    private final long retryAfterSeconds;
+    private final Map<Lane, LaneLimits> lanes = new EnumMap<>(Lane.class);
+    private final Map<String, Integer> inFlightByUser = new ConcurrentHashMap<>();
+    private final Counter userLimited;
+
+    public UploadAdmission(@Value("${recipe-worker.admission.per-user-max-concurrent:2}") int perUserMaxConcurrent,
+                           @Value("${recipe-worker.admission.light-request-max-bytes:65536}") long lightRequestMaxBytes,
+                           @Value("${recipe-worker.admission.upload.max-concurrent:4}") int uploadMaxConcurrent,
+                           @Value("${recipe-worker.admission.upload.max-queued:16}") int uploadMaxQueued,
+                           @Value("${recipe-worker.admission.upload.queue-timeout-ms:2000}") long uploadQueueTimeoutMs,
+                           @Value("${recipe-worker.admission.upload.byte-budget:268435456}") long uploadByteBudget,
+                           @Value("${recipe-worker.admission.upload.unknown-length-bytes:10485760}") long unknownLengthBytes,
+                           @Value("${recipe-worker.admission.write.max-concurrent:4}") int writeMaxConcurrent,
+                           @Value("${recipe-worker.admission.write.max-queued:32}") int writeMaxQueued,
+                           @Value("${recipe-worker.admission.write.queue-timeout-ms:1000}") long writeQueueTimeoutMs,
+                           @Value("${recipe-worker.admission.retry-after-seconds:2}") long retryAfterSeconds,
+                           MeterRegistry registry) {
+        this.perUserMaxConcurrent = perUserMaxConcurrent;
+        this.lightRequestMaxBytes = lightRequestMaxBytes;
+        this.unknownLengthBytes = unknownLengthBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+        lanes.put(Lane.UPLOAD, new LaneLimits(Lane.UPLOAD, uploadMaxConcurrent, uploadMaxQueued, uploadQueueTimeoutMs,
+                uploadByteBudget, registry));
+        lanes.put(Lane.WRITE, new LaneLimits(Lane.WRITE, writeMaxConcurrent, writeMaxQueued, writeQueueTimeoutMs,
+                0, registry));
+        this.userLimited = Counter.builder("recipe_worker.admission.rejected")
+                .description("Write requests turned away before their body was read")
+                .tag("lane", "any")
+                .tag("reason", "user_limit")
+                .register(registry);
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    // multipart, streamed and large bodies are uploads; everything else is a light write
+    public Lane laneFor(String contentType, long contentLength) {
+        boolean multipart = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+        return multipart || contentLength < 0 || contentLength > lightRequestMaxBytes ? Lane.UPLOAD : Lane.WRITE;
+    }
+
+    /**
+     * Waits up to the lane's queue timeout. The returned ticket must be closed once the request is
+     * done when it was admitted; closing is idempotent and a no-op otherwise.
+     */
+    public Ticket admit(String user, Lane lane, long contentLength) throws InterruptedException {
+        if (!enterUser(user)) {
+            userLimited.increment();
+            return new Ticket(Outcome.USER_LIMIT, null, 0, null);
+        }
+        LaneLimits limits = lanes.get(lane);
+        int cost = limits.cost(contentLength < 0 ? unknownLengthBytes : contentLength);
+        boolean admitted = false;
+        try {
+            admitted = limits.acquire(cost);
+        } finally {
+            if (!admitted) leaveUser(user);
+        }
+        return admitted ? new Ticket(Outcome.ADMITTED, limits, cost, user) : new Ticket(Outcome.BUSY, null, 0, null);
+    }
+
+    private boolean enterUser(String user) {
+        AtomicBoolean entered = new AtomicBoolean();
+        inFlightByUser.compute(user, (u, n) -> {
+            int current = n == null ? 0 : n;
+            if (current >= perUserMaxConcurrent) return n;
+            entered.set(true);
+            return current + 1;
+        });
+        return entered.get();
+    }
+
+    private void leaveUser(String user) {
+        inFlightByUser.computeIfPresent(user, (u, n) -> n <= 1 ? null : n - 1);
+    }
+
+    public final class Ticket implements AutoCloseable {
+
+        private final Outcome outcome;
+        private final LaneLimits lane;
+        private final int cost;
+        private final String user;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Ticket(Outcome outcome, LaneLimits lane, int cost, String user) {
+            this.outcome = outcome;
+            this.lane = lane;
+            this.cost = cost;
+            this.user = user;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+
+        @Override
+        public void close() {
+            if (outcome != Outcome.ADMITTED || !closed.compareAndSet(false, true)) return;
+            lane.release(cost);
+            leaveUser(user);
+        }
+    }
+
+    private static final class LaneLimits {
+
+        private final Semaphore slots;
+        private final Semaphore budgetKib; // null when the lane has no byte budget
+        private final int budgetTotalKib;
+        private final int maxQueued;
+        private final long timeoutNanos;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Counter busy;
+
+        LaneLimits(Lane lane, int maxConcurrent, int maxQueued, long timeoutMillis, long byteBudget,
+                   MeterRegistry registry) {
+            this.slots = new Semaphore(maxConcurrent, true);
+            this.budgetTotalKib = (int) Math.min(Integer.MAX_VALUE, byteBudget / KIB);
+            this.budgetKib = budgetTotalKib > 0 ? new Semaphore(budgetTotalKib, true) : null;
+            this.maxQueued = maxQueued;
+            this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            String tag = lane.name().toLowerCase(Locale.ROOT);
+            this.busy = Counter.builder("recipe_worker.admission.rejected")
+                    .description("Write requests turned away before their body was read")
+                    .tag("lane", tag)
+                    .tag("reason", "busy")
+                    .register(registry);
+            Gauge.builder("recipe_worker.admission.in_flight", slots, s -> maxConcurrent - s.availablePermits())
+                    .tag("lane", tag)
+                    .register(registry);
+            Gauge.builder("recipe_worker.admission.queued", queued, AtomicInteger::get)
+                    .tag("lane", tag)
+                    .register(registry);
+        }
+
+        // KiB charged against the budget; a request larger than the whole budget takes all of it
+        int cost(long bytes) {
+            if (budgetKib == null) return 0;
+            long kib = Math.max(1, (bytes + KIB - 1) / KIB);
+            return (int) Math.min(kib, budgetTotalKib);
+        }
+
+        boolean acquire(int cost) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            // a zero wait still honours the queue order, unlike the barging tryAcquire()
+            if (!slots.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                if (queued.incrementAndGet() > maxQueued) {
+                    queued.decrementAndGet();
+                    busy.increment();
+                    return false;
+                }
+                try {
+                    if (!slots.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                        busy.increment();
+                        return false;
+                    }
+                } finally {
+                    queued.decrementAndGet();
+                }
+            }
+            if (cost > 0 && !budgetKib.tryAcquire(cost, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                slots.release();
+                busy.increment();
+                return false;
+            }
+            return true;
+        }
+
+        void release(int cost) {
+            if (cost > 0) budgetKib.release(cost);
+            slots.release();
+        }
+    }
+}
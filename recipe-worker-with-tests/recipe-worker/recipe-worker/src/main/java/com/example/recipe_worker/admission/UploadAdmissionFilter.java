@@ -0,0 +1,90 @@
+package com.example.recipe_worker.admission;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Applies {@link UploadAdmission} to recipe writes. Runs right after authentication and before
+ * anything reads the body, so a rejected upload costs no parsing, heap or database connection;
+ * rejections are answered at once with 429 (this user) or 503 (everyone) and a Retry-After.
+ * Unauthenticated writes pass through untouched, authorization turns them away.
+ */
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+    private static final String GUARDED_PREFIX = "/api/recipes";
+
+    private final UploadAdmission admission;
+
+    public UploadAdmissionFilter(UploadAdmission admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return READ_METHODS.contains(request.getMethod()) || !request.getRequestURI().startsWith(GUARDED_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long length = request.getContentLengthLong();
+        UploadAdmission.Ticket ticket;
+        try {
+            ticket = admission.admit(auth.getName(), admission.laneFor(request.getContentType(), length), length);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "server_busy");
+            return;
+        }
+        switch (ticket.outcome()) {
+            case USER_LIMIT -> reject(response, 429, "too_many_requests");
+            case BUSY -> reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "server_busy");
+            case ADMITTED -> {
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    if (request.isAsyncStarted()) {
+                        request.getAsyncContext().addListener(new ReleaseOnComplete(ticket));
+                    } else {
+                        ticket.close();
+                    }
+                }
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, int status, String error) throws IOException {
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.retryAfterSeconds()));
+        // the body is left unread; the connection is not worth keeping for it
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+
+    private record ReleaseOnComplete(UploadAdmission.Ticket ticket) implements AsyncListener {
+        @Override public void onComplete(AsyncEvent event) { ticket.close(); }
+        @Override public void onTimeout(AsyncEvent event) { ticket.close(); }
+        @Override public void onError(AsyncEvent event) { ticket.close(); }
+        @Override public void onStartAsync(AsyncEvent event) { }
+    }
+}
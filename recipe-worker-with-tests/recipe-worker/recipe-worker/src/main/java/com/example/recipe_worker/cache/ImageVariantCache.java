@@ -0,0 +1,77 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.ImageVariant;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Which stored name answers an image request for a given size and Accept. An answer is derived
+ * from one recipe's image rows, so committed changes to that recipe (or to its images) drop the
+ * answers derived from it; the TTL bounds staleness from other replicas.
+ */
+@Component
+public class ImageVariantCache {
+
+    private record Key(String storedName, Integer size, List<ImageFormat> accepted) {}
+
+    private final Cache<Key, ImageVariant> cache;
+    // bumped by every eviction, so a load that overlapped one is not kept
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ImageVariantCache(@Value("${recipe-worker.image.variant-cache.max-size:10000}") long maxSize,
+                             @Value("${recipe-worker.image.variant-cache.ttl-seconds:300}") long ttlSeconds,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.image-variants");
+    }
+
+    /**
+     * Cached answer, or the loader's. Unknown names are not cached, since a later upload may bring a
+     * row for them. Concurrent misses for one key share a single load.
+     */
+    public Optional<ImageVariant> get(String storedName, Integer size, List<ImageFormat> accepted,
+                                      Supplier<Optional<ImageVariant>> loader) {
+        Key key = new Key(storedName, size, accepted);
+        long seen = evictions.get();
+        ImageVariant variant = cache.get(key, k -> loader.get().orElse(null));
+        // an eviction scanning the map misses a load still in flight; it may have read the old rows
+        if (variant != null && evictions.get() != seen) cache.asMap().remove(key, variant);
+        return Optional.ofNullable(variant);
+    }
+
+    public void evictRecipe(UUID recipeId) {
+        evictions.incrementAndGet();
+        cache.asMap().values().removeIf(v -> recipeId.equals(v.recipeId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        evictRecipe(event.recipeId());
+    }
+
+    @EventListener
+    public void onImagesChanged(RecipeImagesChangedEvent event) {
+        evictRecipe(event.recipeId());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.search.RecipeSearchIndexLoader;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Keeps {@link RecipeResponseCache}s, {@link SearchResultCache}s and {@link ImageVariantCache}s of all replicas coherent: local changes are broadcast on a
+ * fanout exchange, and every replica (this one included) evicts the ids it receives from its own
+ * auto-delete queue. The same messages reload the recipe into this process's {@code LocalRecipeIndex}es.
+ * A lost message leaves an entry stale until the cache TTL, or an index entry until the next change.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.recipe-cache.invalidation", havingValue = "rabbit")
+public class RabbitRecipeCacheInvalidation {
+
+    private final Logger log = LoggerFactory.getLogger(RabbitRecipeCacheInvalidation.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final RecipeResponseCache cache;
+    private final SearchResultCache searchCache;
+    private final ImageVariantCache variantCache;
+    private final RecipeSearchIndexLoader indexLoader;
+    private final String exchange;
+
+    public RabbitRecipeCacheInvalidation(RabbitTemplate rabbitTemplate, RecipeResponseCache cache,
+                                         SearchResultCache searchCache, ImageVariantCache variantCache,
+                                         RecipeSearchIndexLoader indexLoader,
+                                         @Value("${recipe-worker.recipe-cache.exchange:recipe-worker.recipe-cache}") String exchange) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.cache = cache;
+        this.searchCache = searchCache;
+        this.variantCache = variantCache;
+        this.indexLoader = indexLoader;
+        this.exchange = exchange;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        broadcast(event.recipeId());
+    }
+
+    @EventListener
+    public void onImagesChanged(RecipeImagesChangedEvent event) {
+        broadcast(event.recipeId());
+    }
+
+    @RabbitListener(queues = "#{recipeCacheInvalidationQueue.name}")
+    public void onInvalidation(String recipeId) {
+        UUID id = UUID.fromString(recipeId);
+        cache.evict(id);
+        searchCache.clear();
+        variantCache.evictRecipe(id);
+        // read from the database, so it does not matter which replica made the change
+        indexLoader.refresh(id);
+    }
+
+    private void broadcast(UUID recipeId) {
+        try {
+            rabbitTemplate.convertAndSend(exchange, "", recipeId.toString());
+        } catch (AmqpException ex) {
+            log.warn("Could not broadcast cache invalidation for recipe {}", recipeId, ex);
+        }
+    }
+}
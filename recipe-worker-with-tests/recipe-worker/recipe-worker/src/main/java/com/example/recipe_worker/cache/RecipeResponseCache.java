@@ -0,0 +1,65 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Fully mapped {@link RecipeResponse}s by recipe id, bounded with Caffeine's W-TinyLFU eviction and
+ * exported as {@code cache.*} metrics under {@code recipe.responses}. Entries are dropped after
+ * every committed recipe change and whenever the image worker touches the recipe's images; the TTL
+ * only bounds staleness from writers outside this process that do not broadcast (see
+ * {@link RabbitRecipeCacheInvalidation}). Cached responses are shared, so callers must not modify them.
+ */
+@Component
+public class RecipeResponseCache {
+
+    private final Cache<UUID, RecipeResponse> cache;
+
+    public RecipeResponseCache(@Value("${recipe-worker.recipe-cache.max-size:10000}") long maxSize,
+                               @Value("${recipe-worker.recipe-cache.ttl-seconds:600}") long ttlSeconds,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.responses");
+    }
+
+    /**
+     * Cached response, or the loader's result (cached when present). Concurrent misses for one id
+     * share a single load, and an eviction racing a load waits for it, so a stale load is never kept.
+     */
+    public Optional<RecipeResponse> get(UUID id, Function<UUID, Optional<RecipeResponse>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    public void evict(UUID id) {
+        cache.invalidate(id);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        evict(event.recipeId());
+    }
+
+    @EventListener
+    public void onImagesChanged(RecipeImagesChangedEvent event) {
+        evict(event.recipeId());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A search request reduced to what affects its result, so requests differing only in case,
+ * whitespace or label order share a cache entry.
+ */
+public record SearchCacheKey(String view,
+                             String q,
+                             String publishedFrom,
+                             String publishedTo,
+                             String chefId,
+                             String chefHandle,
+                             List<String> labels,
+                             String labelMode,
+                             int page,
+                             int pageSize,
+                             String sortBy,
+                             String sortDir,
+                             String cursor,
+                             boolean includeTotal,
+                             boolean includeFacets) {
+
+    public static SearchCacheKey of(String view, RecipeSearchRequest req) {
+        return new SearchCacheKey(view,
+                lower(req.getQ()),
+                trim(req.getPublishedFrom()),
+                trim(req.getPublishedTo()),
+                lower(req.getChefId()),
+                lower(req.getChefHandle()),
+                // label filters and facets compare case-insensitively
+                req.getLabels().stream().map(SearchCacheKey::lower).filter(l -> l != null).distinct().sorted().toList(),
+                lower(req.getLabelMode()),
+                req.getPage(),
+                req.getPageSize(),
+                trim(req.getSortBy()),
+                req.getSortDir() == null ? null : req.getSortDir().trim().toUpperCase(Locale.ROOT),
+                trim(req.getCursor()),
+                req.isIncludeTotal(),
+                req.isIncludeFacets());
+    }
+
+    private static String trim(String s) {
+        if (s == null) return null;
+        String t = s.trim().replaceAll("\\s+", " ");
+        return t.isEmpty() ? null : t;
+    }
+
+    private static String lower(String s) {
+        String t = trim(s);
+        return t == null ? null : t.toLowerCase(Locale.ROOT);
+    }
+}
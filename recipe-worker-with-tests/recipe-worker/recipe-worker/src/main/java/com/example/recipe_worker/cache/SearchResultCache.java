@@ -0,0 +1,80 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of search pages by {@link SearchCacheKey}. Identical concurrent misses are
+ * coalesced: the first caller runs the query on its own thread and the others wait for its result,
+ * so a burst of N identical requests costs one query. Any committed recipe change clears the whole
+ * cache, since it may move a recipe into or out of any page; the TTL bounds staleness from other
+ * replicas. Cached pages are shared, so callers must not modify them.
+ */
+@Component
+public class SearchResultCache {
+
+    private final AsyncCache<SearchCacheKey, Object> cache;
+
+    public SearchResultCache(@Value("${recipe-worker.search-cache.max-size:1000}") long maxSize,
+                             @Value("${recipe-worker.search-cache.ttl-seconds:5}") long ttlSeconds,
+                             MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipe.searches");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(SearchCacheKey key, Supplier<T> loader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> prior = cache.asMap().putIfAbsent(key, mine);
+        if (prior != null) {
+            try {
+                return (T) prior.join();
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException re) throw re;
+                throw ex;
+            }
+        }
+        try {
+            T result = loader.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            // failed loads are dropped by the cache, so the next request retries
+            mine.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        clear();
+    }
+
+    // search results carry image urls and thumbnails
+    @EventListener
+    public void onImagesChanged(RecipeImagesChangedEvent event) {
+        clear();
+    }
+}
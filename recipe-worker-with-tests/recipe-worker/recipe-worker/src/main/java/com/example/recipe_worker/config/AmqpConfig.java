@@ -0,0 +1,25 @@
+package com.example.recipe_worker.config;
+
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "recipe-worker.image.queue.mode", havingValue = "rabbit", matchIfMissing = true)
+public class AmqpConfig {
+
+    @Bean
+    public Queue imageJobQueue(@Value("${recipe-worker.image.queue.name:recipe-worker.image-jobs}") String name) {
+        return new Queue(name, true);
+    }
+
+    // picked up by both the auto-configured RabbitTemplate and listener container factory
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.recipe_worker.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "recipe-worker.recipe-cache.invalidation", havingValue = "rabbit")
+public class RecipeCacheAmqpConfig {
+
+    @Bean
+    public FanoutExchange recipeCacheExchange(
+            @Value("${recipe-worker.recipe-cache.exchange:recipe-worker.recipe-cache}") String name) {
+        return new FanoutExchange(name, true, false);
+    }
+
+    // one exclusive, auto-delete queue per replica, so every replica sees every invalidation
+    @Bean
+    public Queue recipeCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding recipeCacheInvalidationBinding(FanoutExchange recipeCacheExchange, Queue recipeCacheInvalidationQueue) {
+        return BindingBuilder.bind(recipeCacheInvalidationQueue).to(recipeCacheExchange);
+    }
+}
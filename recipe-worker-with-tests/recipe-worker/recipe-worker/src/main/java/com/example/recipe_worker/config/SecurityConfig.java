@@ -1,7 +1,13 @@
 package com.example.recipe_worker.config;
 
+import com.example.recipe_worker.admission.UploadAdmission;
+import com.example.recipe_worker.admission.UploadAdmissionFilter;
+import com.example.recipe_worker.security.BoundedPasswordEncoder;
 import com.example.recipe_worker.security.JwtAuthenticationFilter;
-import com.example.recipe_worker.security.JwtTokenProvider;
+import com.example.recipe_worker.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -10,7 +16,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -19,30 +24,41 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
 
-    private final JwtTokenProvider jwtTokenProvider;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UploadAdmission uploadAdmission;
 
-    public SecurityConfig(JwtTokenProvider jwtTokenProvider) {
-        this.jwtTokenProvider = jwtTokenProvider;
+    public SecurityConfig(VerifiedTokenCache verifiedTokenCache, UploadAdmission uploadAdmission) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.uploadAdmission = uploadAdmission;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        var jwtFilter = new JwtAuthenticationFilter(jwtTokenProvider);
+        var jwtFilter = new JwtAuthenticationFilter(verifiedTokenCache);
 
         http
             .csrf().disable()
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
+                // streamed responses re-dispatch once they finish; the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+            // writes are admitted once the caller is known and before their body is read
+            .addFilterAfter(new UploadAdmissionFilter(uploadAdmission), JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    // hashing runs on its own bounded pool; cost changes are picked up by rehash-on-login
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${security.password.hashing-threads:2}") int threads,
+                                           @Value("${security.password.hashing-queue:64}") int queueCapacity,
+                                           @Value("${security.password.retry-after-seconds:1}") long retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
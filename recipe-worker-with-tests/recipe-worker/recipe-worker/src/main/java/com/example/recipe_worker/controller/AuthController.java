@@ -2,11 +2,15 @@ package com.example.recipe_worker.controller;
 
 import com.example.recipe_worker.dto.SignupRequest;
 import com.example.recipe_worker.entity.User;
+import com.example.recipe_worker.security.AccountUserDetails;
 import com.example.recipe_worker.security.JwtTokenProvider;
+import com.example.recipe_worker.security.PasswordHashingRejectedException;
+import com.example.recipe_worker.security.UserAccount;
 import com.example.recipe_worker.service.UserService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -54,19 +58,19 @@ public class AuthController {
     public ResponseEntity<?> login(@RequestBody Map<String,String> body) {
         String email = body.get("email"), password = body.get("password");
         try {
-            var userOpt = userService.findByEmail(email);
-            if (userOpt.isEmpty()) {
-                return ResponseEntity.status(401).body(Map.of("error","invalid_credentials"));
-            }
-            var user = userOpt.get();
-
             Authentication auth = authManager.authenticate(
                     new UsernamePasswordAuthenticationToken(email, password)
             );
+            // the account was loaded (or taken from cache) while authenticating; no second lookup
+            if (!(auth.getPrincipal() instanceof AccountUserDetails details)) {
+                log.error("Unexpected principal type after login: {}", auth.getPrincipal());
+                return ResponseEntity.status(500).body(Map.of("error","internal_error"));
+            }
+            UserAccount user = details.getAccount();
 
-            if (!user.isEmailVerified()) {
+            if (!user.emailVerified()) {
                 // generate temporary 2-min token
-                String token = userService.createVerificationTokenAndSend(user);
+                String token = userService.createVerificationTokenAndSend(user.email());
 
                 // return verification link in response (for dev/testing)
                 String verificationLink = "http://localhost:8081/api/auth/verify?token=" + token;
@@ -79,12 +83,16 @@ public class AuthController {
                 ));
             }
 
-            Set<String> roles = Set.of(user.getRole() != null ? user.getRole().getName() : "ROLE_USER");
-            String access = tokenProvider.generateAccessToken(user.getId(), user.getEmail(), roles);
+            String access = tokenProvider.generateAccessToken(user.id(), user.email(), Set.of(user.authority()),
+                    user.chefId(), user.chefHandle());
 
             return ResponseEntity.ok(Map.of("accessToken", access, "expiresIn", 3600));
 
+        } catch (PasswordHashingRejectedException ex) {
+            return hashingBusy(ex);
         } catch (AuthenticationException ex) {
+            // an unknown email still hashes (timing protection); that failure arrives wrapped
+            if (ex.getCause() instanceof PasswordHashingRejectedException busy) return hashingBusy(busy);
             return ResponseEntity.status(401).body(Map.of("error","invalid_credentials"));
         } catch (Exception ex) {
             log.error("Login error", ex);
@@ -93,6 +101,13 @@ public class AuthController {
     }
 
 
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<?> hashingBusy(PasswordHashingRejectedException ex) {
+        return ResponseEntity.status(429)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error","too_many_requests"));
+    }
+
     @GetMapping("/debug/whoami")
     public ResponseEntity<?> whoami(Authentication auth) {
         return ResponseEntity.ok(Map.of(
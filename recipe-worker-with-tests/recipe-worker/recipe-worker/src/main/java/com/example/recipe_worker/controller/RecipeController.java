@@ -1,16 +1,22 @@
 package com.example.recipe_worker.controller;
 
 import com.example.recipe_worker.dto.ImageUploadDto;
+import com.example.recipe_worker.dto.ImageVariant;
 import com.example.recipe_worker.dto.RecipeCreateRequest;
 import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
 import com.example.recipe_worker.dto.RecipeUpdateRequest;
-import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.security.AuthenticatedUser;
+import com.example.recipe_worker.service.ImageServingService;
 import com.example.recipe_worker.service.RecipeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,9 +24,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
 import java.util.*;
 
 @RestController
@@ -29,11 +33,11 @@ public class RecipeController {
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final RecipeService recipeService;
-    private final FileStorageService fileStorageService;
+    private final ImageServingService imageServingService;
 
-    public RecipeController(RecipeService recipeService, FileStorageService fileStorageService) {
+    public RecipeController(RecipeService recipeService, ImageServingService imageServingService) {
         this.recipeService = recipeService;
-        this.fileStorageService = fileStorageService;
+        this.imageServingService = imageServingService;
     }
 
     @PostMapping(consumes = { MediaType.MULTIPART_FORM_DATA_VALUE })
@@ -61,27 +65,21 @@ public class RecipeController {
                     mapper.readValue(labels, List.class));
             req.setPublished(published);
 
-            // Convert multipart files to ImageUploadDto and save via file storage
+            // Convert multipart files to ImageUploadDto; the image worker stores them asynchronously
             if (images != null && images.length > 0) {
                 List<ImageUploadDto> imgDtos = new ArrayList<>();
                 for (MultipartFile f : images) {
                     if (f == null || f.isEmpty()) continue;
-                    // store bytes and get stored path (delegated to FileStorageService)
-                    byte[] data = f.getBytes();
-                    String storedPath = fileStorageService.store(data, f.getOriginalFilename());
                     ImageUploadDto im = new ImageUploadDto();
                     im.setFilename(f.getOriginalFilename());
                     im.setMimeType(f.getContentType());
-                    im.setDataBase64(null); 
-                    im.setFilename(storedPath);
+                    im.setSource(f);
                     imgDtos.add(im);
                 }
                 req.setImages(imgDtos);
             }
 
-            String chefEmail = authentication != null ? authentication.getName() : null;
-
-            RecipeResponse saved = recipeService.createRecipe(req, chefEmail);
+            RecipeResponse saved = recipeService.createRecipe(req, AuthenticatedUser.chefIdentityOf(authentication));
             return ResponseEntity.ok(saved);
 
         } catch (Exception ex) {
@@ -95,8 +93,7 @@ public class RecipeController {
     @PreAuthorize("hasAuthority('ROLE_CHEF')")
     public ResponseEntity<?> createJson(@Valid @RequestBody RecipeCreateRequest req, Authentication authentication) {
         try {
-            String chefEmail = authentication != null ? authentication.getName() : null;
-            RecipeResponse saved = recipeService.createRecipe(req, chefEmail);
+            RecipeResponse saved = recipeService.createRecipe(req, AuthenticatedUser.chefIdentityOf(authentication));
             return ResponseEntity.ok(saved);
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -117,8 +114,7 @@ public class RecipeController {
                                     @Valid @RequestBody RecipeUpdateRequest update,
                                     Authentication authentication) {
         try {
-            String actorEmail = authentication != null ? authentication.getName() : null;
-            var updated = recipeService.updateRecipe(id, update, actorEmail);
+            var updated = recipeService.updateRecipe(id, update, AuthenticatedUser.chefIdentityOf(authentication));
             return ResponseEntity.ok(updated);
         } catch (SecurityException se) {
             return ResponseEntity.status(403).body(Map.of("error", "forbidden"));
@@ -135,8 +131,7 @@ public class RecipeController {
     @PreAuthorize("hasAuthority('ROLE_CHEF') or hasAuthority('ROLE_ADMIN')")
     public ResponseEntity<?> delete(@PathVariable("id") UUID id, Authentication authentication) {
         try {
-            String actorEmail = authentication != null ? authentication.getName() : null;
-            recipeService.deleteRecipe(id, actorEmail);
+            recipeService.deleteRecipe(id, AuthenticatedUser.chefIdentityOf(authentication));
             return ResponseEntity.noContent().build();
         } catch (SecurityException se) {
             return ResponseEntity.status(403).body(Map.of("error", "forbidden"));
@@ -161,35 +156,102 @@ public class RecipeController {
             @RequestParam(required = false, name = "published_to") String publishedTo,
             @RequestParam(required = false, name = "chef_id") String chefId,
             @RequestParam(required = false, name = "chef_handle") String chefHandle,
+            // repeated or comma separated; label_mode=all (default) or any
+            @RequestParam(required = false) List<String> labels,
+            @RequestParam(required = false, defaultValue = "all") String label_mode,
             @RequestParam(required = false, defaultValue = "0") int page,
             @RequestParam(required = false, defaultValue = "20") int page_size,
-            @RequestParam(required = false, defaultValue = "publishedAt") String sort_by,
-            @RequestParam(required = false, defaultValue = "DESC") String sort_dir) {
+            // defaults to relevance when q is given, publishedAt otherwise
+            @RequestParam(required = false) String sort_by,
+            @RequestParam(required = false, defaultValue = "DESC") String sort_dir,
+            @RequestParam(required = false, defaultValue = "full") String view,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean include_total,
+            @RequestParam(required = false, defaultValue = "false") boolean include_facets) {
+
+        if (!"all".equalsIgnoreCase(label_mode) && !"any".equalsIgnoreCase(label_mode)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "label_mode must be 'all' or 'any'"));
+        }
+        RecipeSearchRequest req = new RecipeSearchRequest();
+        req.setQ(q);
+        req.setPublishedFrom(publishedFrom);
+        req.setPublishedTo(publishedTo);
+        req.setChefId(chefId);
+        req.setChefHandle(chefHandle);
+        req.setLabels(labels);
+        req.setLabelMode(label_mode);
+        req.setPage(page);
+        req.setPageSize(page_size);
+        req.setSortBy(sort_by);
+        req.setSortDir(sort_dir);
+        req.setCursor(cursor);
+        req.setIncludeTotal(include_total);
+        req.setIncludeFacets(include_facets);
+
+        // any cursor parameter (empty for the first page) switches to keyset paging
+        if (cursor != null) {
+            if (!"full".equalsIgnoreCase(view)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "cursor paging supports view=full only"));
+            }
+            try {
+                return ResponseEntity.ok(recipeService.searchRecipesByCursor(req));
+            } catch (IllegalArgumentException ex) {
+                return ResponseEntity.badRequest().body(Map.of("error", "invalid_cursor"));
+            }
+        }
 
-        var resp = recipeService.searchRecipes(q, publishedFrom, publishedTo, chefId, chefHandle, page, page_size, sort_by, sort_dir);
+        if ("card".equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(recipeService.searchRecipeCards(req));
+        }
+        if (!"full".equalsIgnoreCase(view)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "view must be 'full' or 'card'"));
+        }
+        var resp = recipeService.searchRecipes(req);
         return ResponseEntity.ok(resp);
     }
 
+    @GetMapping("/match")
+    public ResponseEntity<?> matchPantry(
+            @RequestParam List<String> ingredients,
+            @RequestParam(required = false, defaultValue = "0", name = "max_missing") int maxMissing,
+            @RequestParam(required = false, defaultValue = "20") int limit) {
+        return ResponseEntity.ok(recipeService.matchPantry(ingredients, maxMissing, limit));
+    }
+
     @GetMapping("/images/{filename}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
+    public void getImage(@PathVariable String filename,
+                         @RequestParam(required = false) Integer size,
+                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Integer requested = size != null && size > 0 ? size : null;
+        // the smallest stored variant that still covers the requested size, in the best format the client takes
+        Optional<ImageVariant> variant = recipeService.resolveImageVariant(filename, requested, acceptedFormats(accept));
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        // while the image is still processing a smaller or more compact variant may yet appear
+        boolean immutable = variant.map(ImageVariant::ready).orElse(false);
+        imageServingService.serve(variant.map(ImageVariant::storedName).orElse(filename), immutable, request, response);
+    }
+
+    // compact formats only when the client names them; JPEG for anything that takes images at all
+    private static List<ImageFormat> acceptedFormats(String accept) {
+        if (accept == null || accept.isBlank()) return List.of(ImageFormat.JPEG);
+        List<MediaType> ranges;
         try {
-            Path storage = Paths.get("./data/storage").toAbsolutePath().normalize();
-            Path imagePath = storage.resolve(filename).normalize();
-            System.out.println("Storage dir: " + storage);
-            System.out.println("Resolved imagePath: " + imagePath);
-            if (!Files.exists(imagePath)) {
-                System.out.println("File not found: " + imagePath);
-                return ResponseEntity.notFound().build();
-            }
-            Resource resource = new UrlResource(imagePath.toUri());
-            String contentType = Files.probeContentType(imagePath);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType != null ? contentType : "application/octet-stream"))
-                    .body(resource);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).build();
+            ranges = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return List.of(ImageFormat.JPEG);
+        }
+        List<ImageFormat> accepted = new ArrayList<>();
+        for (ImageFormat format : ImageFormat.values()) {
+            MediaType type = MediaType.parseMediaType(format.mimeType());
+            MediaType exact = ranges.stream().filter(r -> r.equalsTypeAndSubtype(type)).findFirst().orElse(null);
+            boolean ok = exact != null
+                    ? exact.getQualityValue() > 0
+                    : format == ImageFormat.JPEG && ranges.stream().anyMatch(r -> r.includes(type) && r.getQualityValue() > 0);
+            if (ok) accepted.add(format);
         }
+        return accepted;
     }
 
 }
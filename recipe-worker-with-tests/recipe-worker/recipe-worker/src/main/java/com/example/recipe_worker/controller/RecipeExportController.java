@@ -0,0 +1,172 @@
+package com.example.recipe_worker.controller;
+
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.service.RecipeService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Whole-catalog export for offline consumers: every recipe matching the listing filters (not the
+ * capped full-text query), streamed
+ * as NDJSON (one {@link RecipeResponse} per line) or CSV, gzip-compressed on the fly when the
+ * client accepts it. Rows are written as they are read from the database cursor.
+ */
+@RestController
+@RequestMapping("/api/recipes")
+public class RecipeExportController {
+
+    private static final String CSV_HEADER =
+            "id,title,summary,chef_id,chef_handle,published,published_at,ingredients,steps,labels\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final RecipeService recipeService;
+    private final ObjectMapper objectMapper;
+
+    public RecipeExportController(RecipeService recipeService, ObjectMapper objectMapper) {
+        this.recipeService = recipeService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false, name = "published_from") String publishedFrom,
+            @RequestParam(required = false, name = "published_to") String publishedTo,
+            @RequestParam(required = false, name = "chef_id") String chefId,
+            @RequestParam(required = false, name = "chef_handle") String chefHandle,
+            @RequestParam(required = false) List<String> labels,
+            @RequestParam(required = false, defaultValue = "all") String label_mode,
+            @RequestParam(required = false) String sort_by,
+            @RequestParam(required = false, defaultValue = "DESC") String sort_dir,
+            @RequestHeader(required = false, name = HttpHeaders.ACCEPT_ENCODING) String acceptEncoding) {
+
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("format must be 'ndjson' or 'csv'");
+        }
+        // text search is capped at recipe-worker.search.max-hits, which would silently cut the export short
+        if (q != null && !q.isBlank()) {
+            throw new IllegalArgumentException("q is not supported on export; use the listing filters");
+        }
+        if (!"all".equalsIgnoreCase(label_mode) && !"any".equalsIgnoreCase(label_mode)) {
+            throw new IllegalArgumentException("label_mode must be 'all' or 'any'");
+        }
+        RecipeSearchRequest req = new RecipeSearchRequest();
+        req.setPublishedFrom(publishedFrom);
+        req.setPublishedTo(publishedTo);
+        req.setChefId(chefId);
+        req.setChefHandle(chefHandle);
+        req.setLabels(labels);
+        req.setLabelMode(label_mode);
+        req.setSortBy(sort_by);
+        req.setSortDir(sort_dir);
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+            OutputStream buffered = new BufferedOutputStream(target, BUFFER_SIZE);
+            if (csv) buffered.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+            try {
+                recipeService.exportRecipes(req, r -> {
+                    try {
+                        buffered.write(csv ? csvRow(r) : ndjsonRow(r));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                // usually the client went away; surfaces as a failed async request
+                throw ex.getCause();
+            }
+            buffered.flush();
+            if (target instanceof GZIPOutputStream gz) gz.finish();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.parseMediaType(RecipeImportController.NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "recipes.csv" : "recipes.ndjson").build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
+
+    // the streaming return type leaves no room for an error body, so bad parameters end up here
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private byte[] ndjsonRow(RecipeResponse r) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(r);
+        byte[] row = new byte[json.length + 1];
+        System.arraycopy(json, 0, row, 0, json.length);
+        row[json.length] = '\n';
+        return row;
+    }
+
+    // lists are written as JSON arrays in a single cell, so no separator can be ambiguous
+    private byte[] csvRow(RecipeResponse r) throws JsonProcessingException {
+        String row = String.join(",",
+                csvField(r.getId() == null ? null : r.getId().toString()),
+                csvField(r.getTitle()),
+                csvField(r.getSummary()),
+                csvField(r.getChefId()),
+                csvField(r.getChefHandle()),
+                String.valueOf(r.isPublished()),
+                csvField(r.getPublishedAt() == null ? null : r.getPublishedAt().toString()),
+                csvField(objectMapper.writeValueAsString(listOrEmpty(r.getIngredients()))),
+                csvField(objectMapper.writeValueAsString(listOrEmpty(r.getSteps()))),
+                csvField(objectMapper.writeValueAsString(listOrEmpty(r.getLabels()))));
+        return (row + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> listOrEmpty(List<String> list) {
+        return list == null ? List.of() : list;
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks and double the quotes
+    static String csvField(String value) {
+        if (value == null) return "";
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    // gzip when listed without q=0; anything else gets the identity encoding
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            if (!"gzip".equalsIgnoreCase(params[0].trim())) continue;
+            for (int i = 1; i < params.length; i++) {
+                if (params[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.recipe_worker.controller;
+
+import com.example.recipe_worker.dto.RecipeImportReport;
+import com.example.recipe_worker.security.AuthenticatedUser;
+import com.example.recipe_worker.service.RecipeImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/recipes")
+public class RecipeImportController {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final Logger log = LoggerFactory.getLogger(RecipeImportController.class);
+
+    private final RecipeImportService importService;
+
+    public RecipeImportController(RecipeImportService importService) {
+        this.importService = importService;
+    }
+
+    // one recipe (RecipeCreateRequest JSON) per line; all imported recipes belong to the caller
+    @PostMapping(value = "/import", consumes = NDJSON)
+    @PreAuthorize("hasAuthority('ROLE_CHEF') or hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<?> importRecipes(HttpServletRequest request, Authentication authentication) {
+        try {
+            RecipeImportReport report = importService.importNdjson(request.getInputStream(),
+                    AuthenticatedUser.chefIdentityOf(authentication));
+            return ResponseEntity.ok(report);
+        } catch (IOException ex) {
+            log.warn("Import body could not be read", ex);
+            return ResponseEntity.badRequest().body(Map.of("error", "unreadable_body"));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.recipe_worker.dto;
+
+import java.util.UUID;
+
+/**
+ * The chef acting on a recipe. Id and handle are known when the caller's token carries them;
+ * otherwise only the email is set and the chef is looked up (or created) from it.
+ */
+public record ChefIdentity(UUID chefId, String email, String handle) {
+
+    public static ChefIdentity ofEmail(String email) {
+        return new ChefIdentity(null, email, null);
+    }
+
+    public boolean resolved() {
+        return chefId != null && handle != null;
+    }
+}
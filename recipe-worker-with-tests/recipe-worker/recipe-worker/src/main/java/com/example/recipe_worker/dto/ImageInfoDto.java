@@ -5,6 +5,9 @@ public class ImageInfoDto {
     private String filename;
     private String url;         // URL or path to fetch the image (thumbs)
     private String sizeLabel;   // e.g. "1024", "512" etc.
+    private String originalId;  // set on resized variants, groups them with their original
+    private String format;      // AVIF / WEBP / JPEG for transcoded variants, null for the upload as sent
+    private String status;      // PENDING / READY / FAILED, clients poll until READY
 
     public ImageInfoDto() {}
 
@@ -16,4 +19,10 @@ public class ImageInfoDto {
     public void setUrl(String url) { this.url = url; }
     public String getSizeLabel() { return sizeLabel; }
     public void setSizeLabel(String sizeLabel) { this.sizeLabel = sizeLabel; }
+    public String getOriginalId() { return originalId; }
+    public void setOriginalId(String originalId) { this.originalId = originalId; }
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
 }
@@ -1,5 +1,8 @@
 package com.example.recipe_worker.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.core.io.InputStreamSource;
+
 public class ImageUploadDto {
     // filename optional (helps when persisting)
     private String filename;
@@ -10,6 +13,14 @@ public class ImageUploadDto {
     // Base64 encoded bytes (or null if file-based upload)
     private String dataBase64;
 
+    // content of a multipart upload, read as a stream (never part of the JSON contract)
+    @JsonIgnore
+    private InputStreamSource source;
+
+    // set once the bytes are in the file store, before the recipe transaction starts
+    @JsonIgnore
+    private String storedPath;
+
     public ImageUploadDto() {}
 
     public ImageUploadDto(String filename, String mimeType, String dataBase64) {
@@ -24,4 +35,8 @@ public class ImageUploadDto {
     public void setMimeType(String mimeType) { this.mimeType = mimeType; }
     public String getDataBase64() { return dataBase64; }
     public void setDataBase64(String dataBase64) { this.dataBase64 = dataBase64; }
+    public InputStreamSource getSource() { return source; }
+    public void setSource(InputStreamSource source) { this.source = source; }
+    public String getStoredPath() { return storedPath; }
+    public void setStoredPath(String storedPath) { this.storedPath = storedPath; }
 }
@@ -0,0 +1,11 @@
+package com.example.recipe_worker.dto;
+
+import java.util.UUID;
+
+/**
+ * The stored file answering an image request. Ready once the image's variants have all been
+ * written, so the same request keeps resolving to the same file; before that a better match may
+ * still appear. {@code recipeId} owns the image row the answer was derived from, so a change to
+ * that recipe is what can change it.
+ */
+public record ImageVariant(String storedName, boolean ready, UUID recipeId) {}
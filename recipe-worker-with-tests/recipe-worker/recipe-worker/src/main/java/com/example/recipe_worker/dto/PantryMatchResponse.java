@@ -0,0 +1,34 @@
+package com.example.recipe_worker.dto;
+
+import java.util.List;
+
+/**
+ * A recipe card plus how well a pantry covers it. Ingredient names are the normalised dictionary
+ * keys, not the recipe's original lines.
+ */
+public class PantryMatchResponse {
+
+    private RecipeCardResponse recipe;
+    private int matchedIngredients;
+    private int totalIngredients;
+    private List<String> missingIngredients;
+
+    public PantryMatchResponse() {}
+
+    public PantryMatchResponse(RecipeCardResponse recipe, int matchedIngredients, int totalIngredients,
+                               List<String> missingIngredients) {
+        this.recipe = recipe;
+        this.matchedIngredients = matchedIngredients;
+        this.totalIngredients = totalIngredients;
+        this.missingIngredients = missingIngredients;
+    }
+
+    public RecipeCardResponse getRecipe() { return recipe; }
+    public void setRecipe(RecipeCardResponse recipe) { this.recipe = recipe; }
+    public int getMatchedIngredients() { return matchedIngredients; }
+    public void setMatchedIngredients(int matchedIngredients) { this.matchedIngredients = matchedIngredients; }
+    public int getTotalIngredients() { return totalIngredients; }
+    public void setTotalIngredients(int totalIngredients) { this.totalIngredients = totalIngredients; }
+    public List<String> getMissingIngredients() { return missingIngredients; }
+    public void setMissingIngredients(List<String> missingIngredients) { this.missingIngredients = missingIngredients; }
+}
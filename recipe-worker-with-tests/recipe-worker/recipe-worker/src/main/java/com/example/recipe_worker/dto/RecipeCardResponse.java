@@ -0,0 +1,46 @@
+package com.example.recipe_worker.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Listing view of a recipe: only what a card shows. Built directly by the card projection
+ * query, so no ingredients, steps or image rows are ever loaded for it.
+ */
+public class RecipeCardResponse {
+
+    private static final String IMAGE_URL_PREFIX = "/api/recipes/images/";
+
+    private UUID id;
+    private String title;
+    private String summary;
+    private String chefHandle;
+    private Instant publishedAt;
+    private String thumbnailUrl;
+
+    public RecipeCardResponse() {}
+
+    // used by the JPA constructor expression in RecipeRepositoryCustomImpl
+    public RecipeCardResponse(UUID id, String title, String summary, String chefHandle,
+                              Instant publishedAt, String thumbnailStoredName) {
+        this.id = id;
+        this.title = title;
+        this.summary = summary;
+        this.chefHandle = chefHandle;
+        this.publishedAt = publishedAt;
+        this.thumbnailUrl = thumbnailStoredName == null ? null : IMAGE_URL_PREFIX + thumbnailStoredName;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+    public String getChefHandle() { return chefHandle; }
+    public void setChefHandle(String chefHandle) { this.chefHandle = chefHandle; }
+    public Instant getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(Instant publishedAt) { this.publishedAt = publishedAt; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+}
@@ -0,0 +1,31 @@
+package com.example.recipe_worker.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last row of a keyset page: {@code (publishedAt, id)}. Clients only ever see the
+ * encoded form, so the layout can change without breaking them beyond an in-flight scroll.
+ */
+public record RecipeCursor(Instant publishedAt, UUID id) {
+
+    public String encode() {
+        String raw = publishedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // IllegalArgumentException for anything that was not produced by encode()
+    public static RecipeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            if (sep < 0) throw new IllegalArgumentException("malformed cursor");
+            return new RecipeCursor(Instant.parse(raw.substring(0, sep)), UUID.fromString(raw.substring(sep + 1)));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("malformed cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.recipe_worker.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/** Outcome of an NDJSON import: one result per non-blank input line, in input order. */
+public record RecipeImportReport(int created, int failed, List<LineResult> results) {
+
+    /** {@code id} is set for created recipes, {@code error} for rejected lines. */
+    public record LineResult(int line, UUID id, String error) {}
+}
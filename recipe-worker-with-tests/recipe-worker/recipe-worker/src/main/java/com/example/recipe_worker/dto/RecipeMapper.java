@@ -37,6 +37,9 @@ public class RecipeMapper {
         // compute URL/path if you have a mapping endpoint e.g. /images/{id}/{size}
         info.setUrl("/images/" + e.getId()); 
         info.setSizeLabel(e.getSizeLabel());
+        info.setOriginalId(e.getOriginalId() == null ? null : e.getOriginalId().toString());
+        info.setFormat(e.getFormat() == null ? null : e.getFormat().name());
+        info.setStatus(e.getStatus().name());
         return info;
     }
 }
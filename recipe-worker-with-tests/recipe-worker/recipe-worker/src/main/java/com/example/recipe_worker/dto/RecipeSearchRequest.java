@@ -0,0 +1,55 @@
+package com.example.recipe_worker.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query parameters of the recipe listing. Paging fields are used by offset paging, {@code cursor}
+ * and {@code includeTotal} by keyset paging; everything else applies to both.
+ */
+public class RecipeSearchRequest {
+
+    private String q;
+    private String publishedFrom;
+    private String publishedTo;
+    private String chefId;
+    private String chefHandle;
+    private List<String> labels = new ArrayList<>();
+    private String labelMode = "all";   // all = every label, any = at least one
+    private int page = 0;
+    private int pageSize = 20;
+    private String sortBy;
+    private String sortDir = "DESC";
+    private String cursor;
+    private boolean includeTotal;
+    private boolean includeFacets;
+
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+    public String getPublishedFrom() { return publishedFrom; }
+    public void setPublishedFrom(String publishedFrom) { this.publishedFrom = publishedFrom; }
+    public String getPublishedTo() { return publishedTo; }
+    public void setPublishedTo(String publishedTo) { this.publishedTo = publishedTo; }
+    public String getChefId() { return chefId; }
+    public void setChefId(String chefId) { this.chefId = chefId; }
+    public String getChefHandle() { return chefHandle; }
+    public void setChefHandle(String chefHandle) { this.chefHandle = chefHandle; }
+    public List<String> getLabels() { return labels; }
+    public void setLabels(List<String> labels) { this.labels = labels == null ? new ArrayList<>() : labels; }
+    public String getLabelMode() { return labelMode; }
+    public void setLabelMode(String labelMode) { this.labelMode = labelMode; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public int getPageSize() { return pageSize; }
+    public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+    public String getSortDir() { return sortDir; }
+    public void setSortDir(String sortDir) { this.sortDir = sortDir; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public boolean isIncludeTotal() { return includeTotal; }
+    public void setIncludeTotal(boolean includeTotal) { this.includeTotal = includeTotal; }
+    public boolean isIncludeFacets() { return includeFacets; }
+    public void setIncludeFacets(boolean includeFacets) { this.includeFacets = includeFacets; }
+}
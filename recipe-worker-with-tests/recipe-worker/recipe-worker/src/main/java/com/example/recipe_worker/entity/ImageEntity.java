@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.util.UUID;
 
 @Entity
-@Table(name = "image_entity")
+@Table(name = "image_entity", indexes = {
+        @Index(name = "idx_image_stored_name", columnList = "stored_name"),
+        @Index(name = "idx_image_original_id", columnList = "original_id")
+})
 public class ImageEntity {
 
     @Id
@@ -16,9 +19,26 @@ public class ImageEntity {
     @Column(length = 1000)
     private String path; // stored file path or URL
 
+    @Column(name = "stored_name", length = 300)
+    private String storedName; // file name under the storage dir, as served by /api/recipes/images/{name}
+
     @Column(name = "size_label", length = 50)
     private String sizeLabel;
 
+    @Column(name = "original_id")
+    private UUID originalId; // set on resized variants, points at the original upload
+
+    @Column(name = "sort_order")
+    private Integer sortOrder; // upload order among the recipe's originals; null on variants and older rows
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private ImageFormat format; // null for the upload as sent, else what the variant was transcoded to
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private ImageStatus status = ImageStatus.READY;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipe_id")
     private Recipe recipe;
@@ -37,8 +57,19 @@ public class ImageEntity {
     public void setFilename(String filename) { this.filename = filename; }
     public String getPath() { return path; }
     public void setPath(String path) { this.path = path; }
+    public String getStoredName() { return storedName; }
+    public void setStoredName(String storedName) { this.storedName = storedName; }
+    public UUID getOriginalId() { return originalId; }
+    public void setOriginalId(UUID originalId) { this.originalId = originalId; }
+    public Integer getSortOrder() { return sortOrder; }
+    public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
     public String getSizeLabel() { return sizeLabel; }
     public void setSizeLabel(String sizeLabel) { this.sizeLabel = sizeLabel; }
+    public ImageFormat getFormat() { return format; }
+    public void setFormat(ImageFormat format) { this.format = format; }
+    // rows created before the status column existed are treated as ready
+    public ImageStatus getStatus() { return status == null ? ImageStatus.READY : status; }
+    public void setStatus(ImageStatus status) { this.status = status; }
     public Recipe getRecipe() { return recipe; }
     public void setRecipe(Recipe recipe) { this.recipe = recipe; }
 }
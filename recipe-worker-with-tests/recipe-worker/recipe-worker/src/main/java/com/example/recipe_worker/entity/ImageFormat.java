@@ -0,0 +1,31 @@
+package com.example.recipe_worker.entity;
+
+import java.util.Optional;
+
+/**
+ * Formats uploads are transcoded into, most compact first. Rows without a format hold the upload as
+ * the chef sent it.
+ */
+public enum ImageFormat {
+    AVIF("image/avif", "avif"),
+    WEBP("image/webp", "webp"),
+    JPEG("image/jpeg", "jpg");
+
+    private final String mimeType;
+    private final String extension;
+
+    ImageFormat(String mimeType, String extension) {
+        this.mimeType = mimeType;
+        this.extension = extension;
+    }
+
+    public String mimeType() { return mimeType; }
+    public String extension() { return extension; }
+
+    public static Optional<ImageFormat> fromExtension(String extension) {
+        for (ImageFormat f : values()) {
+            if (f.extension.equalsIgnoreCase(extension)) return Optional.of(f);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.recipe_worker.entity;
+
+public enum ImageStatus {
+    PENDING,    // row persisted, bytes waiting for the image worker
+    READY,      // stored and servable
+    FAILED      // worker could not store the bytes, or refused them (not an image, too many pixels)
+}
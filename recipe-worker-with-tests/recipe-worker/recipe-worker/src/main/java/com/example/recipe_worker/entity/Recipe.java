@@ -1,6 +1,7 @@
 package com.example.recipe_worker.entity;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -8,7 +9,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "recipe")
-public class Recipe {
+public class Recipe implements Persistable<UUID> {
 
     @Id
     private UUID id;
@@ -19,16 +20,16 @@ public class Recipe {
     @Column(length = 2000)
     private String summary;
 
-    @ElementCollection
-    @CollectionTable(name = "recipe_ingredients", joinColumns = @JoinColumn(name = "recipe_id"))
-    @Column(name = "ingredient", length = 500)
+    // ordered JSON arrays on the recipe row: loaded with it, written by its single UPDATE
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "ingredients", columnDefinition = "text")
     private List<String> ingredients = new ArrayList<>();
 
-    @ElementCollection
-    @CollectionTable(name = "recipe_steps", joinColumns = @JoinColumn(name = "recipe_id"))
-    @Column(name = "step", length = 2000)
+    @Convert(converter = StringListConverter.class)
+    @Column(name = "steps", columnDefinition = "text")
     private List<String> steps = new ArrayList<>();
 
+    // labels stay a join table: label filters and facets join and group on it
     @ElementCollection
     @CollectionTable(name = "recipe_labels", joinColumns = @JoinColumn(name = "recipe_id"))
     @Column(name = "label", length = 255)
@@ -57,6 +58,11 @@ public class Recipe {
     @Column(name = "updated_at")
     private Instant updatedAt;
 
+    // ids are assigned in Java, so Spring Data cannot tell new rows apart by a null id; without this
+    // save() would merge (SELECT first) and inserts could not be batched
+    @Transient
+    private boolean isNew = true;
+
     public Recipe() {
         // required by JPA
     }
@@ -76,6 +82,17 @@ public class Recipe {
         updatedAt = Instant.now();
     }
 
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     // -----------------------
     // Convenience helpers
     // -----------------------
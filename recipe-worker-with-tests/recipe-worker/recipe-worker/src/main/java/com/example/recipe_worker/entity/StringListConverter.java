@@ -0,0 +1,41 @@
+package com.example.recipe_worker.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores an ordered list of strings as a JSON array in a single text column, so the list is read
+ * with its row and rewritten by the row's UPDATE instead of delete-all/insert-all on a join table.
+ * A null column (a row not yet migrated from the join tables) reads as an empty list.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> LIST = new TypeReference<>() {};
+
+    @Override
+    public String convertToDatabaseColumn(List<String> list) {
+        try {
+            return MAPPER.writeValueAsString(list == null ? List.of() : list);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("list is not serialisable", ex);
+        }
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String json) {
+        if (json == null || json.isBlank()) return new ArrayList<>();
+        try {
+            return new ArrayList<>(MAPPER.readValue(json, LIST));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("column does not hold a JSON string array", ex);
+        }
+    }
+}
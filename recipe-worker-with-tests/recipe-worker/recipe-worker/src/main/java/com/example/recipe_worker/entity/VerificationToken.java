@@ -0,0 +1,29 @@
+package com.example.recipe_worker.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "verification_token", indexes = {
+        @Index(name = "idx_verification_token_expires_at", columnList = "expires_at")
+})
+public class VerificationToken {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash; // SHA-256 of the token, never the token itself
+
+    @Column(nullable = false, length = 255)
+    private String email;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // getters / setters
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    public String getEmail() { return email; }
+    public void setEmail(String email) { this.email = email; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,11 +1,54 @@
 package com.example.recipe_worker.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.ImageStatus;
 
 public interface ImageRepository extends JpaRepository<ImageEntity, UUID> {
-    
+
+    // rows sharing a deduplicated blob, in a stable order: finished rows, then originals, then by id
+    @Query("select i from ImageEntity i where i.storedName = :storedName order by "
+            + "case when i.status = :ready or i.status is null then 0 else 1 end, "
+            + "case when i.originalId is null then 0 else 1 end, i.id")
+    List<ImageEntity> findByStoredNameRanked(@Param("storedName") String storedName, @Param("ready") ImageStatus ready,
+                                             Pageable page);
+
+    // the given stored names that at least one image row still refers to
+    @Query("select distinct i.storedName from ImageEntity i where i.storedName in :names")
+    List<String> findReferencedStoredNames(@Param("names") Collection<String> names);
+
+    // rows naming a flat file: by stored name, or by path for rows written before stored_name existed
+    String REFERENCES_FLAT_FILE = "(i.storedName = :name or (i.storedName is null and i.path like :pathSuffix escape '!'))";
+
+    @Query("select distinct i.recipe.id from ImageEntity i where " + REFERENCES_FLAT_FILE)
+    List<UUID> findRecipeIdsReferencingFlatFile(@Param("name") String name, @Param("pathSuffix") String pathSuffix);
+
+    @Query("select count(i) from ImageEntity i where " + REFERENCES_FLAT_FILE)
+    long countReferencingFlatFile(@Param("name") String name, @Param("pathSuffix") String pathSuffix);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageEntity i set i.path = :path, i.storedName = :newName where " + REFERENCES_FLAT_FILE)
+    int repointFlatFile(@Param("name") String name, @Param("pathSuffix") String pathSuffix,
+                        @Param("newName") String newName, @Param("path") String path);
+
+    // the original upload plus all of its resized variants
+    @Query("select i from ImageEntity i where (i.id = :originalId or i.originalId = :originalId) and i.status = :status")
+    List<ImageEntity> findVariantGroup(@Param("originalId") UUID originalId, @Param("status") ImageStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageEntity i set i.path = :path, i.storedName = :storedName, i.sizeLabel = :sizeLabel, i.status = :status where i.id = :id")
+    int markProcessed(@Param("id") UUID id, @Param("path") String path, @Param("storedName") String storedName,
+                      @Param("sizeLabel") String sizeLabel, @Param("status") ImageStatus status);
 }
@@ -0,0 +1,119 @@
+package com.example.recipe_worker.repository;
+
+import com.example.recipe_worker.entity.StringListConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves ingredients and steps out of the legacy {@code recipe_ingredients} / {@code recipe_steps}
+ * join tables into the JSON columns on {@code recipe}. Runs at startup, after the schema update has
+ * added the columns and before the web server takes traffic, in batches of one transaction each.
+ * Recipes whose columns are still null are copied and their legacy rows deleted, so an interrupted
+ * run resumes where it stopped; once the tables are empty they can be dropped.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty(name = "recipe-worker.recipe-lists.migrate-legacy-tables", havingValue = "true",
+        matchIfMissing = true)
+public class RecipeListColumnsMigration implements InitializingBean {
+
+    private static final String INGREDIENTS_TABLE = "recipe_ingredients";
+    private static final String STEPS_TABLE = "recipe_steps";
+
+    private final Logger log = LoggerFactory.getLogger(RecipeListColumnsMigration.class);
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final StringListConverter converter = new StringListConverter();
+    private final int batchSize;
+
+    public RecipeListColumnsMigration(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactionTemplate,
+                                      @Value("${recipe-worker.recipe-lists.migration-batch-size:500}") int batchSize) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        migrate();
+    }
+
+    // returns the number of recipes migrated
+    public int migrate() {
+        boolean ingredients = tableExists(INGREDIENTS_TABLE);
+        boolean steps = tableExists(STEPS_TABLE);
+        if (!ingredients && !steps) return 0;
+
+        int migrated = 0;
+        while (true) {
+            Integer done = transactionTemplate.execute(status -> migrateBatch(ingredients, steps));
+            migrated += done;
+            if (done < batchSize) break;
+        }
+        if (migrated > 0) log.info("Moved ingredients and steps of {} recipes into JSON columns", migrated);
+        return migrated;
+    }
+
+    private int migrateBatch(boolean ingredientsTable, boolean stepsTable) {
+        List<UUID> ids = jdbc.getJdbcTemplate().queryForList(
+                "select id from recipe where ingredients is null or steps is null limit ?", UUID.class, batchSize);
+        if (ids.isEmpty()) return 0;
+
+        Map<UUID, List<String>> ingredients = ingredientsTable ? legacyRows(INGREDIENTS_TABLE, "ingredient", ids) : Map.of();
+        Map<UUID, List<String>> steps = stepsTable ? legacyRows(STEPS_TABLE, "step", ids) : Map.of();
+
+        // coalesce keeps a column the application has already written
+        jdbc.getJdbcTemplate().batchUpdate(
+                "update recipe set ingredients = coalesce(ingredients, ?), steps = coalesce(steps, ?) where id = ?",
+                ids, ids.size(), (ps, id) -> {
+                    ps.setString(1, converter.convertToDatabaseColumn(ingredients.getOrDefault(id, List.of())));
+                    ps.setString(2, converter.convertToDatabaseColumn(steps.getOrDefault(id, List.of())));
+                    ps.setObject(3, id);
+                });
+        Map<String, Object> params = Map.of("ids", ids);
+        if (ingredientsTable) jdbc.update("delete from " + INGREDIENTS_TABLE + " where recipe_id in (:ids)", params);
+        if (stepsTable) jdbc.update("delete from " + STEPS_TABLE + " where recipe_id in (:ids)", params);
+        return ids.size();
+    }
+
+    // the legacy bags had no order column; rows come back in storage order, which is insertion order
+    private Map<UUID, List<String>> legacyRows(String table, String column, List<UUID> ids) {
+        Map<UUID, List<String>> rows = new HashMap<>();
+        jdbc.query("select recipe_id, " + column + " from " + table + " where recipe_id in (:ids)",
+                Map.of("ids", ids), rs -> {
+                    rows.computeIfAbsent(rs.getObject(1, UUID.class), k -> new ArrayList<>()).add(rs.getString(2));
+                });
+        return rows;
+    }
+
+    // unquoted names are stored lower case by PostgreSQL and upper case by H2
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbc.getJdbcTemplate().execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData meta = connection.getMetaData();
+            for (String name : List.of(table, table.toUpperCase(Locale.ROOT))) {
+                try (ResultSet rs = meta.getTables(null, null, name, new String[] {"TABLE"})) {
+                    if (rs.next()) return true;
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -3,9 +3,26 @@ package com.example.recipe_worker.repository;
 import com.example.recipe_worker.entity.Recipe;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
-public interface RecipeRepository extends JpaRepository<Recipe, UUID>, JpaSpecificationExecutor<Recipe> {
-    
+public interface RecipeRepository extends JpaRepository<Recipe, UUID>, JpaSpecificationExecutor<Recipe>,
+        RecipeRepositoryCustom {
+
+    /*
+     * Second phase of listing queries: after a page of recipes has been selected, these load the
+     * associations for all ids of the page (ingredients and steps come with the recipe row).
+     * Hibernate cannot join-fetch several bags at once, so labels and images are one IN query each,
+     * a fixed cost however large the page is.
+     */
+
+    @Query("select r from Recipe r left join fetch r.chef left join fetch r.labels where r.id in :ids")
+    List<Recipe> fetchChefAndLabels(@Param("ids") Collection<UUID> ids);
+
+    @Query("select r from Recipe r left join fetch r.images where r.id in :ids")
+    List<Recipe> fetchImages(@Param("ids") Collection<UUID> ids);
 }
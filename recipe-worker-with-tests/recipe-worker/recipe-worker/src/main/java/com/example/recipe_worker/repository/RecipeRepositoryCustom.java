@@ -0,0 +1,50 @@
+package com.example.recipe_worker.repository;
+
+import com.example.recipe_worker.dto.RecipeCardResponse;
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.search.CriteriaTextMatch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+public interface RecipeRepositoryCustom {
+
+    /**
+     * Card projection: recipe columns, chef handle and one thumbnail selected in a single statement,
+     * plus the count query. The thumbnail is the {@code thumbnailSizeLabel} variant of the recipe's
+     * first ready original (upload order), else that original itself.
+     */
+    Page<RecipeCardResponse> findCards(Specification<Recipe> spec, Pageable pageable, String thumbnailSizeLabel);
+
+    // ids only, for narrowing externally ranked results without loading entities
+    List<UUID> findIds(Specification<Recipe> spec);
+
+    // one page of the ids matching spec, best text match first (id breaks ties)
+    List<UUID> findRankedIds(Specification<Recipe> spec, CriteriaTextMatch match, Pageable pageable);
+
+    // facet counts over every recipe matching spec, largest first, at most limit entries
+    Map<String, Long> countByLabel(Specification<Recipe> spec, int limit);
+
+    Map<String, Long> countByChefHandle(Specification<Recipe> spec, int limit);
+
+    /**
+     * Writes the label rows of already inserted recipes as one JDBC batch on the current
+     * transaction's connection. Hibernate flushes element collections owner by owner, one statement
+     * per recipe. The recipes are detached afterwards, so later reads in the transaction load the
+     * written labels.
+     */
+    void insertLabels(Map<UUID, List<String>> labelsByRecipeId);
+
+    /**
+     * Reads every recipe matching spec through one server-side cursor ({@code chunkSize} rows per
+     * fetch) and hands them to the consumer chunk by chunk. The persistence context is cleared after
+     * each chunk, so memory stays flat however many rows match; needs a surrounding transaction.
+     */
+    void forEachChunk(Specification<Recipe> spec, Sort sort, int chunkSize, Consumer<List<Recipe>> chunkConsumer);
+}
@@ -0,0 +1,233 @@
+package com.example.recipe_worker.repository;
+
+import com.example.recipe_worker.dto.RecipeCardResponse;
+import com.example.recipe_worker.entity.Chef;
+import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.ImageStatus;
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.search.CriteriaTextMatch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void insertLabels(Map<UUID, List<String>> labelsByRecipeId) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "insert into recipe_labels (recipe_id, label) values (?, ?)")) {
+                int rows = 0;
+                for (Map.Entry<UUID, List<String>> e : labelsByRecipeId.entrySet()) {
+                    for (String label : e.getValue()) {
+                        ps.setObject(1, e.getKey());
+                        ps.setString(2, label);
+                        ps.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) ps.executeBatch();
+            }
+        });
+        // managed copies still hold the empty label lists they were inserted with
+        for (UUID id : labelsByRecipeId.keySet()) {
+            Recipe stale = em.getReference(Recipe.class, id);
+            if (em.contains(stale)) em.detach(stale);
+        }
+    }
+
+    @Override
+    public void forEachChunk(Specification<Recipe> spec, Sort sort, int chunkSize, Consumer<List<Recipe>> chunkConsumer) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Recipe> cq = cb.createQuery(Recipe.class);
+        Root<Recipe> root = cq.from(Recipe.class);
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        cq.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        TypedQuery<Recipe> query = em.createQuery(cq)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, chunkSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        try (Stream<Recipe> rows = query.getResultStream()) {
+            List<Recipe> chunk = new ArrayList<>(chunkSize);
+            Iterator<Recipe> it = rows.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() == chunkSize || !it.hasNext()) {
+                    chunkConsumer.accept(chunk);
+                    chunk.clear();
+                    em.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public Page<RecipeCardResponse> findCards(Specification<Recipe> spec, Pageable pageable, String thumbnailSizeLabel) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<RecipeCardResponse> cq = cb.createQuery(RecipeCardResponse.class);
+        Root<Recipe> root = cq.from(Recipe.class);
+        Join<Recipe, Chef> chef = root.join("chef", JoinType.LEFT);
+
+        Expression<String> thumbnail = thumbnailOf(cq, cb, root, thumbnailSizeLabel);
+
+        cq.select(cb.construct(RecipeCardResponse.class,
+                root.get("id"), root.get("title"), root.get("summary"),
+                chef.get("handle"), root.get("publishedAt"), thumbnail));
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        cq.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<RecipeCardResponse> query = em.createQuery(cq);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<RecipeCardResponse> content = query.getResultList();
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    /*
+     * The recipe's first ready original is the one lowest in upload order (rows from before the order
+     * was recorded were uploaded earlier still); ties fall to the smallest stored name, which only
+     * leaves copies of the same bytes to choose between. Its variant at the label, in whichever format sorts first, is the
+     * thumbnail; an original smaller than the label has no such variant and is its own thumbnail.
+     */
+    private Expression<String> thumbnailOf(CriteriaQuery<?> cq, CriteriaBuilder cb, Root<Recipe> recipe, String sizeLabel) {
+        Subquery<Integer> firstOrder = cq.subquery(Integer.class);
+        Root<ImageEntity> o1 = firstOrder.from(ImageEntity.class);
+        firstOrder.select(cb.min(sortOrder(cb, o1))).where(readyOriginalOf(cb, o1, recipe));
+
+        Subquery<String> firstName = cq.subquery(String.class);
+        Root<ImageEntity> o2 = firstName.from(ImageEntity.class);
+        firstName.select(cb.least(o2.<String>get("storedName")))
+                 .where(readyOriginalOf(cb, o2, recipe), cb.equal(sortOrder(cb, o2), firstOrder));
+
+        Subquery<UUID> first = cq.subquery(UUID.class);
+        Root<ImageEntity> o3 = first.from(ImageEntity.class);
+        first.select(o3.get("id"))
+             .where(readyOriginalOf(cb, o3, recipe), cb.equal(sortOrder(cb, o3), firstOrder),
+                    cb.equal(o3.get("storedName"), firstName));
+
+        Subquery<String> variant = cq.subquery(String.class);
+        Root<ImageEntity> v = variant.from(ImageEntity.class);
+        variant.select(cb.least(v.<String>get("storedName")))
+               .where(v.get("originalId").in(first),
+                      cb.equal(v.get("sizeLabel"), sizeLabel),
+                      cb.equal(v.get("status"), ImageStatus.READY));
+
+        return cb.coalesce(variant, firstName);
+    }
+
+    private static Predicate readyOriginalOf(CriteriaBuilder cb, Root<ImageEntity> image, Root<Recipe> recipe) {
+        return cb.and(cb.equal(image.get("recipe"), recipe),
+                      cb.isNull(image.get("originalId")),
+                      cb.equal(image.get("status"), ImageStatus.READY));
+    }
+
+    // typed coalesce: Hibernate rejects an untyped one as an aggregate argument
+    private static Expression<Integer> sortOrder(CriteriaBuilder cb, Root<ImageEntity> image) {
+        return cb.<Integer>coalesce().value(image.<Integer>get("sortOrder")).value(-1);
+    }
+
+    @Override
+    public List<UUID> findIds(Specification<Recipe> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Recipe> root = cq.from(Recipe.class);
+        cq.select(root.get("id"));
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        return em.createQuery(cq).getResultList();
+    }
+
+    @Override
+    public List<UUID> findRankedIds(Specification<Recipe> spec, CriteriaTextMatch match, Pageable pageable) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<UUID> cq = cb.createQuery(UUID.class);
+        Root<Recipe> root = cq.from(Recipe.class);
+        cq.select(root.get("id"));
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        cq.orderBy(cb.desc(match.rank(root, cb)), cb.asc(root.get("id")));
+        return em.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public Map<String, Long> countByLabel(Specification<Recipe> spec, int limit) {
+        return countGrouped(spec, limit, root -> root.join("labels"));
+    }
+
+    @Override
+    public Map<String, Long> countByChefHandle(Specification<Recipe> spec, int limit) {
+        return countGrouped(spec, limit, root -> root.join("chef").get("handle"));
+    }
+
+    private Map<String, Long> countGrouped(Specification<Recipe> spec, int limit,
+                                           Function<Root<Recipe>, Expression<String>> facet) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Recipe> root = cq.from(Recipe.class);
+        Expression<String> key = facet.apply(root);
+        Expression<Long> count = cb.countDistinct(root);
+        cq.multiselect(key, count).groupBy(key).orderBy(cb.desc(count), cb.asc(key));
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Tuple t : em.createQuery(cq).setMaxResults(limit).getResultList()) {
+            counts.put(t.get(0, String.class), t.get(1, Long.class));
+        }
+        return counts;
+    }
+
+    private long count(Specification<Recipe> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Recipe> root = cq.from(Recipe.class);
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) cq.where(p);
+        }
+        // specifications joining collections ask for distinct rows
+        cq.select(cq.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        return em.createQuery(cq).getSingleResult();
+    }
+}
@@ -1,11 +1,26 @@
 package com.example.recipe_worker.repository;
 
 import com.example.recipe_worker.entity.User;
+import com.example.recipe_worker.security.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    // user, role and chef profile in a single statement
+    @Query("select new com.example.recipe_worker.security.UserAccount("
+            + "u.id, u.email, u.passwordHash, u.handle, r.name, u.emailVerified, c.id, c.handle) "
+            + "from app_user u left join u.role r left join Chef c on c.email = u.email "
+            + "where u.email = :email")
+    Optional<UserAccount> findAccountByEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("update app_user u set u.passwordHash = :hash where u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("hash") String hash);
 }
@@ -0,0 +1,24 @@
+package com.example.recipe_worker.search;
+
+import com.example.recipe_worker.entity.Recipe;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * A full-text query expressed inside a criteria query, for engines whose index lives in the
+ * database. Filters, sorts and counts then see every match instead of a capped list of ids.
+ */
+public interface CriteriaTextMatch {
+
+    Predicate matches(Root<Recipe> root, CriteriaBuilder cb);
+
+    // higher is better; only meaningful for rows that match
+    Expression<? extends Number> rank(Root<Recipe> root, CriteriaBuilder cb);
+
+    default Specification<Recipe> toSpecification() {
+        return (root, query, cb) -> matches(root, cb);
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.recipe_worker.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded inverted index: term -> posting list of recipe ordinals held in primitive arrays.
+ * Scoring is BM25 over a field-weighted term frequency; every query term must match, and terms of
+ * {@value #MIN_PREFIX} or more characters also match longer terms that start with them (at a
+ * discount). Built by {@link RecipeSearchIndexLoader} at startup and kept current from
+ * {@link RecipeChangedEvent}s, so it only sees writes made through this instance.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.search.engine", havingValue = "in-memory")
+public class InMemoryRecipeTextSearch implements RecipeTextSearch, LocalRecipeIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float LABEL_WEIGHT = 2.0f;
+    private static final float SUMMARY_WEIGHT = 1.5f;
+    private static final float INGREDIENT_WEIGHT = 1.5f;
+    private static final float STEP_WEIGHT = 1.0f;
+
+    static final int MIN_PREFIX = 3;
+    private static final float PREFIX_DISCOUNT = 0.6f;
+    // bounds the work a short prefix can cause
+    private static final int MAX_EXPANSIONS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RecipeOrdinals ordinals = new RecipeOrdinals();
+    // sorted so prefixes are a contiguous range
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    // per ordinal: terms it was indexed under (null when absent) and its weighted length
+    private String[][] docTerms = new String[1024][];
+    private float[] docLength = new float[1024];
+    private int liveDocs;
+    private double totalLength;
+
+    // ordinal-sized accumulators are pooled rather than per thread, so retained memory is bounded
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+    private final int scratchPoolSize = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public List<UUID> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(SearchTokenizer.tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            if (liveDocs == 0) return List.of();
+            Scratch s = borrowScratch();
+            try {
+                float avgLength = (float) (totalLength / liveDocs);
+
+                // matching every term: each round only keeps ordinals that matched all previous rounds
+                int matched = 0;
+                for (int round = 0; round < queryTerms.size(); round++) {
+                    matched = scoreTerm(queryTerms.get(round), round, avgLength, s);
+                    if (matched == 0) return List.of();
+                }
+
+                int[] top = topK(s, queryTerms.size(), Math.min(limit, matched));
+                List<UUID> ids = new ArrayList<>(top.length);
+                for (int ord : top) ids.add(ordinals.idOf(ord));
+                return ids;
+            } finally {
+                s.reset();
+                if (scratchPool.size() < scratchPoolSize) scratchPool.offer(s);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Scratch borrowScratch() {
+        Scratch s = scratchPool.poll();
+        if (s == null) s = new Scratch();
+        s.ensure(ordinals.size());
+        return s;
+    }
+
+    // adds the best expansion score of one query term to every surviving ordinal; returns survivors
+    private int scoreTerm(String term, int round, float avgLength, Scratch s) {
+        SortedMap<String, Postings> expansions = term.length() >= MIN_PREFIX
+                ? terms.subMap(term, term + Character.MAX_VALUE)
+                : terms.subMap(term, true, term, true);
+        int n = 0;
+        s.termTouched = 0;
+        for (Map.Entry<String, Postings> e : expansions.entrySet()) {
+            if (n++ == MAX_EXPANSIONS) break;
+            Postings p = e.getValue();
+            float idf = (float) Math.log(1 + (liveDocs - p.size + 0.5) / (p.size + 0.5));
+            float boost = e.getKey().length() == term.length() ? 1f : PREFIX_DISCOUNT;
+            for (int i = 0; i < p.size; i++) {
+                int ord = p.docs[i];
+                if (s.hits[ord] != round) continue;
+                float tf = p.tf[i];
+                float score = boost * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * docLength[ord] / avgLength));
+                if (s.best[ord] == 0) s.termOrds = push(s.termOrds, s.termTouched++, ord);
+                if (score > s.best[ord]) s.best[ord] = score;
+            }
+        }
+        for (int i = 0; i < s.termTouched; i++) {
+            int ord = s.termOrds[i];
+            if (round == 0) s.touched = push(s.touched, s.touchedSize++, ord);
+            s.acc[ord] += s.best[ord];
+            s.hits[ord] = round + 1;
+            s.best[ord] = 0;
+        }
+        return s.termTouched;
+    }
+
+    private static int[] push(int[] list, int index, int value) {
+        if (index == list.length) list = Arrays.copyOf(list, Math.max(16, list.length * 2));
+        list[index] = value;
+        return list;
+    }
+
+    // highest scores first (ties by ordinal), using a bounded min-heap over the matching ordinals
+    private int[] topK(Scratch s, int required, int k) {
+        int[] heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < s.touchedSize; i++) {
+            int ord = s.touched[i];
+            if (s.hits[ord] != required) continue;
+            if (size < k) {
+                heap[size] = ord;
+                siftUp(heap, size++, s.acc);
+            } else if (better(ord, heap[0], s.acc)) {
+                heap[0] = ord;
+                siftDown(heap, size, s.acc);
+            }
+        }
+        int[] out = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, i, s.acc);
+        }
+        return out;
+    }
+
+    private static boolean better(int a, int b, float[] score) {
+        return score[a] > score[b] || (score[a] == score[b] && a < b);
+    }
+
+    private static void siftUp(int[] heap, int i, float[] score) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], score)) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, float[] score) {
+        int i = 0;
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, worst = i;
+            if (l < size && better(heap[worst], heap[l], score)) worst = l;
+            if (r < size && better(heap[worst], heap[r], score)) worst = r;
+            if (worst == i) return;
+            swap(heap, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(int[] a, int i, int j) {
+        int t = a[i]; a[i] = a[j]; a[j] = t;
+    }
+
+    @Override
+    public void index(RecipeDocument d) {
+        Map<String, Float> tf = new HashMap<>();
+        float length = addField(tf, d.title(), TITLE_WEIGHT)
+                + addField(tf, d.summary(), SUMMARY_WEIGHT);
+        for (String label : d.labels()) length += addField(tf, label, LABEL_WEIGHT);
+        for (String ingredient : d.ingredients()) length += addField(tf, ingredient, INGREDIENT_WEIGHT);
+        for (String step : d.steps()) length += addField(tf, step, STEP_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            int ord = ordinals.getOrAssign(d.id());
+            removeOrdinal(ord);
+            if (ord >= docTerms.length) {
+                int capacity = Math.max(docTerms.length * 2, ord + 1);
+                docTerms = Arrays.copyOf(docTerms, capacity);
+                docLength = Arrays.copyOf(docLength, capacity);
+            }
+            for (Map.Entry<String, Float> e : tf.entrySet()) {
+                terms.computeIfAbsent(e.getKey(), k -> new Postings()).put(ord, e.getValue());
+            }
+            docTerms[ord] = tf.keySet().toArray(String[]::new);
+            docLength[ord] = length;
+            liveDocs++;
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static float addField(Map<String, Float> tf, String text, float weight) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        for (String token : tokens) tf.merge(token, weight, Float::sum);
+        return tokens.size() * weight;
+    }
+
+    @Override
+    public void remove(UUID recipeId) {
+        lock.writeLock().lock();
+        try {
+            int ord = ordinals.ordinalOf(recipeId);
+            if (ord >= 0) removeOrdinal(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeOrdinal(int ord) {
+        if (ord >= docTerms.length || docTerms[ord] == null) return;
+        for (String term : docTerms[ord]) {
+            Postings p = terms.get(term);
+            p.remove(ord);
+            if (p.size == 0) terms.remove(term);
+        }
+        docTerms[ord] = null;
+        liveDocs--;
+        totalLength -= docLength[ord];
+        docLength[ord] = 0;
+    }
+
+    // nothing to roll back in memory, so only committed changes are applied
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted()) remove(event.recipeId());
+        else index(event.document());
+    }
+
+    /** Ordinals in ascending order with their weighted term frequency. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] tf = new float[4];
+        int size;
+
+        void put(int ord, float freq) {
+            int i = size == 0 || docs[size - 1] < ord ? -(size + 1) : Arrays.binarySearch(docs, 0, size, ord);
+            if (i >= 0) {
+                tf[i] = freq;
+                return;
+            }
+            i = -(i + 1);
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tf = Arrays.copyOf(tf, size * 2);
+            }
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(tf, i, tf, i + 1, size - i);
+            docs[i] = ord;
+            tf[i] = freq;
+            size++;
+        }
+
+        void remove(int ord) {
+            int i = Arrays.binarySearch(docs, 0, size, ord);
+            if (i < 0) return;
+            System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+            System.arraycopy(tf, i + 1, tf, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Per-thread accumulators indexed by ordinal, reused across queries; only touched slots are
+     * cleared afterwards.
+     */
+    private static final class Scratch {
+        float[] acc = new float[0];
+        float[] best = new float[0];
+        int[] hits = new int[0];
+        // ordinals touched by the first term (all candidates) and by the current term
+        int[] touched = new int[16];
+        int touchedSize;
+        int[] termOrds = new int[16];
+        int termTouched;
+
+        void ensure(int ordinals) {
+            if (acc.length >= ordinals) return;
+            int capacity = Math.max(ordinals, acc.length * 2);
+            acc = new float[capacity];
+            best = new float[capacity];
+            hits = new int[capacity];
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedSize; i++) {
+                int ord = touched[i];
+                acc[ord] = 0;
+                hits[ord] = 0;
+            }
+            touchedSize = 0;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.recipe_worker.search;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Turns free-text ingredient lines ("2 cups chopped Tomatoes") into canonical dictionary keys
+ * ("tomato"): quantities, units and preparation words are dropped, the remaining words are
+ * singularised and the phrase is mapped through {@code ingredient-synonyms.properties}.
+ */
+@Component
+public class IngredientNormalizer {
+
+    private static final String SYNONYMS_RESOURCE = "/ingredient-synonyms.properties";
+
+    private static final Set<String> UNITS = Set.of(
+            "cup", "cups", "tbsp", "tablespoon", "tablespoons", "tsp", "teaspoon", "teaspoons",
+            "g", "gram", "grams", "kg", "mg", "ml", "l", "litre", "litres", "liter", "liters",
+            "oz", "ounce", "ounces", "lb", "lbs", "pound", "pounds", "pinch", "dash", "handful",
+            "can", "cans", "tin", "tins", "jar", "pack", "package", "packet", "bunch", "slice", "slices",
+            "piece", "pieces", "stick", "sticks", "sprig", "sprigs", "head", "heads", "x");
+
+    private static final Set<String> DESCRIPTORS = Set.of(
+            "a", "an", "the", "of", "and", "or", "to", "for", "with", "taste", "optional", "about",
+            "fresh", "freshly", "dried", "frozen", "raw", "cooked", "large", "medium", "small", "big",
+            "chopped", "diced", "minced", "sliced", "grated", "shredded", "crushed", "ground", "peeled",
+            "finely", "roughly", "thinly", "beaten", "melted", "softened", "sifted", "whole", "halved",
+            "plus", "extra", "more", "some", "few", "divided", "room", "temperature");
+
+    private static final Map<String, String> IRREGULAR_PLURALS = Map.of(
+            "leaves", "leaf", "loaves", "loaf", "halves", "half", "knives", "knife",
+            "potatoes", "potato", "tomatoes", "tomato", "mangoes", "mango", "geese", "goose");
+
+    // words ending in s that are not plurals
+    private static final Set<String> SINGULAR_S = Set.of(
+            "asparagus", "couscous", "hummus", "molasses", "swiss", "citrus", "watercress", "bass",
+            "glass", "grass", "lemongrass", "brussels");
+
+    private final Map<String, String> synonyms;
+
+    public IngredientNormalizer() {
+        this.synonyms = loadSynonyms();
+    }
+
+    /** Canonical key for an ingredient line, or null when nothing ingredient-like is left. */
+    public String normalize(String text) {
+        String phrase = phrase(text);
+        return phrase == null ? null : synonyms.getOrDefault(phrase, phrase);
+    }
+
+    private static String phrase(String text) {
+        List<String> words = new ArrayList<>();
+        for (String token : SearchTokenizer.tokenize(text)) {
+            if (Character.isDigit(token.charAt(0)) || UNITS.contains(token) || DESCRIPTORS.contains(token)) continue;
+            words.add(singularize(token));
+        }
+        return words.isEmpty() ? null : String.join(" ", words);
+    }
+
+    // last word of a canonical phrase: "red onion" is a kind of "onion"
+    public static String head(String key) {
+        int space = key.lastIndexOf(' ');
+        return space < 0 ? key : key.substring(space + 1);
+    }
+
+    static String singularize(String word) {
+        String irregular = IRREGULAR_PLURALS.get(word);
+        if (irregular != null) return irregular;
+        if (word.length() <= 3 || !word.endsWith("s") || word.endsWith("ss") || SINGULAR_S.contains(word)) {
+            return word;
+        }
+        if (word.endsWith("ies")) return word.substring(0, word.length() - 3) + "y";
+        if (word.endsWith("ches") || word.endsWith("shes") || word.endsWith("xes") || word.endsWith("sses")) {
+            return word.substring(0, word.length() - 2);
+        }
+        return word.substring(0, word.length() - 1);
+    }
+
+    private Map<String, String> loadSynonyms() {
+        Properties props = new Properties();
+        try (InputStream in = IngredientNormalizer.class.getResourceAsStream(SYNONYMS_RESOURCE)) {
+            if (in != null) props.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read " + SYNONYMS_RESOURCE, e);
+        }
+        Map<String, String> map = new HashMap<>();
+        for (String alias : props.stringPropertyNames()) {
+            String from = phrase(alias.replace('_', ' '));
+            String to = phrase(props.getProperty(alias));
+            if (from != null && to != null && !from.equals(to)) map.put(from, to);
+        }
+        return Map.copyOf(map);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.recipe_worker.search;
+
+import java.util.UUID;
+
+/**
+ * An index held in this process. {@link RecipeSearchIndexLoader} rebuilds every such bean from the
+ * database at startup; afterwards each keeps itself current from {@link RecipeChangedEvent}s.
+ */
+public interface LocalRecipeIndex {
+
+    void index(RecipeDocument document);
+
+    void remove(UUID recipeId);
+}
@@ -0,0 +1,174 @@
+package com.example.recipe_worker.search;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "What can I cook" index: every canonical ingredient (see {@link IngredientNormalizer}) has a
+ * bitset of the recipe ordinals that use it. A pantry query ORs the bitsets of the pantry's
+ * ingredients while counting hits per recipe, so the cost is proportional to the postings touched
+ * rather than to the number of recipes or pantry items.
+ * The index lives in this process: local commits reach it through {@link RecipeChangedEvent}s, and
+ * with rabbit cache invalidation other replicas' changes are reloaded by {@link RecipeSearchIndexLoader#refresh}.
+ * Without it, changes made on another instance only show up here after a restart.
+ */
+@Component
+public class PantryIndex implements LocalRecipeIndex {
+
+    private final IngredientNormalizer normalizer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final RecipeOrdinals ordinals = new RecipeOrdinals();
+
+    // ingredient dictionary: canonical key <-> id, plus the ids sharing a head word
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<String> ingredientKeys = new ArrayList<>();
+    private final Map<String, BitSet> ingredientsByHead = new HashMap<>();
+    private final List<BitSet> recipesByIngredient = new ArrayList<>();
+    // per recipe ordinal: its distinct ingredient ids (null when not indexed)
+    private int[][] recipeIngredients = new int[1024][];
+
+    private record Hit(int ord, int matched, int total) {}
+
+    public PantryIndex(IngredientNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Recipes missing at most {@code maxMissing} ingredients, best covered first: highest share of
+     * ingredients on hand, then fewest missing, then most matched.
+     */
+    public List<PantryMatch> match(Collection<String> pantry, int maxMissing, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet have = pantryIngredients(pantry);
+            if (have.isEmpty()) return List.of();
+
+            // every posting touched, sorted: a recipe's run length is its number of pantry ingredients,
+            // so the work and the garbage stay proportional to the postings rather than the catalog
+            int[] postings = new int[64];
+            int n = 0;
+            for (int ing = have.nextSetBit(0); ing >= 0; ing = have.nextSetBit(ing + 1)) {
+                BitSet recipes = recipesByIngredient.get(ing);
+                for (int ord = recipes.nextSetBit(0); ord >= 0; ord = recipes.nextSetBit(ord + 1)) {
+                    if (n == postings.length) postings = Arrays.copyOf(postings, n * 2);
+                    postings[n++] = ord;
+                }
+            }
+            Arrays.sort(postings, 0, n);
+
+            List<Hit> hits = new ArrayList<>();
+            for (int i = 0; i < n; ) {
+                int ord = postings[i];
+                int run = i;
+                while (i < n && postings[i] == ord) i++;
+                int matched = i - run;
+                if (recipeIngredients[ord].length - matched <= maxMissing) {
+                    hits.add(new Hit(ord, matched, recipeIngredients[ord].length));
+                }
+            }
+            hits.sort((a, b) -> {
+                int byShare = Long.compare((long) b.matched() * a.total(), (long) a.matched() * b.total());
+                if (byShare != 0) return byShare;
+                int byMissing = Integer.compare(a.total() - a.matched(), b.total() - b.matched());
+                if (byMissing != 0) return byMissing;
+                int byMatched = Integer.compare(b.matched(), a.matched());
+                return byMatched != 0 ? byMatched : Integer.compare(a.ord(), b.ord());
+            });
+
+            List<PantryMatch> out = new ArrayList<>(Math.min(limit, hits.size()));
+            for (Hit hit : hits.subList(0, Math.min(limit, hits.size()))) {
+                List<String> missing = new ArrayList<>();
+                for (int ing : recipeIngredients[hit.ord()]) {
+                    if (!have.get(ing)) missing.add(ingredientKeys.get(ing));
+                }
+                out.add(new PantryMatch(ordinals.idOf(hit.ord()), hit.matched(), hit.total(), missing));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // a single-word pantry item also covers its kinds: "onion" covers "red onion"
+    private BitSet pantryIngredients(Collection<String> pantry) {
+        BitSet have = new BitSet();
+        for (String item : pantry) {
+            String key = normalizer.normalize(item);
+            if (key == null) continue;
+            Integer id = ingredientIds.get(key);
+            if (id != null) have.set(id);
+            BitSet kinds = key.indexOf(' ') < 0 ? ingredientsByHead.get(key) : null;
+            if (kinds != null) have.or(kinds);
+        }
+        return have;
+    }
+
+    @Override
+    public void index(RecipeDocument d) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String line : d.ingredients()) {
+            String key = normalizer.normalize(line);
+            if (key != null) keys.add(key);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int ord = ordinals.getOrAssign(d.id());
+            removeOrdinal(ord);
+            if (keys.isEmpty()) return;
+            if (ord >= recipeIngredients.length) {
+                recipeIngredients = Arrays.copyOf(recipeIngredients, Math.max(recipeIngredients.length * 2, ord + 1));
+            }
+            int[] ids = new int[keys.size()];
+            int i = 0;
+            for (String key : keys) {
+                int id = ingredientId(key);
+                recipesByIngredient.get(id).set(ord);
+                ids[i++] = id;
+            }
+            recipeIngredients[ord] = ids;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int ingredientId(String key) {
+        Integer id = ingredientIds.get(key);
+        if (id != null) return id;
+        int next = ingredientKeys.size();
+        ingredientIds.put(key, next);
+        ingredientKeys.add(key);
+        recipesByIngredient.add(new BitSet());
+        ingredientsByHead.computeIfAbsent(IngredientNormalizer.head(key), h -> new BitSet()).set(next);
+        return next;
+    }
+
+    @Override
+    public void remove(UUID recipeId) {
+        lock.writeLock().lock();
+        try {
+            int ord = ordinals.ordinalOf(recipeId);
+            if (ord >= 0) removeOrdinal(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // dictionary entries stay; an unused ingredient just has an empty bitset
+    private void removeOrdinal(int ord) {
+        if (ord >= recipeIngredients.length || recipeIngredients[ord] == null) return;
+        for (int id : recipeIngredients[ord]) recipesByIngredient.get(id).clear(ord);
+        recipeIngredients[ord] = null;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted()) remove(event.recipeId());
+        else index(event.document());
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.recipe_worker.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/** A recipe the pantry covers, with the canonical names of the ingredients it still needs. */
+public record PantryMatch(UUID recipeId, int matched, int total, List<String> missing) {
+}
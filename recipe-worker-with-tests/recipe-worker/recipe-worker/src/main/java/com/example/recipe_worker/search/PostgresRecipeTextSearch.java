@@ -0,0 +1,123 @@
+package com.example.recipe_worker.search;
+
+import com.example.recipe_worker.entity.Recipe;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Search documents live in {@code recipe_search} as a weighted {@code tsvector} with a GIN index.
+ * Documents are written in the same transaction as the recipe change, so the index never lags.
+ * Listings combine the query with their filters in SQL through {@link #criteria}, so no match is
+ * lost to the {@code search} limit.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresRecipeTextSearch implements RecipeTextSearch, InitializingBean {
+
+    private static final String CONFIG = "english";
+
+    // title A, summary and labels B, ingredients C, steps D; arguments are bound as plain text
+    private static final String DOCUMENT =
+            "setweight(to_tsvector('" + CONFIG + "', coalesce(?, '')), 'A') || " +
+            "setweight(to_tsvector('" + CONFIG + "', coalesce(?, '')), 'B') || " +
+            "setweight(to_tsvector('" + CONFIG + "', coalesce(?, '')), 'B') || " +
+            "setweight(to_tsvector('" + CONFIG + "', coalesce(?, '')), 'C') || " +
+            "setweight(to_tsvector('" + CONFIG + "', coalesce(?, '')), 'D')";
+
+    private final Logger log = LoggerFactory.getLogger(PostgresRecipeTextSearch.class);
+    private final JdbcTemplate jdbcTemplate;
+
+    public PostgresRecipeTextSearch(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("create table if not exists recipe_search (" +
+                "recipe_id uuid primary key, document tsvector not null)");
+        jdbcTemplate.execute("create index if not exists idx_recipe_search_document " +
+                "on recipe_search using gin (document)");
+        // the criteria side of the index (see criteria()); JPA cannot name recipe_search or @@ itself
+        jdbcTemplate.execute("create or replace function recipe_search_matches(p_recipe_id uuid, p_query text) " +
+                "returns boolean language sql stable as $$ select exists (select 1 from recipe_search s " +
+                "where s.recipe_id = p_recipe_id and s.document @@ websearch_to_tsquery('" + CONFIG + "', p_query)) $$");
+        jdbcTemplate.execute("create or replace function recipe_search_rank(p_recipe_id uuid, p_query text) " +
+                "returns real language sql stable as $$ select coalesce((select ts_rank_cd(s.document, " +
+                "websearch_to_tsquery('" + CONFIG + "', p_query)) from recipe_search s " +
+                "where s.recipe_id = p_recipe_id), 0) $$");
+    }
+
+    // recipes written before the index existed (or while it was unavailable)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int added = jdbcTemplate.update("insert into recipe_search (recipe_id, document) " +
+                "select r.id, " +
+                "setweight(to_tsvector('" + CONFIG + "', coalesce(r.title, '')), 'A') || " +
+                "setweight(to_tsvector('" + CONFIG + "', coalesce(r.summary, '')), 'B') || " +
+                "setweight(to_tsvector('" + CONFIG + "', coalesce((select string_agg(l.label, ' ') " +
+                "  from recipe_labels l where l.recipe_id = r.id), '')), 'B') || " +
+                // ingredients and steps are JSON arrays; the jsonb overload indexes only their strings
+                "setweight(to_tsvector('" + CONFIG + "', coalesce(r.ingredients, '[]')::jsonb), 'C') || " +
+                "setweight(to_tsvector('" + CONFIG + "', coalesce(r.steps, '[]')::jsonb), 'D') " +
+                "from recipe r where not exists (select 1 from recipe_search x where x.recipe_id = r.id)");
+        if (added > 0) log.info("Indexed {} recipes missing from recipe_search", added);
+    }
+
+    @Override
+    public List<UUID> search(String query, int limit) {
+        return jdbcTemplate.queryForList(
+                "select recipe_id from recipe_search, websearch_to_tsquery('" + CONFIG + "', ?) q " +
+                "where document @@ q order by ts_rank_cd(document, q) desc, recipe_id limit ?",
+                UUID.class, query, limit);
+    }
+
+    @Override
+    public CriteriaTextMatch criteria(String query) {
+        return new CriteriaTextMatch() {
+            @Override
+            public Predicate matches(Root<Recipe> root, CriteriaBuilder cb) {
+                return cb.isTrue(cb.function("recipe_search_matches", Boolean.class, root.get("id"), cb.literal(query)));
+            }
+
+            @Override
+            public Expression<Float> rank(Root<Recipe> root, CriteriaBuilder cb) {
+                return cb.function("recipe_search_rank", Float.class, root.get("id"), cb.literal(query));
+            }
+        };
+    }
+
+    @Override
+    public void index(RecipeDocument d) {
+        jdbcTemplate.update("insert into recipe_search (recipe_id, document) values (?, " + DOCUMENT + ") " +
+                        "on conflict (recipe_id) do update set document = excluded.document",
+                d.id(), d.title(), d.summary(), String.join(" ", d.labels()),
+                String.join(" ", d.ingredients()), String.join(" ", d.steps()));
+    }
+
+    @Override
+    public void remove(UUID recipeId) {
+        jdbcTemplate.update("delete from recipe_search where recipe_id = ?", recipeId);
+    }
+
+    // runs inside the recipe's transaction: a failed index write rolls the change back
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.deleted()) remove(event.recipeId());
+        else index(event.document());
+    }
+}
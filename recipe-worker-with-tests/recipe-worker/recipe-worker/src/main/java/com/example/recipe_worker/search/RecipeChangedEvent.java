@@ -0,0 +1,14 @@
+package com.example.recipe_worker.search;
+
+import java.util.UUID;
+
+/**
+ * Published by the recipe service whenever a recipe is saved or deleted. {@code document} is null
+ * for deletions.
+ */
+public record RecipeChangedEvent(UUID recipeId, RecipeDocument document) {
+
+    public boolean deleted() {
+        return document == null;
+    }
+}
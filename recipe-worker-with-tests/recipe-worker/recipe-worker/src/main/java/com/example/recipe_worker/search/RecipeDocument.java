@@ -0,0 +1,18 @@
+package com.example.recipe_worker.search;
+
+import com.example.recipe_worker.entity.Recipe;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The searchable text of a recipe, captured when it changes.
+ */
+public record RecipeDocument(UUID id, String title, String summary, List<String> ingredients, List<String> steps,
+                             List<String> labels) {
+
+    public static RecipeDocument of(Recipe r) {
+        return new RecipeDocument(r.getId(), r.getTitle(), r.getSummary(),
+                List.copyOf(r.getIngredients()), List.copyOf(r.getSteps()), List.copyOf(r.getLabels()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.recipe_worker.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dense int ordinals for recipe ids, so in-memory indexes can use primitive arrays and bitsets
+ * instead of UUID-keyed collections. Ordinals are assigned in increasing order and never reused;
+ * not thread-safe, callers guard it with their own lock.
+ */
+public class RecipeOrdinals {
+
+    private final Map<UUID, Integer> byId = new HashMap<>();
+    private UUID[] ids = new UUID[1024];
+    private int size;
+
+    public int ordinalOf(UUID id) {
+        Integer ord = byId.get(id);
+        return ord == null ? -1 : ord;
+    }
+
+    public int getOrAssign(UUID id) {
+        Integer ord = byId.get(id);
+        if (ord != null) return ord;
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        ids[size] = id;
+        byId.put(id, size);
+        return size++;
+    }
+
+    public UUID idOf(int ordinal) {
+        return ids[ordinal];
+    }
+
+    // upper bound (exclusive) of assigned ordinals
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.recipe_worker.search;
+
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.repository.RecipeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fills every {@link LocalRecipeIndex} from the database at startup, one batch of recipes per
+ * transaction, and reloads single recipes changed by other instances. A batch read before a change
+ * committed would overwrite the newer document the indexes already received, so recipes changed
+ * while loading are recorded and re-read once the load is done.
+ */
+@Component
+public class RecipeSearchIndexLoader {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(RecipeSearchIndexLoader.class);
+    private final RecipeRepository recipeRepository;
+    private final List<LocalRecipeIndex> indexes;
+    private final TransactionTemplate transactionTemplate;
+
+    // guarded by this; null unless a load is running
+    private Set<UUID> changedWhileLoading;
+
+    public RecipeSearchIndexLoader(RecipeRepository recipeRepository, List<LocalRecipeIndex> indexes,
+                                   TransactionTemplate transactionTemplate) {
+        this.recipeRepository = recipeRepository;
+        this.indexes = indexes;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (indexes.isEmpty()) return;
+        synchronized (this) {
+            changedWhileLoading = new HashSet<>();
+        }
+        int indexed = 0;
+        int replayed;
+        try {
+            UUID after = null;
+            while (true) {
+                UUID from = after;
+                List<UUID> batch = transactionTemplate.execute(status -> indexBatch(from));
+                indexed += batch.size();
+                if (batch.size() < BATCH_SIZE) break;
+                after = batch.get(batch.size() - 1);
+            }
+            replayed = replayChanges();
+        } finally {
+            synchronized (this) {
+                changedWhileLoading = null;
+            }
+        }
+        log.info("Loaded {} recipes into {} local indexes, re-read {} changed meanwhile",
+                indexed, indexes.size(), replayed);
+    }
+
+    // until no change arrives during a pass; later changes reach the indexes directly
+    private int replayChanges() {
+        int replayed = 0;
+        while (true) {
+            List<UUID> changed;
+            synchronized (this) {
+                if (changedWhileLoading.isEmpty()) return replayed;
+                changed = List.copyOf(changedWhileLoading);
+                changedWhileLoading.clear();
+            }
+            changed.forEach(this::reload);
+            replayed += changed.size();
+        }
+    }
+
+    // the indexes apply the change themselves; here it only marks what the load may have clobbered
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        recordIfLoading(event.recipeId());
+    }
+
+    private synchronized void recordIfLoading(UUID recipeId) {
+        if (changedWhileLoading != null) changedWhileLoading.add(recipeId);
+    }
+
+    /** Re-reads one recipe into every local index, or drops it when it no longer exists. */
+    public void refresh(UUID recipeId) {
+        if (indexes.isEmpty()) return;
+        recordIfLoading(recipeId);
+        reload(recipeId);
+    }
+
+    private void reload(UUID recipeId) {
+        RecipeDocument document = transactionTemplate.execute(status ->
+                recipeRepository.findById(recipeId).map(RecipeDocument::of).orElse(null));
+        if (document == null) indexes.forEach(index -> index.remove(recipeId));
+        else indexes.forEach(index -> index.index(document));
+    }
+
+    // walks the table by id so every batch is a cheap range scan
+    private List<UUID> indexBatch(UUID after) {
+        Specification<Recipe> spec = after == null
+                ? (root, query, cb) -> cb.conjunction()
+                : (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+        List<Recipe> recipes = recipeRepository.findBy(spec, q -> q.sortBy(Sort.by("id")).limit(BATCH_SIZE).all());
+        List<UUID> ids = recipes.stream().map(Recipe::getId).toList();
+        if (!ids.isEmpty()) {
+            recipeRepository.fetchChefAndLabels(ids);
+        }
+        for (Recipe r : recipes) {
+            RecipeDocument document = RecipeDocument.of(r);
+            indexes.forEach(index -> index.index(document));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.recipe_worker.search;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Full-text index over recipe title, summary, ingredients and steps. Implementations keep
+ * themselves up to date from {@link RecipeChangedEvent}s.
+ */
+public interface RecipeTextSearch {
+
+    /** Ids of recipes matching every term of {@code query}, best match first, at most {@code limit}. */
+    List<UUID> search(String query, int limit);
+
+    /**
+     * The query as part of a criteria query, so other filters apply before any cut; null when the
+     * engine can only answer through {@link #search}, whose result is then capped.
+     */
+    default CriteriaTextMatch criteria(String query) {
+        return null;
+    }
+
+    void index(RecipeDocument document);
+
+    void remove(UUID recipeId);
+}
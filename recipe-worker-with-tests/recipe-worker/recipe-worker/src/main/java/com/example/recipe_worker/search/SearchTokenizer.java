@@ -0,0 +1,26 @@
+package com.example.recipe_worker.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Lower-cased runs of letters and digits; everything else separates terms. */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+}
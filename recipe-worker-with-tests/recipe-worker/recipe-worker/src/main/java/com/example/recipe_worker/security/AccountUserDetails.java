@@ -0,0 +1,25 @@
+package com.example.recipe_worker.security;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * UserDetails over a {@link UserAccount}, so the login endpoint can issue a token from the
+ * authenticated principal instead of loading the user again. A new instance is built per
+ * authentication because Spring Security erases its password afterwards.
+ */
+public class AccountUserDetails extends User {
+
+    private final UserAccount account;
+
+    public AccountUserDetails(UserAccount account) {
+        super(account.email(), account.passwordHash(), List.of(new SimpleGrantedAuthority(account.authority())));
+        this.account = account;
+    }
+
+    public UserAccount getAccount() {
+        return account;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.recipe_worker.security;
+
+import com.example.recipe_worker.dto.ChefIdentity;
+
+import org.springframework.security.core.Authentication;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/** Principal of a request authenticated by access token; everything here comes from the token's claims. */
+public record AuthenticatedUser(Long userId, String email, UUID chefId, String chefHandle) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public ChefIdentity chefIdentity() {
+        return new ChefIdentity(chefId, email, chefHandle);
+    }
+
+    // token-authenticated requests carry the chef's id and handle, so writes need no identity lookup
+    public static ChefIdentity chefIdentityOf(Authentication authentication) {
+        if (authentication == null) return null;
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) return user.chefIdentity();
+        return ChefIdentity.ofEmail(authentication.getName());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.recipe_worker.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt on a small dedicated pool with a bounded queue, so a signup or login burst uses at most
+ * {@code threads} cores and fails fast with {@link PasswordHashingRejectedException} once the queue
+ * is full, rather than occupying every request thread. The calling thread waits for its own hash.
+ * Hashes made at a different cost than configured report {@link #upgradeEncoding}, which makes
+ * Spring Security rehash them on the next successful login.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(int strength, int threads, int queueCapacity, long retryAfterSeconds,
+                                  MeterRegistry registry) {
+        this(new BCryptPasswordEncoder(strength), strength, threads, queueCapacity, retryAfterSeconds, registry);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+                           long retryAfterSeconds, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("recipe_worker.password.hash")
+                .description("BCrypt time, excluding queueing")
+                .tag("operation", "encode")
+                .register(registry);
+        this.matchesTimer = Timer.builder("recipe_worker.password.hash")
+                .description("BCrypt time, excluding queueing")
+                .tag("operation", "matches")
+                .register(registry);
+        this.rejected = Counter.builder("recipe_worker.password.hash.rejected")
+                .description("Hash requests turned away because the pool was saturated")
+                .register(registry);
+        Gauge.builder("recipe_worker.password.hash.queued", executor, e -> e.getQueue().size())
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // cheap string check, so it stays on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = cost(encodedPassword);
+        return cost > 0 && cost != strength;
+    }
+
+    // "$2a$10$..." -> 10; -1 when the hash is not BCrypt
+    static int cost(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private <T> T run(Timer timer, Supplier<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.record(work));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while hashing password", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("password hashing failed", ex.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -1,47 +1,48 @@
 package com.example.recipe_worker.security;
 
-import com.example.recipe_worker.entity.User;
 import com.example.recipe_worker.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
-import java.util.stream.Collectors;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
     private final UserRepository userRepository;
+    private final UserAccountCache accountCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) { this.userRepository = userRepository; }
+    public CustomUserDetailsService(UserRepository userRepository, UserAccountCache accountCache) {
+        this.userRepository = userRepository;
+        this.accountCache = accountCache;
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(username)
+        UserAccount account = accountCache.get(username, userRepository::findAccountByEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        return new AccountUserDetails(account);
+    }
 
-        
-        String roleName = "ROLE_USER"; 
-        if (user.getRole() != null && user.getRole().getName() != null) {
-            roleName = user.getRole().getName().trim();
-            if (!roleName.startsWith("ROLE_")) {
-                roleName = "ROLE_" + roleName;
-            }
+    /** Called by Spring Security after a successful login whose stored hash used a different BCrypt cost. */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        accountCache.invalidate(user.getUsername());
+        log.info("Rehashed password for {} at the configured cost", user.getUsername());
+        if (user instanceof AccountUserDetails details) {
+            UserAccount a = details.getAccount();
+            return new AccountUserDetails(new UserAccount(a.id(), a.email(), newPassword, a.handle(), a.roleName(),
+                    a.emailVerified(), a.chefId(), a.chefHandle()));
         }
-
-        var authorities = List.of(new org.springframework.security.core.authority.SimpleGrantedAuthority(roleName));
-
-        return org.springframework.security.core.userdetails.User
-                .withUsername(user.getEmail())
-                .password(user.getPasswordHash()) 
-                .authorities(authorities)
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(false)
-                .build();
+        return loadUserByUsername(user.getUsername());
     }
 
 }
@@ -3,25 +3,21 @@ package com.example.recipe_worker.security;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtTokenProvider tokenProvider;
+    private final VerifiedTokenCache verifiedTokens;
+    private final WebAuthenticationDetailsSource detailsSource = new WebAuthenticationDetailsSource();
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider) {
-        this.tokenProvider = tokenProvider;
+    public JwtAuthenticationFilter(VerifiedTokenCache verifiedTokens) {
+        this.verifiedTokens = verifiedTokens;
     }
 
     @Override
@@ -31,16 +27,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String header = request.getHeader(HttpHeaders.AUTHORIZATION);
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
-            if (tokenProvider.validateToken(token)) {
-                Jws<Claims> claims = tokenProvider.parseToken(token);
-                String subject = claims.getBody().getSubject();
-                String email = claims.getBody().get("email", String.class);
-                List<String> roles = claims.getBody().get("roles", List.class);
-                var authorities = roles.stream().map(r -> new SimpleGrantedAuthority(r)).collect(Collectors.toList());
-                var auth = new UsernamePasswordAuthenticationToken(email, null, authorities);
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            // one parse and signature check per token, not per request
+            verifiedTokens.verify(token).ifPresent(verified -> {
+                var auth = new UsernamePasswordAuthenticationToken(verified.principal(), null, verified.authorities());
+                auth.setDetails(detailsSource.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(auth);
-            }
+            });
         }
         chain.doFilter(request, response);
     }
@@ -3,48 +3,75 @@ package com.example.recipe_worker.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.time.Instant;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
     private final Key key;
+    // immutable and thread-safe, so built once
+    private final JwtParser parser;
     private final long accessTokenTtlSeconds;
 
     public JwtTokenProvider(@Value("${security.jwt.secret}") String secret,
                             @Value("${security.jwt.access-token-ttl-seconds}") long accessTokenTtlSeconds) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
         this.accessTokenTtlSeconds = accessTokenTtlSeconds;
     }
 
     public String generateAccessToken(Long userId, String email, Set<String> roles) {
+        return generateAccessToken(userId, email, roles, null, null);
+    }
+
+    /** The chef claims let write requests act as the chef without looking it up; omitted when null. */
+    public String generateAccessToken(Long userId, String email, Set<String> roles, UUID chefId, String chefHandle) {
         Instant now = Instant.now();
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(String.valueOf(userId))
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plusSeconds(accessTokenTtlSeconds)))
                 .claim("email", email)
-                .claim("roles", roles.stream().collect(Collectors.toList()))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+                .claim("roles", roles.stream().collect(Collectors.toList()));
+        if (chefId != null && chefHandle != null) {
+            builder.claim("chef_id", chefId.toString()).claim("chef_handle", chefHandle);
+        }
+        return builder.signWith(key, SignatureAlgorithm.HS256).compact();
     }
 
     public Jws<Claims> parseToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+        return parser.parseClaimsJws(token);
     }
 
     public boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    /** Parses and checks the token once; empty when the signature, format or expiry is bad. */
+    public Optional<VerifiedToken> verify(String token) {
         try {
-            parseToken(token);
-            return true;
+            Claims claims = parseToken(token).getBody();
+            List<?> roles = claims.get("roles", List.class);
+            List<GrantedAuthority> authorities = roles == null ? List.of()
+                    : roles.stream().map(r -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(r))).toList();
+            Instant expiresAt = claims.getExpiration() == null ? null : claims.getExpiration().toInstant();
+            String chefId = claims.get("chef_id", String.class);
+            return Optional.of(new VerifiedToken(claims.getSubject(), claims.get("email", String.class),
+                    chefId == null ? null : UUID.fromString(chefId), claims.get("chef_handle", String.class),
+                    authorities, expiresAt));
         } catch (JwtException | IllegalArgumentException ex) {
-            return false;
+            return Optional.empty();
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.example.recipe_worker.security;
+
+import java.util.UUID;
+
+/**
+ * What authentication and token issuing need to know about a user, read in one query together with
+ * the id and handle of the chef profile sharing the user's email (null until the first recipe).
+ */
+public record UserAccount(Long id,
+                          String email,
+                          String passwordHash,
+                          String handle,
+                          String roleName,
+                          boolean emailVerified,
+                          UUID chefId,
+                          String chefHandle) {
+
+    public String authority() {
+        if (roleName == null || roleName.isBlank()) return "ROLE_USER";
+        String role = roleName.trim();
+        return role.startsWith("ROLE_") ? role : "ROLE_" + role;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.recipe_worker.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of {@link UserAccount}s by email, so repeated logins do not reload the user.
+ * Anything that changes a user's role or verification state must call {@link #invalidate}.
+ */
+@Component
+public class UserAccountCache {
+
+    private final Cache<String, UserAccount> cache;
+
+    public UserAccountCache(@Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${security.user-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Optional<UserAccount> get(String email, Function<String, Optional<UserAccount>> loader) {
+        UserAccount cached = cache.getIfPresent(email);
+        if (cached != null) return Optional.of(cached);
+        Optional<UserAccount> loaded = loader.apply(email);
+        loaded.ifPresent(account -> cache.put(email, account));
+        return loaded;
+    }
+
+    /** Drops the entry now and, inside a transaction, again after commit so a concurrent login cannot re-cache the old row. */
+    public void invalidate(String email) {
+        cache.invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(email);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.recipe_worker.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/** Claims of a JWS whose signature and expiry have been checked, with authorities ready for use. */
+public record VerifiedToken(String subject,
+                            String email,
+                            UUID chefId,
+                            String chefHandle,
+                            List<GrantedAuthority> authorities,
+                            Instant expiresAt) {
+
+    public AuthenticatedUser principal() {
+        Long userId;
+        try {
+            userId = subject == null ? null : Long.valueOf(subject);
+        } catch (NumberFormatException ex) {
+            userId = null;
+        }
+        return new AuthenticatedUser(userId, email, chefId, chefHandle);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.recipe_worker.service;
+
+import java.nio.file.Path;
+
+/**
+ * Metadata of a stored blob.
+ *
+ * @param localFile set when the blob is a file on this host, which lets it be sent with sendfile;
+ *                  null for remote backends
+ */
+public record BlobInfo(long length, long lastModified, Path localFile) {}
@@ -0,0 +1,59 @@
+package com.example.recipe_worker.service;
+
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.entity.Chef;
+import com.example.recipe_worker.repository.ChefRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Completes a {@link ChefIdentity} to id, email and handle. Identities taken from token claims are
+ * returned as they are; email-only ones are resolved once (creating the chef on first use, as
+ * recipe creation always has) and then remembered, since a chef's id and handle do not change.
+ */
+@Component
+public class ChefIdentityResolver {
+
+    private final ChefRepository chefRepository;
+    private final Cache<String, ChefIdentity> byEmail;
+
+    public ChefIdentityResolver(ChefRepository chefRepository,
+                                @Value("${recipe-worker.chef-identity-cache.max-size:10000}") long maxSize) {
+        this.chefRepository = chefRepository;
+        this.byEmail = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    public ChefIdentity resolve(ChefIdentity actor) {
+        if (actor.resolved()) return actor;
+        ChefIdentity cached = byEmail.getIfPresent(actor.email());
+        if (cached != null) return cached;
+
+        Chef chef = chefRepository.findByEmail(actor.email()).orElseGet(() -> {
+            Chef c = new Chef();
+            c.setEmail(actor.email());
+            c.setHandle(actor.email().split("@")[0]);
+            return chefRepository.save(c);
+        });
+        ChefIdentity resolved = new ChefIdentity(chef.getId(), chef.getEmail(), chef.getHandle());
+        rememberAfterCommit(resolved);
+        return resolved;
+    }
+
+    // a chef created in a transaction that rolls back must not be remembered
+    private void rememberAfterCommit(ChefIdentity identity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            byEmail.put(identity.email(), identity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                byEmail.put(identity.email(), identity);
+            }
+        });
+    }
+}
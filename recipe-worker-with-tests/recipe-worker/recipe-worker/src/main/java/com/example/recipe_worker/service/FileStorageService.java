@@ -1,7 +1,37 @@
 package com.example.recipe_worker.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Blob store for images. Stored names are the last path segment of what {@code store} returns and
+ * are what callers pass to the other methods. Implementations are picked with
+ * {@code recipe-worker.storage.backend}.
+ */
 public interface FileStorageService {
 
     String store(byte[] data, String filename);
-}
 
+    // streaming variants: content is copied straight to disk, never buffered whole in heap
+    String store(InputStream in, String filename);
+
+    String store(ReadableByteChannel in, String filename);
+
+    /** Empty when no blob has that name. */
+    Optional<BlobInfo> head(String storedName) throws IOException;
+
+    /** Bytes {@code start..end} (inclusive); throws NoSuchFileException when the blob is missing. */
+    InputStream get(String storedName, long start, long end) throws IOException;
+
+    void delete(String storedName) throws IOException;
+
+    /**
+     * A URL clients can fetch the blob from directly, valid for at least half of ttl, or empty when
+     * reads must go through this service.
+     */
+    Optional<URI> presignedGetUrl(String storedName, Duration ttl);
+}
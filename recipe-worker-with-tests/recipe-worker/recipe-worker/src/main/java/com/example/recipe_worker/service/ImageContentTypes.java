@@ -0,0 +1,35 @@
+package com.example.recipe_worker.service;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The Content-Type a stored file is served with, from its extension. Only raster types browsers
+ * render passively are allowed; anything else, SVG and HTML included, is opaque bytes, because the
+ * extension comes from whatever name the uploader chose.
+ */
+public final class ImageContentTypes {
+
+    private static final Map<String, String> IMAGE_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "avif", "image/avif");
+
+    private ImageContentTypes() {}
+
+    public static Optional<String> imageType(String storedName) {
+        int dot = storedName.lastIndexOf('.');
+        if (dot < 0) return Optional.empty();
+        return Optional.ofNullable(IMAGE_TYPES.get(storedName.substring(dot + 1).toLowerCase(Locale.ROOT)));
+    }
+
+    public static String of(String storedName) {
+        return imageType(storedName).orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.recipe_worker.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Serves stored images. When the storage backend hands out presigned URLs the client is redirected
+ * there and the bytes never pass through the JVM; otherwise they are streamed from the backend.
+ * Stored names are content hashes (or UUID-prefixed legacy names) and never rewritten, so responses
+ * are cacheable forever; the ETag is the content hash, or size/mtime for legacy files.
+ * Supports conditional GET (304), single byte ranges (206) and Tomcat sendfile for local files.
+ * Files that are not an allow-listed image type go out as attachments, and nothing is sniffed.
+ */
+@Service
+public class ImageServingService {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String SHORT_CACHE_CONTROL = "public, max-age=60";
+
+    // Tomcat's NIO connector exposes sendfile through these request attributes
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final FileStorageService storageService;
+    private final Duration presignTtl;
+
+    public ImageServingService(FileStorageService storageService,
+                               @Value("${recipe-worker.storage.presign-ttl-seconds:3600}") long presignTtlSeconds) {
+        this.storageService = storageService;
+        this.presignTtl = Duration.ofSeconds(presignTtlSeconds);
+    }
+
+    /**
+     * @param immutable false unless the image has finished processing (a variant may still appear),
+     *                  so caches revalidate soon instead of pinning the fallback for a year
+     */
+    public void serve(String filename, boolean immutable, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        Optional<URI> direct = storageService.presignedGetUrl(filename, presignTtl);
+        if (direct.isPresent()) {
+            // the URL is valid for at least half the ttl, and so may be cached for that long
+            response.setHeader(HttpHeaders.CACHE_CONTROL, immutable
+                    ? "private, max-age=" + presignTtl.toSeconds() / 2
+                    : SHORT_CACHE_CONTROL);
+            response.sendRedirect(direct.get().toString());
+            return;
+        }
+
+        Optional<BlobInfo> blob = storageService.head(filename);
+        if (blob.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = blob.get().length();
+        long lastModified = blob.get().lastModified();
+        // the mtime of a shared blob moves whenever it is reused, its hash never does
+        String etag = StorageLayout.isContentAddressed(filename)
+                ? "\"" + StorageLayout.hashOf(filename) + "\""
+                : "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL : SHORT_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        Optional<String> imageType = ImageContentTypes.imageType(filename);
+        response.setContentType(imageType.orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+        // e.g. an upload named .html or .svg: never rendered in the site's origin
+        if (imageType.isEmpty()) response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && rangeApplies(request, etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed == null) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (parsed.length == 2) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) return;
+
+        Path file = blob.get().localFile();
+        if (file == null) {
+            try (InputStream in = storageService.get(filename, start, end)) {
+                in.transferTo(response.getOutputStream());
+            } catch (NoSuchFileException e) {
+                // deleted since the HEAD; headers are not committed yet
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // the connector writes the file with sendfile(2) after the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long n = in.transferTo(position, remaining, out);
+                if (n <= 0) break;
+                position += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 9110 13.2.2)
+            return etagMatches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // a stale If-Range means the client holds another version: send the whole file instead
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(etag);
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static boolean etagMatches(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return true;
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {start, end} for a satisfiable single range, an empty array when the header should be
+     *         ignored (multiple ranges, other units), or null when it is unsatisfiable
+     */
+    private static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return new long[0];
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return new long[0];
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // suffix range: the final N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return null;
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) return null;
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
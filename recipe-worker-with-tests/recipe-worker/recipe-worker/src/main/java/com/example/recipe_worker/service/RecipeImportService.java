@@ -0,0 +1,113 @@
+package com.example.recipe_worker.service;
+
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.dto.RecipeCreateRequest;
+import com.example.recipe_worker.dto.RecipeImportReport;
+import com.example.recipe_worker.dto.RecipeImportReport.LineResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk recipe import from NDJSON. Lines are parsed and validated one at a time as the body streams
+ * in; valid recipes are written in chunks of {@code recipe-worker.import.chunk-size}, one transaction
+ * per chunk. If a chunk fails to commit, its lines are retried one by one so only the offending
+ * lines are reported as failed.
+ */
+@Service
+public class RecipeImportService {
+
+    private final Logger log = LoggerFactory.getLogger(RecipeImportService.class);
+
+    private final RecipeService recipeService;
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public RecipeImportService(RecipeService recipeService, ObjectMapper objectMapper, Validator validator,
+                               @Value("${recipe-worker.import.chunk-size:500}") int chunkSize) {
+        this.recipeService = recipeService;
+        this.reader = objectMapper.readerFor(RecipeCreateRequest.class);
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public RecipeImportReport importNdjson(InputStream body, ChefIdentity chef) throws IOException {
+        List<LineResult> results = new ArrayList<>();
+        List<RecipeCreateRequest> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkLines = new ArrayList<>(chunkSize);
+
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        int lineNo = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            String error;
+            try {
+                RecipeCreateRequest req = reader.readValue(line);
+                error = validate(req);
+                if (error == null) {
+                    chunk.add(req);
+                    chunkLines.add(lineNo);
+                    if (chunk.size() == chunkSize) {
+                        writeChunk(chunk, chunkLines, chef, results);
+                        chunk.clear();
+                        chunkLines.clear();
+                    }
+                    continue;
+                }
+            } catch (JsonProcessingException ex) {
+                error = "invalid_json: " + ex.getOriginalMessage();
+            }
+            results.add(new LineResult(lineNo, null, error));
+        }
+        if (!chunk.isEmpty()) writeChunk(chunk, chunkLines, chef, results);
+
+        results.sort(Comparator.comparingInt(LineResult::line));
+        int created = (int) results.stream().filter(r -> r.id() != null).count();
+        return new RecipeImportReport(created, results.size() - created, results);
+    }
+
+    private String validate(RecipeCreateRequest req) {
+        if (req == null) return "invalid_json: empty";
+        Set<ConstraintViolation<RecipeCreateRequest>> violations = validator.validate(req);
+        if (violations.isEmpty()) return null;
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void writeChunk(List<RecipeCreateRequest> chunk, List<Integer> lines, ChefIdentity chef,
+                            List<LineResult> results) {
+        try {
+            List<UUID> ids = recipeService.importRecipes(chunk, chef);
+            for (int i = 0; i < ids.size(); i++) results.add(new LineResult(lines.get(i), ids.get(i), null));
+        } catch (RuntimeException chunkFailure) {
+            log.warn("Import chunk of {} recipes failed, retrying line by line", chunk.size(), chunkFailure);
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    UUID id = recipeService.importRecipes(List.of(chunk.get(i)), chef).get(0);
+                    results.add(new LineResult(lines.get(i), id, null));
+                } catch (RuntimeException ex) {
+                    results.add(new LineResult(lines.get(i), null, "import_failed: " + ex.getMessage()));
+                }
+            }
+        }
+    }
+}
@@ -1,30 +1,51 @@
 package com.example.recipe_worker.service;
 
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.dto.ImageVariant;
 import com.example.recipe_worker.dto.PagedResponse;
+import com.example.recipe_worker.dto.PantryMatchResponse;
+import com.example.recipe_worker.dto.RecipeCardResponse;
 import com.example.recipe_worker.dto.RecipeCreateRequest;
 import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
 import com.example.recipe_worker.dto.RecipeUpdateRequest;
+import com.example.recipe_worker.entity.ImageFormat;
 import com.example.recipe_worker.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface RecipeService {
-    RecipeResponse createRecipe(RecipeCreateRequest req, String chefEmail);
+    RecipeResponse createRecipe(RecipeCreateRequest req, ChefIdentity chef);
+
+    // creates all recipes in one transaction with batched inserts; returns their ids in order
+    List<UUID> importRecipes(List<RecipeCreateRequest> chunk, ChefIdentity chef);
     Optional<RecipeResponse> getById(UUID id);
-    RecipeResponse updateRecipe(UUID id, RecipeUpdateRequest update, String actorEmail);
-    void deleteRecipe(UUID id, String actorEmail);
-    PagedResponse<RecipeResponse> searchRecipes(
-        String q,
-        String publishedFrom,
-        String publishedTo,
-        String chefId,    
-        String chefHandle,
-        int page,
-        int pageSize,
-        String sortBy,
-        String sortDir
-    );
+    RecipeResponse updateRecipe(UUID id, RecipeUpdateRequest update, ChefIdentity actor);
+    void deleteRecipe(UUID id, ChefIdentity actor);
+    PagedResponse<RecipeResponse> searchRecipes(RecipeSearchRequest req);
+
+    // same filters as searchRecipes, projected to the lightweight card view
+    PagedResponse<RecipeCardResponse> searchRecipeCards(RecipeSearchRequest req);
+
+    // keyset paging on (publishedAt, id): no OFFSET and no count unless includeTotal is set
+    PagedResponse<RecipeResponse> searchRecipesByCursor(RecipeSearchRequest req);
+
+    // every recipe matching the listing filters, read through one cursor in fixed-size chunks; q is rejected
+    void exportRecipes(RecipeSearchRequest req, Consumer<RecipeResponse> sink);
+
+    // recipes the pantry covers with at most maxMissing ingredients left to buy, best covered first
+    PagedResponse<PantryMatchResponse> matchPantry(List<String> pantry, int maxMissing, int limit);
+
+    /**
+     * Stored name of the variant closest to (and not smaller than) the requested size, or at the
+     * stored name's own size when size is null, in the first of the accepted formats available
+     * there, else any rendition there; the upload as sent only when it has no rendition. Empty when
+     * no image row refers to the stored name.
+     */
+    Optional<ImageVariant> resolveImageVariant(String storedName, Integer size, List<ImageFormat> accepted);
 
 
 
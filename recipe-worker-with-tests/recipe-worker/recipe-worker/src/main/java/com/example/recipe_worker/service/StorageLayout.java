@@ -0,0 +1,36 @@
+package com.example.recipe_worker.service;
+
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+/**
+ * Where stored names live under the storage base directory. Content-addressed names
+ * ({@code <sha256 hex>.<ext>}) fan out into two directory levels taken from the hash
+ * ({@code ab/cd/abcd....jpg}), so each leaf directory holds about 1/65536 of the blobs;
+ * anything else is a legacy name in the base directory itself.
+ */
+public final class StorageLayout {
+
+    private static final Pattern CONTENT_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,10})?");
+
+    private StorageLayout() {}
+
+    public static boolean isContentAddressed(String storedName) {
+        return CONTENT_NAME.matcher(storedName).matches();
+    }
+
+    // the SHA-256 of a content-addressed name's bytes
+    public static String hashOf(String storedName) {
+        return storedName.substring(0, 64);
+    }
+
+    public static Path resolve(Path baseDir, String storedName) {
+        return baseDir.resolve(key(storedName));
+    }
+
+    // the same location as a '/'-separated relative key, as used by object stores
+    public static String key(String storedName) {
+        if (!isContentAddressed(storedName)) return storedName;
+        return storedName.substring(0, 2) + "/" + storedName.substring(2, 4) + "/" + storedName;
+    }
+}
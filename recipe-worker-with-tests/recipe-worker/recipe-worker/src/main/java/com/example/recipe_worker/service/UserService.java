@@ -4,15 +4,15 @@ import com.example.recipe_worker.entity.Role;
 import com.example.recipe_worker.entity.User;
 import com.example.recipe_worker.repository.RoleRepository;
 import com.example.recipe_worker.repository.UserRepository; // adapt package if needed
+import com.example.recipe_worker.security.UserAccountCache;
+import com.example.recipe_worker.verification.VerificationTokenStore;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class UserService{
@@ -20,13 +20,17 @@ public class UserService{
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
-    private final Map<String, VerificationTemp> tempTokens = new ConcurrentHashMap<>();
+    private final UserAccountCache accountCache;
+    private final VerificationTokenStore verificationTokens;
 
 
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       UserAccountCache accountCache, VerificationTokenStore verificationTokens) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.accountCache = accountCache;
+        this.verificationTokens = verificationTokens;
     }
 
     @Transactional
@@ -63,6 +67,7 @@ public class UserService{
         Role role = roleRepository.findByName(normalizeRole(roleName))
                 .orElseGet(() -> roleRepository.save(notARole));
         user.setRole(role);
+        accountCache.invalidate(email);
         return userRepository.save(user);
     }
 
@@ -72,26 +77,24 @@ public class UserService{
         return r.startsWith("ROLE_") ? r : "ROLE_" + r;
     }
 
-    public String createVerificationTokenAndSend(User user) {
+    public String createVerificationTokenAndSend(String email) {
         String token = UUID.randomUUID().toString().replace("-", "");
         Instant expiry = Instant.now().plusSeconds(120); // 2 minutes
-        tempTokens.put(token, new VerificationTemp(user.getEmail(), expiry));
+        verificationTokens.put(token, email, expiry);
         return token;
     }
 
     public boolean verifyEmailToken(String token) {
-        VerificationTemp data = tempTokens.get(token);
-        if (data == null) return false;
-        if (Instant.now().isAfter(data.expiry())) return false;
+        // single use: the store hands a token's email to one caller only
+        var email = verificationTokens.consume(token);
+        if (email.isEmpty()) return false;
 
-        var opt = findByEmail(data.email());
+        var opt = findByEmail(email.get());
         if (opt.isEmpty()) return false;
         var user = opt.get();
         user.setEmailVerified(true);
         userRepository.save(user);
-        tempTokens.remove(token);
+        accountCache.invalidate(user.getEmail());
         return true;
     }
-
-    private record VerificationTemp(String email, Instant expiry) {}
 }
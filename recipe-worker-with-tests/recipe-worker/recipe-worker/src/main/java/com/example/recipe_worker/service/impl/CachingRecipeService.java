@@ -0,0 +1,112 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.cache.ImageVariantCache;
+import com.example.recipe_worker.cache.RecipeResponseCache;
+import com.example.recipe_worker.cache.SearchCacheKey;
+import com.example.recipe_worker.cache.SearchResultCache;
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.dto.ImageVariant;
+import com.example.recipe_worker.dto.PagedResponse;
+import com.example.recipe_worker.dto.PantryMatchResponse;
+import com.example.recipe_worker.dto.RecipeCardResponse;
+import com.example.recipe_worker.dto.RecipeCreateRequest;
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.dto.RecipeUpdateRequest;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.service.RecipeService;
+import com.example.recipe_worker.worker.ImageUploadStore;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Serves {@link #getById} from {@link RecipeResponseCache} and searches from
+ * {@link SearchResultCache} in front of the transactional service, so a hit opens no transaction
+ * and borrows no connection. Writes are passed through; the caches evict themselves from the
+ * events the writes publish. Resolved image variants are cached in {@link ImageVariantCache}.
+ * Upload bytes are put in the file store here, before a write opens its transaction.
+ */
+@Service
+@Primary
+public class CachingRecipeService implements RecipeService {
+
+    private final RecipeServiceImpl delegate;
+    private final RecipeResponseCache cache;
+    private final SearchResultCache searchCache;
+    private final ImageVariantCache variantCache;
+    private final ImageUploadStore uploadStore;
+
+    public CachingRecipeService(RecipeServiceImpl delegate, RecipeResponseCache cache, SearchResultCache searchCache,
+                                ImageVariantCache variantCache, ImageUploadStore uploadStore) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.searchCache = searchCache;
+        this.variantCache = variantCache;
+        this.uploadStore = uploadStore;
+    }
+
+    @Override
+    public Optional<RecipeResponse> getById(UUID id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public RecipeResponse createRecipe(RecipeCreateRequest req, ChefIdentity chef) {
+        uploadStore.storeAll(req.getImages());
+        return delegate.createRecipe(req, chef);
+    }
+
+    @Override
+    public List<UUID> importRecipes(List<RecipeCreateRequest> chunk, ChefIdentity chef) {
+        chunk.forEach(req -> uploadStore.storeAll(req.getImages()));
+        return delegate.importRecipes(chunk, chef);
+    }
+
+    @Override
+    public RecipeResponse updateRecipe(UUID id, RecipeUpdateRequest update, ChefIdentity actor) {
+        uploadStore.storeAll(update.getImages());
+        return delegate.updateRecipe(id, update, actor);
+    }
+
+    @Override
+    public void deleteRecipe(UUID id, ChefIdentity actor) {
+        delegate.deleteRecipe(id, actor);
+    }
+
+    @Override
+    public PagedResponse<RecipeResponse> searchRecipes(RecipeSearchRequest req) {
+        return searchCache.get(SearchCacheKey.of("full", req), () -> delegate.searchRecipes(req));
+    }
+
+    @Override
+    public PagedResponse<RecipeCardResponse> searchRecipeCards(RecipeSearchRequest req) {
+        return searchCache.get(SearchCacheKey.of("card", req), () -> delegate.searchRecipeCards(req));
+    }
+
+    @Override
+    public PagedResponse<RecipeResponse> searchRecipesByCursor(RecipeSearchRequest req) {
+        return searchCache.get(SearchCacheKey.of("cursor", req), () -> delegate.searchRecipesByCursor(req));
+    }
+
+    // streamed straight from the database, never cached
+    @Override
+    public void exportRecipes(RecipeSearchRequest req, Consumer<RecipeResponse> sink) {
+        delegate.exportRecipes(req, sink);
+    }
+
+    @Override
+    public PagedResponse<PantryMatchResponse> matchPantry(List<String> pantry, int maxMissing, int limit) {
+        return delegate.matchPantry(pantry, maxMissing, limit);
+    }
+
+    @Override
+    public Optional<ImageVariant> resolveImageVariant(String storedName, Integer size, List<ImageFormat> accepted) {
+        return variantCache.get(storedName, size, accepted,
+                () -> delegate.resolveImageVariant(storedName, size, accepted));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.repository.ImageRepository;
+import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * One-off move of files written before the content-addressed layout, which all sit directly in the
+ * base directory. Each file is stored again (hashed, sharded, fsynced), the image rows naming it are
+ * repointed and only then is the flat file removed, so an interrupted run can simply be restarted.
+ * Rows from before {@code stored_name} existed only carry the absolute path and are matched by it;
+ * a file some row still refers to after repointing is left in place.
+ * Enabled with {@code recipe-worker.storage.migrate-flat-files=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.storage.migrate-flat-files", havingValue = "true")
+public class FlatStorageMigration implements ApplicationRunner {
+
+    private final Logger log = LoggerFactory.getLogger(FlatStorageMigration.class);
+
+    private final FileStorageService storageService;
+    private final ImageRepository imageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path baseDir;
+
+    public FlatStorageMigration(FileStorageService storageService,
+                                ImageRepository imageRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${recipe-worker.storage.base-dir:./data/storage}") String baseDir) {
+        this.storageService = storageService;
+        this.imageRepository = imageRepository;
+        this.eventPublisher = eventPublisher;
+        this.baseDir = Paths.get(baseDir);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        int migrated = migrate();
+        if (migrated > 0) log.info("Moved {} flat files into the sharded storage layout", migrated);
+    }
+
+    /** Moves every flat file in the base directory; returns how many were moved. */
+    public int migrate() throws IOException {
+        if (!Files.isDirectory(baseDir)) return 0;
+        List<Path> flat;
+        // shard and temp directories are skipped; only regular files at the top level are legacy
+        try (Stream<Path> files = Files.list(baseDir)) {
+            flat = files.filter(Files::isRegularFile).toList();
+        }
+        int migrated = 0;
+        for (Path file : flat) {
+            try {
+                migrate(file);
+                migrated++;
+                if (migrated % 1000 == 0) log.info("Moved {} of {} flat files", migrated, flat.size());
+            } catch (IOException | RuntimeException ex) {
+                log.warn("Failed to move flat file {}", file, ex);
+            }
+        }
+        return migrated;
+    }
+
+    private void migrate(Path file) throws IOException {
+        String oldName = file.getFileName().toString();
+        String pathSuffix = pathSuffix(oldName);
+        String path;
+        try (FileChannel in = FileChannel.open(file)) {
+            path = storageService.store(in, oldName);
+        }
+        String newName = Paths.get(path).getFileName().toString();
+        List<UUID> recipeIds = imageRepository.findRecipeIdsReferencingFlatFile(oldName, pathSuffix);
+        int repointed = imageRepository.repointFlatFile(oldName, pathSuffix, newName, path);
+        // cached responses still carry the old image URLs
+        recipeIds.forEach(id -> eventPublisher.publishEvent(new RecipeImagesChangedEvent(id)));
+        // a row written meanwhile is repointed on the next run; until then the flat file must stay
+        long remaining = imageRepository.countReferencingFlatFile(oldName, pathSuffix);
+        if (remaining > 0) {
+            throw new IllegalStateException(remaining + " image rows still refer to " + file + " after repointing " + repointed);
+        }
+        if (repointed == 0) log.info("No image row refers to flat file {}; removing it", file);
+        Files.delete(file);
+    }
+
+    /**
+     * LIKE pattern for the paths legacy rows stored: the base directory made absolute as it was on
+     * the writing host (possibly with "./" in it) followed by the file name, which is unique.
+     */
+    static String pathSuffix(String name) {
+        return "%" + File.separator + name.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.recipe_worker.service.impl;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Group commit for stored files. Callers hand over a fully written temp file and its final path and
+ * wait; a single writer thread takes everything queued at that moment, fsyncs the files back to back
+ * (so the file system folds them into few journal commits), renames them into place and then fsyncs
+ * each directory the batch touched once. Concurrent uploads share those flushes instead of each
+ * paying for its own.
+ */
+class FsyncBatcher implements AutoCloseable {
+
+    private record Pending(Path temp, Path target, CompletableFuture<Void> done) {}
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final int maxBatch;
+    private final Thread writer;
+    private final AtomicLong batches = new AtomicLong();
+    private volatile boolean closed;
+
+    FsyncBatcher(int maxBatch) {
+        this.maxBatch = maxBatch;
+        this.writer = new Thread(this::run, "storage-fsync");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Makes temp durable under target; returns once the rename itself is on disk. */
+    void commit(Path temp, Path target) throws IOException {
+        if (closed) throw new IOException("file store is shutting down");
+        Pending pending = new Pending(temp, target, new CompletableFuture<>());
+        queue.add(pending);
+        // the writer may have stopped between the check and the add
+        if (closed && queue.remove(pending)) throw new IOException("file store is shutting down");
+        try {
+            pending.done().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for fsync");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("fsync failed", e.getCause());
+        }
+    }
+
+    // number of group commits so far
+    long batches() {
+        return batches.get();
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            flush(batch);
+            batch.clear();
+        }
+        Pending p;
+        while ((p = queue.poll()) != null) p.done().completeExceptionally(new IOException("file store is shutting down"));
+    }
+
+    private void flush(List<Pending> batch) {
+        batches.incrementAndGet();
+        Set<Path> dirs = new LinkedHashSet<>();
+        for (Pending p : batch) {
+            try {
+                try (FileChannel file = FileChannel.open(p.temp(), StandardOpenOption.WRITE)) {
+                    file.force(true);
+                }
+                Files.createDirectories(p.target().getParent());
+                Files.move(p.temp(), p.target(), StandardCopyOption.ATOMIC_MOVE);
+                // the shard directories may be new as well
+                dirs.add(p.target().getParent());
+                dirs.add(p.target().getParent().getParent());
+            } catch (IOException | RuntimeException e) {
+                p.done().completeExceptionally(e);
+            }
+        }
+        for (Path dir : dirs) forceDirectory(dir);
+        // no-op for entries that already failed
+        batch.forEach(p -> p.done().complete(null));
+    }
+
+    // directory fsync persists the new entries; not every platform allows opening a directory
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,52 +1,210 @@
 package com.example.recipe_worker.service.impl;
 
+import com.example.recipe_worker.service.BlobInfo;
 import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.service.StorageLayout;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Content-addressed store: a file's name is the SHA-256 of its bytes plus the upload's extension,
+ * laid out by {@link StorageLayout}. Uploads stream into a temp file while being hashed and are
+ * then moved into place, so identical bytes are kept once however often they are uploaded.
+ * With {@code recipe-worker.storage.fsync} on, the data and the rename are made durable through
+ * {@link FsyncBatcher} before store returns. Blobs no image row refers to any more are removed by
+ * {@link StorageGarbageCollector}.
+ */
 @Service
+@ConditionalOnProperty(name = "recipe-worker.storage.backend", havingValue = "local", matchIfMissing = true)
 public class LocalFileStorageService implements FileStorageService {
 
+    // uploads in progress; same file system as the blobs so the final move is a rename
+    static final String TEMP_DIR = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Value("${recipe-worker.storage.base-dir:./data/storage}")
     private String baseDir;
 
+    @Value("${recipe-worker.storage.fsync:true}")
+    private boolean fsync;
+
+    @Value("${recipe-worker.storage.fsync-max-batch:64}")
+    private int fsyncMaxBatch;
+
+    private FsyncBatcher fsyncBatcher;
+
     @PostConstruct
     public void init() {
         try {
-            Path base = Paths.get(baseDir);
-            if (!Files.exists(base)) {
-                Files.createDirectories(base);
-            }
+            Files.createDirectories(Paths.get(baseDir).resolve(TEMP_DIR));
         } catch (IOException e) {
             throw new RuntimeException("Failed to create base storage directory: " + baseDir, e);
         }
+        if (fsync) fsyncBatcher = new FsyncBatcher(fsyncMaxBatch);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (fsyncBatcher != null) fsyncBatcher.close();
     }
 
     @Override
     public String store(byte[] data, String filename) {
+        return store(new ByteArrayInputStream(data), filename);
+    }
+
+    @Override
+    public String store(InputStream in, String filename) {
+        return store(Channels.newChannel(in), filename);
+    }
+
+    @Override
+    public String store(ReadableByteChannel in, String filename) {
+        Path base = Paths.get(baseDir);
+        Path temp = base.resolve(TEMP_DIR).resolve(UUID.randomUUID() + ".part");
         try {
-            String safeName = UUID.randomUUID().toString() + "-" + sanitizeFilename(filename);
-            Path path = Paths.get(baseDir).resolve(safeName);
-            Files.write(path, data);
-            return path.toAbsolutePath().toString();
+            String hash;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                hash = copyAndHash(in, out);
+            }
+            Path target = StorageLayout.resolve(base, hash + extension(filename));
+            if (!reuse(target)) place(temp, target);
+            return target.toAbsolutePath().toString();
         } catch (IOException e) {
             throw new RuntimeException("Failed to store file: " + filename, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> head(String storedName) throws IOException {
+        Path file = locate(storedName);
+        if (file == null) return Optional.empty();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        if (!attrs.isRegularFile()) return Optional.empty();
+        return Optional.of(new BlobInfo(attrs.size(), attrs.lastModifiedTime().toMillis(), file));
+    }
+
+    @Override
+    public InputStream get(String storedName, long start, long end) throws IOException {
+        Path file = locate(storedName);
+        if (file == null) throw new NoSuchFileException(storedName);
+        return openRange(file, start, end - start + 1);
+    }
+
+    @Override
+    public void delete(String storedName) throws IOException {
+        Path file = locate(storedName);
+        if (file != null) Files.deleteIfExists(file);
+    }
+
+    // files are served by ImageServingService from this host
+    @Override
+    public Optional<URI> presignedGetUrl(String storedName, Duration ttl) {
+        return Optional.empty();
+    }
+
+    // null for names that would leave the base directory
+    private Path locate(String storedName) {
+        Path base = Paths.get(baseDir).toAbsolutePath().normalize();
+        Path file = StorageLayout.resolve(base, storedName).normalize();
+        return file.startsWith(base) && !file.equals(base) ? file : null;
+    }
+
+    private void place(Path temp, Path target) throws IOException {
+        if (fsyncBatcher != null) {
+            fsyncBatcher.commit(temp, target);
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // an existing blob is refreshed so the collector's grace period covers the row about to reference it
+    private static boolean reuse(Path target) throws IOException {
+        try {
+            Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    static String copyAndHash(ReadableByteChannel in, FileChannel out) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (in.read(buffer) >= 0) {
+            buffer.flip();
+            digest.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) out.write(buffer);
+            buffer.clear();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
         }
     }
 
     /**
-     * Prevent directory traversal and invalid filenames
+     * Extension of the upload, kept so the served content type can be derived from the stored name.
+     * Only short alphanumeric extensions survive; the rest of the original name is not used.
      */
-    private String sanitizeFilename(String filename) {
-        if (filename == null) return "unnamed";
-        // Remove any path separators or illegal characters
-        return filename.replaceAll("[\\\\/]+", "_").replaceAll("[^a-zA-Z0-9._-]", "_");
+    static String extension(String filename) {
+        if (filename == null) return "";
+        int dot = filename.lastIndexOf('.');
+        if (dot < 0 || dot == filename.length() - 1) return "";
+        String ext = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return ext.matches("[a-z0-9]{1,10}") ? "." + ext : "";
+    }
+
+    static InputStream openRange(Path file, long start, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        channel.position(start);
+        return new RangeInputStream(Channels.newInputStream(channel), length);
     }
 }
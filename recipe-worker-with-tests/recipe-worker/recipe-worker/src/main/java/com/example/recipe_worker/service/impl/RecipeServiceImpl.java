@@ -3,26 +3,46 @@ package com.example.recipe_worker.service.impl;
 import com.example.recipe_worker.dto.*;
 import com.example.recipe_worker.entity.Chef;
 import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.entity.ImageStatus;
 import com.example.recipe_worker.entity.Recipe;
 import com.example.recipe_worker.entity.User;
 import com.example.recipe_worker.repository.ChefRepository;
+import com.example.recipe_worker.repository.ImageRepository;
 import com.example.recipe_worker.repository.RecipeRepository;
-import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.search.CriteriaTextMatch;
+import com.example.recipe_worker.search.PantryIndex;
+import com.example.recipe_worker.search.PantryMatch;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.search.RecipeDocument;
+import com.example.recipe_worker.search.RecipeTextSearch;
+import com.example.recipe_worker.service.ChefIdentityResolver;
 import com.example.recipe_worker.service.RecipeService;
 import com.example.recipe_worker.spec.RecipeSpecifications;
+import com.example.recipe_worker.worker.ImageJob;
+import com.example.recipe_worker.worker.ImageJobPublisher;
+import com.example.recipe_worker.worker.ImageJobWorker;
+import com.example.recipe_worker.worker.ImageUploadStore;
 
 import jakarta.transaction.Transactional;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,19 +51,100 @@ public class RecipeServiceImpl implements RecipeService {
 
     private static final int DEFAULT_PAGE_SIZE = 20;
     private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_PANTRY_MISSING = 10;
+    private static final int FACET_LIMIT = 50;
+    private static final String SORT_RELEVANCE = "relevance";
+    private static final String IMAGE_URL_PREFIX = "/api/recipes/images/";
     private final RecipeRepository recipeRepository;
     private final ChefRepository chefRepository;
-    private final FileStorageService fileStorageService;
+    private final ChefIdentityResolver chefIdentityResolver;
+    private final ImageRepository imageRepository;
+    private final ImageJobPublisher imageJobPublisher;
+    private final RecipeTextSearch textSearch;
+    private final PantryIndex pantryIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // cards show the smallest generated variant
+    private final String thumbnailSizeLabel;
+    // text matches considered per query; relevance paging works within these
+    private final int maxSearchHits;
+    // rows per cursor fetch and per association batch when exporting
+    private final int exportChunkSize;
 
     public RecipeServiceImpl(RecipeRepository recipeRepository, ChefRepository chefRepository,
-                             FileStorageService fileStorageService) {
+                             ChefIdentityResolver chefIdentityResolver,
+                             ImageRepository imageRepository, ImageJobPublisher imageJobPublisher,
+                             RecipeTextSearch textSearch,
+                             PantryIndex pantryIndex,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${recipe-worker.image.sizes:1024,512,256}") List<Integer> imageSizes,
+                             @Value("${recipe-worker.search.max-hits:1000}") int maxSearchHits,
+                             @Value("${recipe-worker.export.fetch-size:500}") int exportChunkSize) {
         this.recipeRepository = recipeRepository;
         this.chefRepository = chefRepository;
-        this.fileStorageService = fileStorageService;
+        this.chefIdentityResolver = chefIdentityResolver;
+        this.imageRepository = imageRepository;
+        this.imageJobPublisher = imageJobPublisher;
+        this.textSearch = textSearch;
+        this.pantryIndex = pantryIndex;
+        this.eventPublisher = eventPublisher;
+        this.maxSearchHits = maxSearchHits;
+        this.exportChunkSize = exportChunkSize;
+        this.thumbnailSizeLabel = imageSizes.isEmpty() ? ImageJobWorker.ORIGINAL_SIZE_LABEL
+                : String.valueOf(Collections.min(imageSizes));
     }
 
     @Override
-    public RecipeResponse createRecipe(RecipeCreateRequest req, String chefEmail) {
+    public RecipeResponse createRecipe(RecipeCreateRequest req, ChefIdentity chef) {
+        Recipe r = newRecipe(req);
+
+        // a reference is enough for the foreign key; id and handle come from the token or the resolver's cache
+        ChefIdentity owner = chef == null || chef.email() == null ? null : chefIdentityResolver.resolve(chef);
+        if (owner != null) r.setChef(chefRepository.getReferenceById(owner.chefId()));
+
+        // upload bytes are already stored; variants are generated by the image worker after commit
+        List<ImageJob> jobs = attachImages(r, req.getImages());
+
+        Recipe saved = recipeRepository.save(r);
+        publishAfterCommit(jobs);
+        eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId(), RecipeDocument.of(saved)));
+        // map to RecipeResponse
+        return toResponse(saved, owner);
+    }
+
+    @Override
+    public List<UUID> importRecipes(List<RecipeCreateRequest> chunk, ChefIdentity chef) {
+        ChefIdentity owner = chef == null || chef.email() == null ? null : chefIdentityResolver.resolve(chef);
+        Chef chefRef = owner == null ? null : chefRepository.getReferenceById(owner.chefId());
+
+        List<Recipe> recipes = new ArrayList<>(chunk.size());
+        Map<UUID, List<String>> labels = new LinkedHashMap<>();
+        List<ImageJob> jobs = new ArrayList<>();
+        for (RecipeCreateRequest req : chunk) {
+            Recipe r = newRecipe(req);
+            // labels are written below as one JDBC batch instead of row by row
+            labels.put(r.getId(), r.getLabels());
+            r.setLabels(null);
+            r.setChef(chefRef);
+            jobs.addAll(attachImages(r, req.getImages()));
+            recipes.add(r);
+        }
+        // new entities are persisted, not merged, so recipe and image inserts are batched at flush
+        recipeRepository.saveAll(recipes);
+        recipeRepository.flush();
+        recipeRepository.insertLabels(labels);
+        publishAfterCommit(jobs);
+
+        List<UUID> ids = new ArrayList<>(recipes.size());
+        for (Recipe r : recipes) {
+            RecipeDocument document = new RecipeDocument(r.getId(), r.getTitle(), r.getSummary(),
+                    List.copyOf(r.getIngredients()), List.copyOf(r.getSteps()), List.copyOf(labels.get(r.getId())));
+            eventPublisher.publishEvent(new RecipeChangedEvent(r.getId(), document));
+            ids.add(r.getId());
+        }
+        return ids;
+    }
+
+    private static Recipe newRecipe(RecipeCreateRequest req) {
         Recipe r = new Recipe();
         r.setId(UUID.randomUUID());
         r.setTitle(req.getTitle());
@@ -53,42 +154,7 @@ public class RecipeServiceImpl implements RecipeService {
         r.setLabels(req.getLabels());
         r.setPublished(req.isPublished());
         if (req.isPublished()) r.setPublishedAt(Instant.now());
-
-        // find or create chef by email
-        Chef chef = null;
-        if (chefEmail != null) {
-            chef = chefRepository.findByEmail(chefEmail).orElseGet(() -> {
-                Chef c = new Chef();
-                c.setEmail(chefEmail);
-                c.setHandle(chefEmail.split("@")[0]);
-                return chefRepository.save(c);
-            });
-        }
-        r.setChef(chef);
-
-        // images: RecipeCreateRequest.images contains ImageUploadDto objects.
-        if (req.getImages() != null && !req.getImages().isEmpty()) {
-            List<ImageEntity> imgs = new ArrayList<>();
-            for (ImageUploadDto im : req.getImages()) {
-                ImageEntity e = new ImageEntity();
-                // if the image DTO has dataBase64 filled we decode and store; else if filename contains stored path, just use it
-                if (im.getDataBase64() != null && !im.getDataBase64().isBlank()) {
-                    byte[] data = Base64.getDecoder().decode(im.getDataBase64());
-                    String storedPath = fileStorageService.store(data, im.getFilename());
-                    e.setPath(storedPath);
-                } else {
-                    // assume filename contains stored path (we used that in controller)
-                    e.setPath(im.getFilename());
-                }
-                e.setFilename(im.getFilename());
-                e.setSizeLabel(null);
-                r.addImage(e);
-            }
-        }
-
-        Recipe saved = recipeRepository.save(r);
-        // map to RecipeResponse
-        return toResponse(saved);
+        return r;
     }
 
     @Override
@@ -97,14 +163,12 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
-    public RecipeResponse updateRecipe(UUID id, RecipeUpdateRequest update, String actorEmail) {
+    public RecipeResponse updateRecipe(UUID id, RecipeUpdateRequest update, ChefIdentity actor) {
         Recipe r = recipeRepository.findById(id).orElseThrow(NoSuchElementException::new);
 
         // authorization: only owner chef or admin (you need to expand with UserService to check admin)
-        if (r.getChef() != null && actorEmail != null && !actorEmail.equals(r.getChef().getEmail())) {
-            // TODO: integrate with roles (if actor is admin allow)
-            throw new SecurityException("not owner");
-        }
+        // TODO: integrate with roles (if actor is admin allow)
+        checkOwner(r, actor);
 
         if (update.getTitle() != null) r.setTitle(update.getTitle());
         if (update.getSummary() != null) r.setSummary(update.getSummary());
@@ -114,36 +178,142 @@ public class RecipeServiceImpl implements RecipeService {
         if (update.getPublished() != null) r.setPublished(update.getPublished());
 
         // images: append new images if provided
-        if (update.getImages() != null && !update.getImages().isEmpty()) {
-            for (ImageUploadDto im : update.getImages()) {
-                ImageEntity e = new ImageEntity();
-                if (im.getDataBase64() != null && !im.getDataBase64().isBlank()) {
-                    byte[] data = Base64.getDecoder().decode(im.getDataBase64());
-                    String storedPath = fileStorageService.store(data, im.getFilename());
-                    e.setPath(storedPath);
-                } else {
-                    e.setPath(im.getFilename());
-                }
-                e.setFilename(im.getFilename());
-                r.addImage(e);
-            }
-        }
+        List<ImageJob> jobs = attachImages(r, update.getImages());
 
         Recipe saved = recipeRepository.save(r);
-        return toResponse(saved);
+        publishAfterCommit(jobs);
+        eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId(), RecipeDocument.of(saved)));
+        return toResponse(saved, actor);
     }
 
     @Override
-    public void deleteRecipe(UUID id, String actorEmail) {
+    public void deleteRecipe(UUID id, ChefIdentity actor) {
         Recipe r = recipeRepository.findById(id).orElseThrow(NoSuchElementException::new);
-        if (r.getChef() != null && actorEmail != null && !actorEmail.equals(r.getChef().getEmail())) {
-            throw new SecurityException("not owner");
-        }
+        checkOwner(r, actor);
         recipeRepository.delete(r);
+        eventPublisher.publishEvent(new RecipeChangedEvent(id, null));
+    }
+
+    // compares ids when the token carried one, which does not load the recipe's chef
+    private static void checkOwner(Recipe r, ChefIdentity actor) {
+        if (r.getChef() == null || actor == null || actor.email() == null) return;
+        boolean owner = actor.chefId() != null
+                ? actor.chefId().equals(r.getChef().getId())
+                : actor.email().equals(r.getChef().getEmail());
+        if (!owner) throw new SecurityException("not owner");
+    }
+
+    @Override
+    public Optional<ImageVariant> resolveImageVariant(String storedName, Integer size, List<ImageFormat> accepted) {
+        // the same row every time, so recipes sharing a blob never swap variant groups between requests
+        List<ImageEntity> rows = imageRepository.findByStoredNameRanked(storedName, ImageStatus.READY, PageRequest.of(0, 1));
+        if (rows.isEmpty()) return Optional.empty();
+        ImageEntity image = rows.get(0);
+        UUID originalId = image.getOriginalId() != null ? image.getOriginalId() : image.getId();
+        List<ImageEntity> group = imageRepository.findVariantGroup(originalId, ImageStatus.READY);
+        int level = size == null ? pixelSize(image) : sizeLevel(group, size);
+        ImageEntity chosen = null;
+        for (ImageEntity candidate : group) {
+            if (pixelSize(candidate) != level || candidate.getStoredName() == null) continue;
+            if (chosen == null || formatRank(candidate, accepted) < formatRank(chosen, accepted)) chosen = candidate;
+        }
+        // ranking puts READY rows first, so a pending row means no finished copy of the blob exists
+        boolean ready = image.getStatus() == ImageStatus.READY;
+        UUID recipeId = image.getRecipe() == null ? null : image.getRecipe().getId();
+        return Optional.of(new ImageVariant(chosen != null ? chosen.getStoredName() : storedName, ready, recipeId));
+    }
+
+    // the smallest size covering the request, else the largest there is
+    private static int sizeLevel(List<ImageEntity> group, int size) {
+        int best = -1;
+        int largest = -1;
+        for (ImageEntity candidate : group) {
+            int candidateSize = pixelSize(candidate);
+            if (candidateSize >= size && (best < 0 || candidateSize < best)) best = candidateSize;
+            largest = Math.max(largest, candidateSize);
+        }
+        return best >= 0 ? best : largest;
+    }
+
+    // accepted formats in preference order, then anything re-encoded, then the upload as sent: it may
+    // still carry EXIF (GPS included), so it is only served when no rendition of it exists
+    private static int formatRank(ImageEntity image, List<ImageFormat> accepted) {
+        if (image.getOriginalId() == null) return accepted.size() + 2;
+        if (image.getFormat() == null) return accepted.size();
+        int i = accepted.indexOf(image.getFormat());
+        return i >= 0 ? i : accepted.size() + 1;
+    }
+
+    // originals (and anything without a numeric label) rank above every resized variant
+    private static int pixelSize(ImageEntity image) {
+        try {
+            return Integer.parseInt(image.getSizeLabel());
+        } catch (NumberFormatException | NullPointerException ex) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    // --- image helpers ---
+
+    /**
+     * Adds a PENDING image row per upload and returns the jobs that will fill them in.
+     * Upload bytes were already put in the shared file store by {@link ImageUploadStore}, before the
+     * transaction; the row names the blob, which keeps the collector away from it while queued.
+     * Uploads without data keep the old behaviour: filename is taken as an already stored path.
+     */
+    private List<ImageJob> attachImages(Recipe r, List<ImageUploadDto> uploads) {
+        if (uploads == null || uploads.isEmpty()) return List.of();
+        List<ImageJob> jobs = new ArrayList<>();
+        // appended after the originals already there; the first one is the recipe's card image
+        int sortOrder = (int) r.getImages().stream().filter(i -> i.getOriginalId() == null).count();
+        for (ImageUploadDto im : uploads) {
+            ImageEntity e = new ImageEntity();
+            e.setId(UUID.randomUUID());
+            e.setSortOrder(sortOrder++);
+            e.setFilename(im.getFilename());
+            String storedPath = im.getStoredPath();
+            if (storedPath != null) {
+                e.setPath(storedPath);
+                e.setStoredName(Path.of(storedPath).getFileName().toString());
+                e.setStatus(ImageStatus.PENDING);
+                jobs.add(new ImageJob(e.getId(), r.getId(), im.getFilename(), im.getMimeType(), storedPath));
+            } else if (im.getSource() != null || (im.getDataBase64() != null && !im.getDataBase64().isBlank())) {
+                throw new IllegalStateException("upload " + im.getFilename() + " was not stored before the transaction");
+            } else {
+                e.setPath(im.getFilename());
+                e.setStatus(ImageStatus.READY);
+            }
+            r.addImage(e);
+        }
+        return jobs;
+    }
+
+    // jobs must not reach the worker before the PENDING rows are visible to it
+    private void publishAfterCommit(List<ImageJob> jobs) {
+        if (jobs.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            jobs.forEach(imageJobPublisher::publish);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                jobs.forEach(imageJobPublisher::publish);
+            }
+        });
     }
 
     // --- mapping helper ---
+    private String imageUrl(ImageEntity e) {
+        return e.getStoredName() != null ? IMAGE_URL_PREFIX + e.getStoredName() : e.getPath();
+    }
+
     private RecipeResponse toResponse(Recipe r) {
+        return toResponse(r, null);
+    }
+
+    // a resolved identity of the recipe's own chef saves initialising the chef proxy
+    private RecipeResponse toResponse(Recipe r, ChefIdentity chef) {
         RecipeResponse out = new RecipeResponse();
         out.setId(r.getId());
         out.setTitle(r.getTitle());
@@ -153,7 +323,11 @@ public class RecipeServiceImpl implements RecipeService {
         out.setLabels(r.getLabels());
         out.setPublished(r.isPublished());
         out.setPublishedAt(r.getPublishedAt());
-        if (r.getChef() != null) {
+        if (r.getChef() != null && chef != null && chef.resolved() && chef.chefId().equals(r.getChef().getId())) {
+            out.setChefId(chef.chefId().toString());
+            out.setChefHandle(chef.handle());
+            out.setChefEmail(chef.email());
+        } else if (r.getChef() != null) {
             out.setChefId(r.getChef().getId() == null ? null : r.getChef().getId().toString());
             out.setChefHandle(r.getChef().getHandle());
             out.setChefEmail(r.getChef().getEmail());
@@ -163,8 +337,11 @@ public class RecipeServiceImpl implements RecipeService {
                 var i = new ImageInfoDto();
                 i.setId(e.getId() == null ? null : e.getId().toString());
                 i.setFilename(e.getFilename());
-                i.setUrl(e.getPath());
+                i.setUrl(imageUrl(e));
                 i.setSizeLabel(e.getSizeLabel());
+                i.setOriginalId(e.getOriginalId() == null ? null : e.getOriginalId().toString());
+                i.setFormat(e.getFormat() == null ? null : e.getFormat().name());
+                i.setStatus(e.getStatus().name());
                 return i;
             }).collect(Collectors.toList());
             out.setImages(imgs);
@@ -173,64 +350,257 @@ public class RecipeServiceImpl implements RecipeService {
     }
 
     @Override
-    public PagedResponse<RecipeResponse> searchRecipes(String q, String publishedFrom, String publishedTo,
-            String chefId, String chefHandle, int page, int pageSize, String sortBy, String sortDir) {
-       if (page < 0) page = 0;
+    public PagedResponse<RecipeResponse> searchRecipes(RecipeSearchRequest req) {
+        if (isRelevance(req)) {
+            Pageable pageable = pageRequest(req.getPage(), req.getPageSize(), null, null);
+            RankedPage ranked = rankedPage(req, pageable);
+            List<UUID> pageIds = ranked.ids();
+
+            Map<UUID, Recipe> byId = new HashMap<>();
+            recipeRepository.findAllById(pageIds).forEach(r -> byId.put(r.getId(), r));
+            List<Recipe> rows = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+            fetchAssociations(rows);
+            List<RecipeResponse> items = rows.stream().map(this::toResponse).collect(Collectors.toList());
+            Map<String,Object> meta = pageMeta(new PageImpl<>(items, pageable, ranked.total()));
+            if (ranked.truncated()) meta.put("truncated", true);
+            if (req.isIncludeFacets()) meta.put("facets", facets(ranked.all()));
+            return new PagedResponse<>(meta, items);
+        }
+
+        Pageable pageable = pageRequest(req.getPage(), req.getPageSize(), req.getSortBy(), req.getSortDir());
+        TextFilter text = textFilter(req.getQ());
+        Specification<Recipe> spec = RecipeSpecifications.combine(text.spec(), filterSpec(req));
+
+        // phase 1: only the recipe rows of the page (plus the count)
+        Page<Recipe> pageRes = recipeRepository.findAll(spec, pageable);
+
+        // phase 2: every association of the page in a fixed number of IN queries, then map
+        fetchAssociations(pageRes.getContent());
+        List<RecipeResponse> items = pageRes.stream().map(this::toResponse).collect(Collectors.toList());
+
+        Map<String,Object> meta = pageMeta(pageRes);
+        if (text.truncated()) meta.put("truncated", true);
+        if (req.isIncludeFacets()) meta.put("facets", facets(spec));
+        return new PagedResponse<>(meta, items);
+    }
+
+    @Override
+    public PagedResponse<RecipeCardResponse> searchRecipeCards(RecipeSearchRequest req) {
+        if (isRelevance(req)) {
+            Pageable pageable = pageRequest(req.getPage(), req.getPageSize(), null, null);
+            RankedPage ranked = rankedPage(req, pageable);
+            List<UUID> pageIds = ranked.ids();
+
+            Map<UUID, RecipeCardResponse> byId = new HashMap<>();
+            if (!pageIds.isEmpty()) {
+                recipeRepository.findCards(RecipeSpecifications.idIn(pageIds), Pageable.unpaged(), thumbnailSizeLabel)
+                        .forEach(c -> byId.put(c.getId(), c));
+            }
+            List<RecipeCardResponse> items = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+            Map<String,Object> meta = pageMeta(new PageImpl<>(items, pageable, ranked.total()));
+            if (ranked.truncated()) meta.put("truncated", true);
+            if (req.isIncludeFacets()) meta.put("facets", facets(ranked.all()));
+            return new PagedResponse<>(meta, items);
+        }
+
+        Pageable pageable = pageRequest(req.getPage(), req.getPageSize(), req.getSortBy(), req.getSortDir());
+        TextFilter text = textFilter(req.getQ());
+        Specification<Recipe> spec = RecipeSpecifications.combine(text.spec(), filterSpec(req));
+
+        // one projection statement for the rows, no entities or collections are loaded
+        Page<RecipeCardResponse> pageRes = recipeRepository.findCards(spec, pageable, thumbnailSizeLabel);
+        Map<String,Object> meta = pageMeta(pageRes);
+        if (text.truncated()) meta.put("truncated", true);
+        if (req.isIncludeFacets()) meta.put("facets", facets(spec));
+        return new PagedResponse<>(meta, pageRes.getContent());
+    }
+
+    @Override
+    public PagedResponse<RecipeResponse> searchRecipesByCursor(RecipeSearchRequest req) {
+        int pageSize = req.getPageSize();
         if (pageSize <= 0) pageSize = DEFAULT_PAGE_SIZE;
         if (pageSize > MAX_PAGE_SIZE) pageSize = MAX_PAGE_SIZE;
+        Sort.Direction direction = Sort.Direction.fromString(Optional.ofNullable(req.getSortDir()).orElse("DESC"));
+        String cursor = req.getCursor();
+        RecipeCursor after = cursor == null || cursor.isBlank() ? null : RecipeCursor.decode(cursor);
+
+        // recipes without a publish date have no place on the timeline the cursor walks
+        TextFilter text = textFilter(req.getQ());
+        Specification<Recipe> filter = RecipeSpecifications.combine(text.spec(), filterSpec(req),
+                RecipeSpecifications.hasPublishedAt());
+        Specification<Recipe> spec = after == null ? filter : RecipeSpecifications.combine(filter,
+                RecipeSpecifications.keysetAfter(after.publishedAt(), after.id(), direction.isDescending()));
+
+        // one extra row tells whether there is a next page, so no count is needed
+        int limit = pageSize;
+        List<Recipe> rows = recipeRepository.findBy(spec, query -> query
+                .sortBy(Sort.by(direction, "publishedAt", "id"))
+                .limit(limit + 1)
+                .all());
+        boolean hasNext = rows.size() > limit;
+        List<Recipe> pageRows = hasNext ? rows.subList(0, limit) : rows;
 
-        Sort sort = Sort.by(Sort.Direction.fromString(Optional.ofNullable(sortDir).orElse("DESC")), Optional.ofNullable(sortBy).orElse("publishedAt"));
-        Pageable pageable = PageRequest.of(page, pageSize, sort);
+        fetchAssociations(pageRows);
+        List<RecipeResponse> items = pageRows.stream().map(this::toResponse).collect(Collectors.toList());
+
+        Map<String,Object> meta = new HashMap<>();
+        meta.put("page_size", limit);
+        meta.put("has_next", hasNext);
+        Recipe last = pageRows.isEmpty() ? null : pageRows.get(pageRows.size() - 1);
+        meta.put("next_cursor", hasNext ? new RecipeCursor(last.getPublishedAt(), last.getId()).encode() : null);
+        if (text.truncated()) meta.put("truncated", true);
+        if (req.isIncludeTotal()) {
+            meta.put("total_elements", recipeRepository.count(filter));
+        }
+        if (req.isIncludeFacets()) meta.put("facets", facets(filter));
+        return new PagedResponse<>(meta, items);
+    }
+
+    @Override
+    public void exportRecipes(RecipeSearchRequest req, Consumer<RecipeResponse> sink) {
+        // exports promise every matching recipe; the text search only returns the best max-hits
+        if (req.getQ() != null && !req.getQ().isBlank()) {
+            throw new IllegalArgumentException("full-text queries cannot be exported");
+        }
+        // id breaks ties so the order is total and repeatable
+        String sortBy = req.getSortBy() == null || SORT_RELEVANCE.equalsIgnoreCase(req.getSortBy())
+                ? "publishedAt" : req.getSortBy();
+        Sort.Direction direction = Sort.Direction.fromString(Optional.ofNullable(req.getSortDir()).orElse("DESC"));
+        Sort sort = Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+
+        // associations are loaded per chunk with the same IN queries the listing uses
+        recipeRepository.forEachChunk(filterSpec(req), sort, exportChunkSize, chunk -> {
+            fetchAssociations(chunk);
+            for (Recipe r : chunk) sink.accept(toResponse(r));
+        });
+    }
+
+    @Override
+    public PagedResponse<PantryMatchResponse> matchPantry(List<String> pantry, int maxMissing, int limit) {
+        if (maxMissing < 0) maxMissing = 0;
+        if (maxMissing > MAX_PANTRY_MISSING) maxMissing = MAX_PANTRY_MISSING;
+        if (limit <= 0) limit = DEFAULT_PAGE_SIZE;
+        if (limit > MAX_PAGE_SIZE) limit = MAX_PAGE_SIZE;
+
+        // ranking happens in the index; the database only supplies the cards of the results
+        List<PantryMatch> matches = pantryIndex.match(pantry == null ? List.of() : pantry, maxMissing, limit);
+        Map<UUID, RecipeCardResponse> cards = new HashMap<>();
+        if (!matches.isEmpty()) {
+            List<UUID> ids = matches.stream().map(PantryMatch::recipeId).toList();
+            recipeRepository.findCards(RecipeSpecifications.idIn(ids), Pageable.unpaged(), thumbnailSizeLabel)
+                    .forEach(c -> cards.put(c.getId(), c));
+        }
+        List<PantryMatchResponse> items = matches.stream()
+                .filter(m -> cards.containsKey(m.recipeId()))
+                .map(m -> new PantryMatchResponse(cards.get(m.recipeId()), m.matched(), m.total(), m.missing()))
+                .collect(Collectors.toList());
 
+        Map<String,Object> meta = new HashMap<>();
+        meta.put("max_missing", maxMissing);
+        meta.put("limit", limit);
+        return new PagedResponse<>(meta, items);
+    }
+
+    private Pageable pageRequest(int page, int pageSize, String sortBy, String sortDir) {
+        if (page < 0) page = 0;
+        if (pageSize <= 0) pageSize = DEFAULT_PAGE_SIZE;
+        if (pageSize > MAX_PAGE_SIZE) pageSize = MAX_PAGE_SIZE;
+
+        // without a query there is nothing to rank by
+        if (sortBy == null || SORT_RELEVANCE.equalsIgnoreCase(sortBy)) sortBy = "publishedAt";
+        Sort sort = Sort.by(Sort.Direction.fromString(Optional.ofNullable(sortDir).orElse("DESC")), sortBy);
+        return PageRequest.of(page, pageSize, sort);
+    }
+
+    /**
+     * The text query as a filter. Engines with a criteria form are matched in SQL next to the other
+     * filters; otherwise only the best max-hits ids are known, and a full list is reported as
+     * truncated because later filters and sorts may be missing matches beyond it.
+     */
+    private TextFilter textFilter(String q) {
+        if (q == null || q.isBlank()) return new TextFilter(null, false);
+        CriteriaTextMatch match = textSearch.criteria(q);
+        if (match != null) return new TextFilter(match.toSpecification(), false);
+        List<UUID> ids = textSearch.search(q, maxSearchHits);
+        return new TextFilter(RecipeSpecifications.idIn(ids), ids.size() >= maxSearchHits);
+    }
+
+    private Specification<Recipe> filterSpec(RecipeSearchRequest req) {
         UUID chefUuid = null;
-        if (chefId != null && !chefId.isBlank()) {
-            try { chefUuid = UUID.fromString(chefId); } catch (IllegalArgumentException ignored) {}
+        if (req.getChefId() != null && !req.getChefId().isBlank()) {
+            try { chefUuid = UUID.fromString(req.getChefId()); } catch (IllegalArgumentException ignored) {}
         }
 
-        Specification<Recipe> spec = RecipeSpecifications.combine(
-                RecipeSpecifications.keywordSearch(q),
-                RecipeSpecifications.publishedFrom(publishedFrom),
-                RecipeSpecifications.publishedTo(publishedTo),
+        List<String> labels = req.getLabels().stream().filter(l -> l != null && !l.isBlank()).toList();
+        return RecipeSpecifications.combine(
+                RecipeSpecifications.publishedFrom(req.getPublishedFrom()),
+                RecipeSpecifications.publishedTo(req.getPublishedTo()),
                 chefUuid == null ? null : RecipeSpecifications.byChefId(chefUuid),
-                RecipeSpecifications.byChefHandle(chefHandle)
+                RecipeSpecifications.byChefHandle(req.getChefHandle()),
+                "any".equalsIgnoreCase(req.getLabelMode())
+                        ? RecipeSpecifications.hasAnyLabel(labels)
+                        : RecipeSpecifications.hasAllLabels(labels)
         );
+    }
 
-        Page<Recipe> pageRes = recipeRepository.findAll(spec, pageable);
+    // text queries rank by relevance unless another order is asked for
+    private static boolean isRelevance(RecipeSearchRequest req) {
+        String sortBy = req.getSortBy();
+        return (sortBy == null || SORT_RELEVANCE.equalsIgnoreCase(sortBy)) && req.getQ() != null && !req.getQ().isBlank();
+    }
 
-        // map entities -> DTOs (simple mapping)
-        List<RecipeResponse> items = pageRes.stream().map(this::toDto).collect(Collectors.toList());
+    // label and chef counts over the whole result set, one grouped query each
+    private Map<String,Object> facets(Specification<Recipe> spec) {
+        Map<String,Object> facets = new LinkedHashMap<>();
+        facets.put("labels", recipeRepository.countByLabel(spec, FACET_LIMIT));
+        facets.put("chefs", recipeRepository.countByChefHandle(spec, FACET_LIMIT));
+        return facets;
+    }
+
+    // one page of text matches in rank order, narrowed by the remaining filters
+    private RankedPage rankedPage(RecipeSearchRequest req, Pageable pageable) {
+        Specification<Recipe> filter = filterSpec(req);
+        CriteriaTextMatch match = textSearch.criteria(req.getQ());
+        if (match != null) {
+            Specification<Recipe> all = RecipeSpecifications.combine(match.toSpecification(), filter);
+            return new RankedPage(recipeRepository.findRankedIds(all, match, pageable),
+                    recipeRepository.count(all), all, false);
+        }
+
+        List<UUID> ranked = textSearch.search(req.getQ(), maxSearchHits);
+        boolean truncated = ranked.size() >= maxSearchHits;
+        if (filter != null && !ranked.isEmpty()) {
+            Set<UUID> kept = new HashSet<>(recipeRepository.findIds(
+                    RecipeSpecifications.combine(RecipeSpecifications.idIn(ranked), filter)));
+            ranked = ranked.stream().filter(kept::contains).toList();
+        }
+        return new RankedPage(pageOf(ranked, pageable), ranked.size(), RecipeSpecifications.idIn(ranked), truncated);
+    }
+
+    private record TextFilter(Specification<Recipe> spec, boolean truncated) {}
 
+    // all is every match of the query and filters, for counts and facets
+    private record RankedPage(List<UUID> ids, long total, Specification<Recipe> all, boolean truncated) {}
+
+    private static List<UUID> pageOf(List<UUID> ids, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        return ids.subList(from, Math.min(from + pageable.getPageSize(), ids.size()));
+    }
+
+    private Map<String,Object> pageMeta(Page<?> pageRes) {
         Map<String,Object> meta = new HashMap<>();
         meta.put("page", pageRes.getNumber());
         meta.put("page_size", pageRes.getSize());
         meta.put("total_pages", pageRes.getTotalPages());
         meta.put("total_elements", pageRes.getTotalElements());
-
-        return new PagedResponse<>(meta, items);
+        return meta;
     }
 
-    private RecipeResponse toDto(Recipe r) {
-        RecipeResponse dto = new RecipeResponse();
-        dto.setId(r.getId());
-        dto.setTitle(r.getTitle());
-        dto.setSummary(r.getSummary());
-        dto.setIngredients(r.getIngredients());
-        dto.setSteps(r.getSteps());
-        dto.setLabels(r.getLabels());
-        dto.setPublished(r.isPublished());
-        dto.setPublishedAt(r.getPublishedAt());
-        dto.setChefId(r.getChef().getId().toString());
-        // map images minimally (filename/path)
-        dto.setImages(r.getImages().stream().map(img -> {
-            ImageInfoDto i = new ImageInfoDto();
-            i.setId(img.getId() == null ? null : img.getId().toString());
-            i.setFilename(img.getFilename());
-            i.setUrl(img.getPath());
-            i.setSizeLabel(img.getSizeLabel());
-            return i;
-        }).collect(Collectors.toList()));
-        return dto;
+    // results land in the current persistence context, initialising the collections of the given recipes
+    private void fetchAssociations(List<Recipe> recipes) {
+        if (recipes.isEmpty()) return;
+        List<UUID> ids = recipes.stream().map(Recipe::getId).toList();
+        recipeRepository.fetchChefAndLabels(ids);
+        recipeRepository.fetchImages(ids);
     }
-
-
 }
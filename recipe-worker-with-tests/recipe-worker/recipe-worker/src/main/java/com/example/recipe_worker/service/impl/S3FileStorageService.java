@@ -0,0 +1,338 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.service.BlobInfo;
+import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.service.ImageContentTypes;
+import com.example.recipe_worker.service.StorageLayout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Blob store on S3 or an S3-compatible object store, talking the REST API through one shared
+ * {@link HttpClient} (which keeps a pool of keep-alive connections). Keys follow {@link StorageLayout},
+ * so names and dedup behave as with {@link LocalFileStorageService}: an upload is hashed into a local
+ * temp file first and only sent when no object with that name exists. Large uploads go up as a
+ * multipart upload whose parts are sent in parallel, each streamed from its slice of the temp file.
+ */
+@Service
+@ConditionalOnProperty(name = "recipe-worker.storage.backend", havingValue = "s3")
+public class S3FileStorageService implements FileStorageService, DisposableBean {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final URI endpoint;
+    private final String bucket;
+    private final boolean pathStyle;
+    private final S3RequestSigner signer;
+    private final long partSize;
+    private final long multipartThreshold;
+    private final Duration requestTimeout;
+    private final Path stagingDir;
+    private final HttpClient http;
+    private final ExecutorService partUploads;
+
+    public S3FileStorageService(@Value("${recipe-worker.storage.s3.endpoint}") String endpoint,
+                                @Value("${recipe-worker.storage.s3.region:us-east-1}") String region,
+                                @Value("${recipe-worker.storage.s3.bucket}") String bucket,
+                                @Value("${recipe-worker.storage.s3.access-key}") String accessKey,
+                                @Value("${recipe-worker.storage.s3.secret-key}") String secretKey,
+                                @Value("${recipe-worker.storage.s3.path-style:true}") boolean pathStyle,
+                                @Value("${recipe-worker.storage.s3.part-size:8388608}") long partSize,
+                                @Value("${recipe-worker.storage.s3.multipart-threshold:16777216}") long multipartThreshold,
+                                @Value("${recipe-worker.storage.s3.upload-threads:8}") int uploadThreads,
+                                @Value("${recipe-worker.storage.s3.request-timeout-seconds:60}") long requestTimeoutSeconds,
+                                @Value("${recipe-worker.storage.staging-dir:./data/staging}") String stagingDir) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.pathStyle = pathStyle;
+        this.signer = new S3RequestSigner(region, accessKey, secretKey);
+        this.partSize = partSize;
+        this.multipartThreshold = multipartThreshold;
+        this.requestTimeout = Duration.ofSeconds(requestTimeoutSeconds);
+        this.stagingDir = Paths.get(stagingDir);
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicInteger threads = new AtomicInteger();
+        this.partUploads = Executors.newFixedThreadPool(uploadThreads, r -> {
+            Thread t = new Thread(r, "s3-upload-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            Files.createDirectories(this.stagingDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create staging directory: " + stagingDir, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        partUploads.shutdownNow();
+    }
+
+    @Override
+    public String store(byte[] data, String filename) {
+        return store(new ByteArrayInputStream(data), filename);
+    }
+
+    @Override
+    public String store(InputStream in, String filename) {
+        return store(Channels.newChannel(in), filename);
+    }
+
+    @Override
+    public String store(ReadableByteChannel in, String filename) {
+        Path temp = stagingDir.resolve(UUID.randomUUID() + ".part");
+        try {
+            String hash;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                hash = LocalFileStorageService.copyAndHash(in, out);
+            }
+            String storedName = hash + LocalFileStorageService.extension(filename);
+            String key = StorageLayout.key(storedName);
+            if (head(storedName).isEmpty()) {
+                long size = Files.size(temp);
+                if (size < multipartThreshold) {
+                    putObject(key, storedName, temp, hash);
+                } else {
+                    putMultipart(key, storedName, temp, size);
+                }
+            }
+            return "s3://" + bucket + "/" + key;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file: " + filename, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> head(String storedName) throws IOException {
+        HttpResponse<Void> response = send("HEAD", StorageLayout.key(storedName), null, Map.of(),
+                BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD, BodyHandlers.discarding());
+        if (response.statusCode() == 404) return Optional.empty();
+        check(response, "HEAD " + storedName);
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(0);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(v -> ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return Optional.of(new BlobInfo(length, lastModified, null));
+    }
+
+    @Override
+    public InputStream get(String storedName, long start, long end) throws IOException {
+        HttpResponse<InputStream> response = send("GET", StorageLayout.key(storedName), null,
+                Map.of("Range", "bytes=" + start + "-" + end), BodyPublishers.noBody(),
+                S3RequestSigner.EMPTY_PAYLOAD, BodyHandlers.ofInputStream());
+        InputStream body = response.body();
+        if (response.statusCode() == 404) {
+            body.close();
+            throw new NoSuchFileException(storedName);
+        }
+        if (response.statusCode() == 206) return body;
+        if (response.statusCode() != 200) {
+            body.close();
+            throw new IOException("GET " + storedName + " failed with HTTP " + response.statusCode());
+        }
+        // the range was ignored and the whole object is coming: cut the range out ourselves
+        body.skipNBytes(start);
+        return new RangeInputStream(body, end - start + 1);
+    }
+
+    @Override
+    public void delete(String storedName) throws IOException {
+        HttpResponse<Void> response = send("DELETE", StorageLayout.key(storedName), null, Map.of(),
+                BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD, BodyHandlers.discarding());
+        if (response.statusCode() != 404) check(response, "DELETE " + storedName);
+    }
+
+    /**
+     * The signing time is rounded down to a multiple of half the ttl, so every request in that window
+     * gets the same URL (browsers and CDNs can cache it) and the URL stays valid for at least ttl/2.
+     */
+    @Override
+    public Optional<URI> presignedGetUrl(String storedName, Duration ttl) {
+        long window = Math.max(1, ttl.toSeconds() / 2);
+        Instant signedAt = Instant.ofEpochSecond(Instant.now().getEpochSecond() / window * window);
+        return Optional.of(signer.presign("GET", objectUri(StorageLayout.key(storedName), null), ttl, signedAt));
+    }
+
+    private void putObject(String key, String storedName, Path file, String hash) throws IOException {
+        // the content hash is the payload hash, so the store verifies what it received
+        HttpResponse<Void> response = send("PUT", key, null, objectHeaders(storedName),
+                BodyPublishers.ofFile(file), hash, BodyHandlers.discarding());
+        check(response, "PUT " + key);
+    }
+
+    private void putMultipart(String key, String storedName, Path file, long size) throws IOException {
+        HttpResponse<String> created = send("POST", key, "uploads=", objectHeaders(storedName),
+                BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD, BodyHandlers.ofString());
+        check(created, "create multipart upload for " + key);
+        Matcher m = UPLOAD_ID.matcher(created.body());
+        if (!m.find()) throw new IOException("No UploadId for " + key);
+        String uploadId = m.group(1);
+
+        int parts = (int) ((size + partSize - 1) / partSize);
+        List<Future<String>> etags = new ArrayList<>(parts);
+        try {
+            for (int i = 0; i < parts; i++) {
+                int partNumber = i + 1;
+                long offset = i * partSize;
+                long length = Math.min(partSize, size - offset);
+                etags.add(partUploads.submit(() -> uploadPart(key, uploadId, partNumber, file, offset, length)));
+            }
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < parts; i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(await(etags.get(i)).replace("\"", "&quot;")).append("</ETag></Part>");
+            }
+            xml.append("</CompleteMultipartUpload>");
+            byte[] body = xml.toString().getBytes(StandardCharsets.UTF_8);
+            HttpResponse<String> completed = send("POST", key, "uploadId=" + S3RequestSigner.encode(uploadId), Map.of(),
+                    BodyPublishers.ofByteArray(body), sha256Hex(body), BodyHandlers.ofString());
+            check(completed, "complete multipart upload for " + key);
+            // S3 may report a failed completion inside a 200 response
+            if (completed.body().contains("<Error>")) throw new IOException("Completing multipart upload for " + key + " failed");
+        } catch (IOException | RuntimeException e) {
+            etags.forEach(f -> f.cancel(true));
+            abortMultipart(key, uploadId);
+            throw e;
+        }
+    }
+
+    private String uploadPart(String key, String uploadId, int partNumber, Path file, long offset, long length)
+            throws IOException {
+        BodyPublisher body = BodyPublishers.fromPublisher(BodyPublishers.ofInputStream(() -> {
+            try {
+                return LocalFileStorageService.openRange(file, offset, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }), length);
+        HttpResponse<Void> response = send("PUT", key,
+                "partNumber=" + partNumber + "&uploadId=" + S3RequestSigner.encode(uploadId), Map.of(),
+                body, S3RequestSigner.UNSIGNED_PAYLOAD, BodyHandlers.discarding());
+        check(response, "upload part " + partNumber + " of " + key);
+        return response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IOException("No ETag for part " + partNumber + " of " + key));
+    }
+
+    // leaves no billed parts behind; failures here are secondary to the one being reported
+    private void abortMultipart(String key, String uploadId) {
+        try {
+            send("DELETE", key, "uploadId=" + S3RequestSigner.encode(uploadId), Map.of(),
+                    BodyPublishers.noBody(), S3RequestSigner.EMPTY_PAYLOAD, BodyHandlers.discarding());
+        } catch (IOException ignored) {
+        }
+    }
+
+    private <T> HttpResponse<T> send(String method, String key, String query, Map<String, String> headers,
+                                     BodyPublisher body, String payloadHash, BodyHandler<T> handler) throws IOException {
+        URI uri = objectUri(key, query);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(requestTimeout).method(method, body);
+        headers.forEach(request::header);
+        signer.sign(method, uri, headers, payloadHash, Instant.now()).forEach(request::header);
+        try {
+            return http.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(method + " " + key + " interrupted");
+        }
+    }
+
+    private URI objectUri(String key, String query) {
+        StringBuilder path = new StringBuilder();
+        for (String segment : key.split("/")) path.append('/').append(S3RequestSigner.encode(segment));
+        String authority = endpoint.getRawAuthority();
+        if (pathStyle) {
+            path.insert(0, "/" + S3RequestSigner.encode(bucket));
+        } else {
+            authority = bucket + "." + authority;
+        }
+        return URI.create(endpoint.getScheme() + "://" + authority + endpoint.getRawPath() + path
+                + (query == null ? "" : "?" + query));
+    }
+
+    // sent with the object so direct reads from the store get the same headers as ours
+    private static Map<String, String> objectHeaders(String storedName) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        // presigned GETs are answered by the store, so it must hold the same type the service sends
+        Optional<String> imageType = ImageContentTypes.imageType(storedName);
+        headers.put("Content-Type", imageType.orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE));
+        if (imageType.isEmpty()) headers.put("Content-Disposition", "attachment");
+        headers.put("Cache-Control", IMMUTABLE_CACHE_CONTROL);
+        return headers;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for part upload");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("part upload failed", e.getCause());
+        }
+    }
+
+    private static void check(HttpResponse<?> response, String action) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(action + " failed with HTTP " + response.statusCode());
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        return HexFormat.of().formatHex(LocalFileStorageService.sha256().digest(data));
+    }
+}
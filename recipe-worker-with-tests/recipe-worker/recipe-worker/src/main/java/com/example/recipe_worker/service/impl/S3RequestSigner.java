@@ -0,0 +1,172 @@
+package com.example.recipe_worker.service.impl;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * AWS Signature Version 4 for the S3 API, as accepted by S3 and the S3-compatible stores
+ * (MinIO, Ceph, R2, ...). Signs request headers for API calls and query strings for presigned URLs.
+ */
+class S3RequestSigner {
+
+    static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    static final String EMPTY_PAYLOAD = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+
+    S3RequestSigner(String region, String accessKey, String secretKey) {
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+    }
+
+    static String amzDate(Instant time) {
+        return AMZ_DATE.format(time);
+    }
+
+    /**
+     * Headers to add to the request: x-amz-date, x-amz-content-sha256 and Authorization. The
+     * signature covers these, the Host and the given extra headers, which must be sent as they are.
+     */
+    Map<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash, Instant time) {
+        String amzDate = amzDate(time);
+        Map<String, String> signed = new TreeMap<>();
+        headers.forEach((k, v) -> signed.put(k.toLowerCase(Locale.ROOT), v.trim()));
+        signed.put("host", host(uri));
+        signed.put("x-amz-content-sha256", payloadHash);
+        signed.put("x-amz-date", amzDate);
+
+        String signedHeaders = String.join(";", signed.keySet());
+        String canonicalRequest = canonicalRequest(method, uri, canonicalQuery(uri.getRawQuery()), signed,
+                signedHeaders, payloadHash);
+        String signature = signature(amzDate, canonicalRequest);
+
+        Map<String, String> result = new TreeMap<>();
+        result.put("x-amz-date", amzDate);
+        result.put("x-amz-content-sha256", payloadHash);
+        result.put("Authorization", ALGORITHM + " Credential=" + accessKey + "/" + scope(amzDate)
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature);
+        return result;
+    }
+
+    /** uri with the X-Amz-* query parameters that let anyone holding it GET the object until expiry. */
+    URI presign(String method, URI uri, Duration ttl, Instant time) {
+        String amzDate = amzDate(time);
+        Map<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope(amzDate));
+        query.put("X-Amz-Date", amzDate);
+        query.put("X-Amz-Expires", Long.toString(ttl.toSeconds()));
+        query.put("X-Amz-SignedHeaders", "host");
+        StringBuilder rawQuery = new StringBuilder();
+        query.forEach((k, v) -> rawQuery.append(rawQuery.isEmpty() ? "" : "&").append(encode(k)).append('=').append(encode(v)));
+
+        Map<String, String> headers = Map.of("host", host(uri));
+        String canonicalRequest = canonicalRequest(method, uri, rawQuery.toString(), headers, "host", UNSIGNED_PAYLOAD);
+        String signature = signature(amzDate, canonicalRequest);
+        return URI.create(uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath()
+                + "?" + rawQuery + "&X-Amz-Signature=" + signature);
+    }
+
+    private String canonicalRequest(String method, URI uri, String canonicalQuery, Map<String, String> headers,
+                                    String signedHeaders, String payloadHash) {
+        StringBuilder canonicalHeaders = new StringBuilder();
+        new TreeMap<>(headers).forEach((k, v) -> canonicalHeaders.append(k).append(':').append(v).append('\n'));
+        return method + "\n" + canonicalPath(uri.getRawPath()) + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+    }
+
+    private String signature(String amzDate, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope(amzDate) + "\n"
+                + HexFormat.of().formatHex(LocalFileStorageService.sha256().digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), amzDate.substring(0, 8));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign));
+    }
+
+    private String scope(String amzDate) {
+        return amzDate.substring(0, 8) + "/" + region + "/" + SERVICE + "/aws4_request";
+    }
+
+    // what HttpClient sends as Host: the port only when the URI names one
+    private static String host(URI uri) {
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    // S3 paths are encoded once, keeping '/'
+    private static String canonicalPath(String rawPath) {
+        if (rawPath == null || rawPath.isEmpty()) return "/";
+        String[] segments = rawPath.split("/", -1);
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) path.append('/');
+            path.append(encode(decode(segments[i])));
+        }
+        return path.toString();
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) return "";
+        List<String> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            int eq = param.indexOf('=');
+            String name = eq < 0 ? param : param.substring(0, eq);
+            String value = eq < 0 ? "" : param.substring(eq + 1);
+            params.add(encode(decode(name)) + "=" + encode(decode(value)));
+        }
+        params.sort(null);
+        return String.join("&", params);
+    }
+
+    /** RFC 3986 percent-encoding of everything but the unreserved characters. */
+    static String encode(String value) {
+        StringBuilder out = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                out.append(c);
+            } else {
+                out.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return out.toString();
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.repository.ImageRepository;
+import com.example.recipe_worker.service.StorageLayout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Deletes content-addressed blobs that no image row refers to. The reference count of each blob is
+ * read from {@code image_entity} when it is considered, so rows removed by any path (orphan removal,
+ * recipe delete, failed jobs) are accounted for without a counter that could drift.
+ * Blobs modified within the grace period are never touched: a store reusing a blob refreshes its
+ * mtime before the referencing row commits. A candidate is first renamed into a trash directory,
+ * so a store touching it afterwards finds it gone and places a fresh copy; the references and the
+ * mtime are then checked once more and the blob is put back if either changed.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.storage.backend", havingValue = "local", matchIfMissing = true)
+public class StorageGarbageCollector implements InitializingBean, DisposableBean {
+
+    // blobs taken out of the tree while their last checks run
+    static final String TRASH_DIR = ".trash";
+
+    private final Logger log = LoggerFactory.getLogger(StorageGarbageCollector.class);
+
+    private final ImageRepository imageRepository;
+    private final Path baseDir;
+    private final long intervalSeconds;
+    private final long graceMillis;
+    private final int batchSize;
+    private final ScheduledExecutorService collector = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "storage-gc");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public StorageGarbageCollector(ImageRepository imageRepository,
+                                   @Value("${recipe-worker.storage.base-dir:./data/storage}") String baseDir,
+                                   @Value("${recipe-worker.storage.gc.interval-seconds:3600}") long intervalSeconds,
+                                   @Value("${recipe-worker.storage.gc.grace-seconds:3600}") long graceSeconds,
+                                   @Value("${recipe-worker.storage.gc.batch-size:500}") int batchSize) {
+        this.imageRepository = imageRepository;
+        this.baseDir = Paths.get(baseDir);
+        this.intervalSeconds = intervalSeconds;
+        this.graceMillis = TimeUnit.SECONDS.toMillis(graceSeconds);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (intervalSeconds > 0) {
+            collector.scheduleWithFixedDelay(this::collectQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        collector.shutdownNow();
+    }
+
+    /** One pass over the blob tree and the temp directory; returns the number of files deleted. */
+    public int collect() throws IOException {
+        long cutoff = System.currentTimeMillis() - graceMillis;
+        int deleted = deleteStaleTempFiles(cutoff);
+        if (!Files.isDirectory(baseDir)) return deleted;
+        restoreTrash();
+
+        // shard directories only: legacy flat files are outside the content-addressed layout
+        try (Stream<Path> files = Files.walk(baseDir, 3)) {
+            Iterator<Path> it = files
+                    .filter(p -> baseDir.relativize(p).getNameCount() == 3)
+                    .filter(p -> StorageLayout.isContentAddressed(p.getFileName().toString()))
+                    .iterator();
+            List<Path> batch = new ArrayList<>(batchSize);
+            while (it.hasNext()) {
+                Path blob = it.next();
+                if (modifiedBefore(blob, cutoff)) batch.add(blob);
+                if (batch.size() == batchSize || (!it.hasNext() && !batch.isEmpty())) {
+                    deleted += deleteUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return deleted;
+    }
+
+    private int deleteUnreferenced(List<Path> blobs, long cutoff) throws IOException {
+        List<String> names = blobs.stream().map(p -> p.getFileName().toString()).toList();
+        Set<String> referenced = new HashSet<>(imageRepository.findReferencedStoredNames(names));
+        int deleted = 0;
+        List<Path> trashed = new ArrayList<>();
+        for (Path blob : blobs) {
+            if (referenced.contains(blob.getFileName().toString())) continue;
+            // reused since the batch was read: a new row is about to refer to it
+            if (!modifiedBefore(blob, cutoff)) continue;
+            Path trash = moveToTrash(blob);
+            if (trash != null) trashed.add(trash);
+        }
+        if (trashed.isEmpty()) return 0;
+
+        // a store may have touched a blob between the checks above and its move
+        Set<String> stillReferenced = new HashSet<>(imageRepository.findReferencedStoredNames(
+                trashed.stream().map(p -> p.getFileName().toString()).toList()));
+        for (Path trash : trashed) {
+            String name = trash.getFileName().toString();
+            if (stillReferenced.contains(name) || !modifiedBefore(trash, cutoff)) {
+                restore(trash);
+            } else if (Files.deleteIfExists(trash)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private Path moveToTrash(Path blob) throws IOException {
+        Path trash = baseDir.resolve(TRASH_DIR);
+        Files.createDirectories(trash);
+        try {
+            return Files.move(blob, trash.resolve(blob.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // content-addressed: if a store placed a new copy meanwhile, the bytes are the same either way
+    private void restore(Path trash) throws IOException {
+        Path target = StorageLayout.resolve(baseDir, trash.getFileName().toString());
+        Files.createDirectories(target.getParent());
+        Files.move(trash, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // blobs left in the trash by an interrupted pass go back and are judged again
+    private void restoreTrash() throws IOException {
+        Path trash = baseDir.resolve(TRASH_DIR);
+        if (!Files.isDirectory(trash)) return;
+        try (Stream<Path> files = Files.list(trash)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (StorageLayout.isContentAddressed(p.getFileName().toString())) restore(p);
+            }
+        }
+    }
+
+    // uploads interrupted by a crash or a failed store
+    private int deleteStaleTempFiles(long cutoff) throws IOException {
+        Path temp = baseDir.resolve(LocalFileStorageService.TEMP_DIR);
+        if (!Files.isDirectory(temp)) return 0;
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(temp)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                if (modifiedBefore(p, cutoff) && Files.deleteIfExists(p)) deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean modifiedBefore(Path file, long cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < cutoff;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void collectQuietly() {
+        try {
+            int deleted = collect();
+            if (deleted > 0) log.info("Storage GC removed {} unreferenced files", deleted);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Storage GC failed", ex);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.domain.Specification;
 
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.UUID;
 
@@ -35,42 +37,56 @@ public final class RecipeSpecifications {
 
     public static Specification<Recipe> byChefId(UUID chefId) {
         if (chefId == null) return null;
-        return (root, query, cb) -> cb.equal(root.get("chefId"), chefId);
+        return (root, query, cb) -> cb.equal(root.get("chef").get("id"), chefId);
     }
 
     public static Specification<Recipe> byChefHandle(String handle) {
         if (handle == null || handle.isBlank()) return null;
-        // assuming Recipe has a chef handle — if not, you'll need to join Chef entity
-        return (root, query, cb) -> cb.equal(cb.lower(root.get("chefHandle")), handle.toLowerCase(Locale.ROOT));
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("chef").get("handle")), handle.toLowerCase(Locale.ROOT));
     }
 
-    public static Specification<Recipe> keywordSearch(String q) {
-        if (q == null || q.isBlank()) return null;
-        String like = "%" + q.toLowerCase(Locale.ROOT) + "%";
-        return (root, query, cb) -> {
-            // ensure distinct results because of joins
-            query.distinct(true);
+    // one EXISTS per label, so matching rows are never multiplied by their labels
+    public static Specification<Recipe> hasAllLabels(Collection<String> labels) {
+        if (labels == null || labels.isEmpty()) return null;
+        return (root, query, cb) -> cb.and(labels.stream()
+                .map(label -> cb.exists(labelSubquery(root, query, cb, List.of(label))))
+                .toArray(Predicate[]::new));
+    }
+
+    public static Specification<Recipe> hasAnyLabel(Collection<String> labels) {
+        if (labels == null || labels.isEmpty()) return null;
+        return (root, query, cb) -> cb.exists(labelSubquery(root, query, cb, labels));
+    }
 
-            // title & summary
-            Predicate pTitle = cb.like(cb.lower(root.get("title")), like);
-            Predicate pSummary = cb.like(cb.lower(root.get("summary")), like);
+    // labels compare case-insensitively
+    private static Subquery<Integer> labelSubquery(Root<Recipe> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+                                                   Collection<String> labels) {
+        Subquery<Integer> sq = query.subquery(Integer.class);
+        Root<Recipe> r = sq.correlate(root);
+        Join<Recipe, String> label = r.join("labels");
+        sq.select(cb.literal(1))
+          .where(cb.lower(label).in(labels.stream().map(l -> l.toLowerCase(Locale.ROOT)).toList()));
+        return sq;
+    }
 
-            // join ingredients (ElementCollection)
-            Predicate pIngredients = cb.literal(false).isNotNull();
-            Predicate pSteps = cb.literal(false).isNotNull();
-            try {
-                Join<Recipe, String> ingJoin = root.join("ingredients", JoinType.LEFT);
-                pIngredients = cb.like(cb.lower(ingJoin), like);
-            } catch (IllegalArgumentException ignored) {
-                // field may not exist — ignore
-            }
+    // ids come from the full-text index; an empty list matches nothing
+    public static Specification<Recipe> idIn(Collection<UUID> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
 
-            try {
-                Join<Recipe, String> stepJoin = root.join("steps", JoinType.LEFT);
-                pSteps = cb.like(cb.lower(stepJoin), like);
-            } catch (IllegalArgumentException ignored) { }
+    public static Specification<Recipe> hasPublishedAt() {
+        return (root, query, cb) -> cb.isNotNull(root.get("publishedAt"));
+    }
 
-            return cb.or(pTitle, pSummary, pIngredients, pSteps);
+    // rows strictly after (publishedAt, id) in the given direction; matches ORDER BY publishedAt, id
+    public static Specification<Recipe> keysetAfter(Instant publishedAt, UUID id, boolean descending) {
+        if (publishedAt == null || id == null) return null;
+        return (root, query, cb) -> {
+            Path<Instant> at = root.get("publishedAt");
+            Path<UUID> rid = root.get("id");
+            return descending
+                    ? cb.or(cb.lessThan(at, publishedAt), cb.and(cb.equal(at, publishedAt), cb.lessThan(rid, id)))
+                    : cb.or(cb.greaterThan(at, publishedAt), cb.and(cb.equal(at, publishedAt), cb.greaterThan(rid, id)));
         };
     }
 
@@ -0,0 +1,70 @@
+package com.example.recipe_worker.verification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Single-instance store: Caffeine's timer wheel expires each token at its own deadline (with a
+ * scheduler, so they go even when nobody reads), and a hard size cap bounds memory under a signup
+ * flood by evicting tokens early. Tokens do not survive a restart and are not shared between replicas.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.verification.store", havingValue = "in-memory")
+public class InMemoryVerificationTokenStore implements VerificationTokenStore {
+
+    private final Cache<String, Entry> tokens;
+
+    public InMemoryVerificationTokenStore(@Value("${recipe-worker.verification.max-tokens:100000}") long maxTokens) {
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfter(new UntilDeadline())
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @Override
+    public void put(String token, String email, Instant expiresAt) {
+        tokens.put(token, new Entry(email, expiresAt));
+    }
+
+    @Override
+    public Optional<String> consume(String token) {
+        Entry entry = tokens.asMap().remove(token);
+        if (entry == null || !Instant.now().isBefore(entry.expiresAt())) return Optional.empty();
+        return Optional.of(entry.email());
+    }
+
+    // number of live entries, for tests and diagnostics
+    long size() {
+        tokens.cleanUp();
+        return tokens.estimatedSize();
+    }
+
+    private record Entry(String email, Instant expiresAt) {}
+
+    private static final class UntilDeadline implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return Math.max(0, value.expiresAt().toEpochMilli() - Instant.now().toEpochMilli()) * 1_000_000L;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
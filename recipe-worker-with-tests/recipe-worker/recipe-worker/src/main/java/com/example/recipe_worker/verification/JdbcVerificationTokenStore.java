@@ -0,0 +1,111 @@
+package com.example.recipe_worker.verification;
+
+import com.example.recipe_worker.entity.VerificationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens in {@code verification_token} (mapped by {@link VerificationToken}), shared by every replica
+ * and kept across restarts. Only the token's SHA-256 is stored. Expired rows are purged in batches on a fixed delay using the index on
+ * {@code expires_at}; consume also checks the deadline, so purge timing never extends a token's life.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.verification.store", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcVerificationTokenStore implements VerificationTokenStore, InitializingBean, DisposableBean {
+
+    private final Logger log = LoggerFactory.getLogger(JdbcVerificationTokenStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int purgeBatchSize;
+    private final long purgeIntervalSeconds;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "verification-token-purge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public JdbcVerificationTokenStore(JdbcTemplate jdbcTemplate,
+                                      @Value("${recipe-worker.verification.purge-batch-size:1000}") int purgeBatchSize,
+                                      @Value("${recipe-worker.verification.purge-interval-seconds:60}") long purgeIntervalSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.purgeBatchSize = purgeBatchSize;
+        this.purgeIntervalSeconds = purgeIntervalSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        purger.scheduleWithFixedDelay(this::purgeQuietly, purgeIntervalSeconds, purgeIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        purger.shutdownNow();
+    }
+
+    @Override
+    public void put(String token, String email, Instant expiresAt) {
+        jdbcTemplate.update("insert into verification_token (token_hash, email, expires_at) values (?, ?, ?)",
+                hash(token), email, Timestamp.from(expiresAt));
+    }
+
+    @Override
+    public Optional<String> consume(String token) {
+        String key = hash(token);
+        List<String> emails = jdbcTemplate.queryForList(
+                "select email from verification_token where token_hash = ? and expires_at > ?",
+                String.class, key, Timestamp.from(Instant.now()));
+        if (emails.isEmpty()) return Optional.empty();
+        // only the replica whose delete removes the row gets to use the token
+        int deleted = jdbcTemplate.update("delete from verification_token where token_hash = ?", key);
+        return deleted == 1 ? Optional.of(emails.get(0)) : Optional.empty();
+    }
+
+    /** Deletes expired rows a batch at a time, so a backlog never becomes one long lock-holding delete. */
+    public int purgeExpired() {
+        Timestamp now = Timestamp.from(Instant.now());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("delete from verification_token where token_hash in (" +
+                    "select token_hash from verification_token where expires_at <= ? limit ?)", now, purgeBatchSize);
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+
+    private void purgeQuietly() {
+        try {
+            int purged = purgeExpired();
+            if (purged > 0) log.debug("Purged {} expired verification tokens", purged);
+        } catch (RuntimeException ex) {
+            log.warn("Verification token purge failed", ex);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.recipe_worker.verification;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Email verification tokens. Expired tokens are dropped by the store itself, so nothing has to
+ * be verified for its token to be released.
+ */
+public interface VerificationTokenStore {
+
+    void put(String token, String email, Instant expiresAt);
+
+    /** Removes the token and returns its email; empty when unknown, expired or already used. */
+    Optional<String> consume(String token);
+}
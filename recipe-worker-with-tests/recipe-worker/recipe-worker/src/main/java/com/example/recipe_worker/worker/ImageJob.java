@@ -0,0 +1,11 @@
+package com.example.recipe_worker.worker;
+
+import java.util.UUID;
+
+/**
+ * One image waiting to be processed. The {@code imageId} row already exists in PENDING state
+ * when the job is published, and the upload is already in the shared file store under
+ * {@code storedPath}, so any instance can take the job; the worker generates the variants
+ * and flips the row to READY.
+ */
+public record ImageJob(UUID imageId, UUID recipeId, String filename, String mimeType, String storedPath) {}
@@ -0,0 +1,6 @@
+package com.example.recipe_worker.worker;
+
+public interface ImageJobPublisher {
+
+    void publish(ImageJob job);
+}
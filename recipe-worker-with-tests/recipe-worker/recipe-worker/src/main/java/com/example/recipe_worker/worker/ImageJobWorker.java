@@ -0,0 +1,144 @@
+package com.example.recipe_worker.worker;
+
+import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.ImageStatus;
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.repository.ImageRepository;
+import com.example.recipe_worker.repository.RecipeRepository;
+import com.example.recipe_worker.service.BlobInfo;
+import com.example.recipe_worker.service.FileStorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes image jobs regardless of transport (RabbitMQ listener or in-memory executor).
+ * The upload is read back from the shared file store, so the job may run on any instance. Transcoding
+ * and variant writes happen outside any transaction; only the row updates touch the DB.
+ */
+@Component
+public class ImageJobWorker {
+
+    public static final String ORIGINAL_SIZE_LABEL = "original";
+
+    private final Logger log = LoggerFactory.getLogger(ImageJobWorker.class);
+
+    private final ImageRepository imageRepository;
+    private final RecipeRepository recipeRepository;
+    private final FileStorageService fileStorageService;
+    private final ThumbnailGenerator thumbnailGenerator;
+    private final ImageStagingArea stagingArea;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ImageJobWorker(ImageRepository imageRepository, RecipeRepository recipeRepository,
+                          FileStorageService fileStorageService, ThumbnailGenerator thumbnailGenerator,
+                          ImageStagingArea stagingArea, TransactionTemplate transactionTemplate,
+                          ApplicationEventPublisher eventPublisher) {
+        this.imageRepository = imageRepository;
+        this.recipeRepository = recipeRepository;
+        this.fileStorageService = fileStorageService;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.stagingArea = stagingArea;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void process(ImageJob job) {
+        try {
+            processStored(job);
+        } finally {
+            eventPublisher.publishEvent(new RecipeImagesChangedEvent(job.recipeId()));
+        }
+    }
+
+    private void processStored(ImageJob job) {
+        String storedName = storedName(job.storedPath());
+        Path local;
+        boolean downloaded;
+        try {
+            BlobInfo blob = fileStorageService.head(storedName)
+                    .orElseThrow(() -> new NoSuchFileException(storedName));
+            downloaded = blob.localFile() == null;
+            // remote backends: the decoder needs a file, so fetch a scratch copy for this job only
+            local = downloaded ? stagingArea.stage(() -> fileStorageService.get(storedName, 0, blob.length() - 1))
+                    : blob.localFile();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Image job {} for recipe {} failed", job.imageId(), job.recipeId(), ex);
+            imageRepository.markProcessed(job.imageId(), null, null, null, ImageStatus.FAILED);
+            return;
+        }
+
+        // a missing variant only costs bandwidth, so the original becomes READY either way
+        List<ImageEntity> variants = List.of();
+        try {
+            variants = storeVariants(job, local);
+        } catch (ImageRejectedException ex) {
+            log.warn("Image {} of recipe {} rejected: {}", job.imageId(), job.recipeId(), ex.getMessage());
+            // unreferenced from now on, so the storage collector removes the blob unless another row shares it
+            imageRepository.markProcessed(job.imageId(), null, null, null, ImageStatus.FAILED);
+            return;
+        } catch (RuntimeException ex) {
+            log.error("Transcoding image {} for recipe {} failed", job.imageId(), job.recipeId(), ex);
+        } finally {
+            if (downloaded) stagingArea.discard(local);
+        }
+
+        int updated;
+        if (variants.isEmpty()) {
+            updated = markReady(job);
+        } else {
+            // committed together: once its name is visible an image never gains variants, so responses
+            // negotiated from it can be cached for good
+            List<ImageEntity> ready = variants;
+            Integer n = transactionTemplate.execute(status -> {
+                int marked = markReady(job);
+                if (marked > 0) {
+                    Recipe recipe = recipeRepository.getReferenceById(job.recipeId());
+                    ready.forEach(v -> v.setRecipe(recipe));
+                    imageRepository.saveAll(ready);
+                }
+                return marked;
+            });
+            updated = n == null ? 0 : n;
+        }
+        if (updated == 0) {
+            log.warn("Image {} of recipe {} was removed before processing finished", job.imageId(), job.recipeId());
+        }
+    }
+
+    private int markReady(ImageJob job) {
+        return imageRepository.markProcessed(job.imageId(), job.storedPath(), storedName(job.storedPath()),
+                ORIGINAL_SIZE_LABEL, ImageStatus.READY);
+    }
+
+    private List<ImageEntity> storeVariants(ImageJob job, Path staged) {
+        List<ImageEntity> variants = new ArrayList<>();
+        for (ThumbnailGenerator.Thumbnail t : thumbnailGenerator.generate(staged, job.filename())) {
+            String storedPath = fileStorageService.store(t.data(), t.filename());
+            ImageEntity v = new ImageEntity();
+            v.setOriginalId(job.imageId());
+            v.setFilename(job.filename());
+            v.setPath(storedPath);
+            v.setStoredName(storedName(storedPath));
+            v.setSizeLabel(t.sizeLabel());
+            v.setFormat(t.format());
+            v.setStatus(ImageStatus.READY);
+            variants.add(v);
+        }
+        return variants;
+    }
+
+    private static String storedName(String storedPath) {
+        return Paths.get(storedPath).getFileName().toString();
+    }
+}
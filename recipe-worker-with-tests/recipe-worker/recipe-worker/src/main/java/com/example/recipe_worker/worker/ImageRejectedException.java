@@ -0,0 +1,9 @@
+package com.example.recipe_worker.worker;
+
+/** Thrown for uploads the worker refuses to process; the image is marked FAILED rather than retried. */
+public class ImageRejectedException extends RuntimeException {
+
+    public ImageRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.recipe_worker.worker;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Node-local scratch directory: uploads pass through it on their way into the file store, and the
+ * image worker keeps a copy of a remote blob here while decoding it. Nothing outlives the request
+ * or job that staged it, and nothing here reads a whole upload into heap.
+ */
+@Component
+public class ImageStagingArea {
+
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    @Value("${recipe-worker.storage.staging-dir:./data/staging}")
+    private String stagingDir;
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(Paths.get(stagingDir));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create staging directory: " + stagingDir, e);
+        }
+    }
+
+    public Path stage(InputStreamSource source) {
+        Path target = newStagingFile();
+        try {
+            if (source instanceof MultipartFile file) {
+                // the container has usually spooled the part to disk already; this is then a rename
+                file.transferTo(target);
+            } else {
+                try (InputStream in = source.getInputStream()) {
+                    write(Channels.newChannel(in), target);
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            discard(target);
+            throw new RuntimeException("Failed to stage upload", e);
+        }
+    }
+
+    // decodes while copying, so only the encoded string (already parsed from JSON) is in heap
+    public Path stageBase64(String dataBase64) {
+        Path target = newStagingFile();
+        try (InputStream in = Base64.getMimeDecoder().wrap(new CharSequenceInputStream(dataBase64))) {
+            write(Channels.newChannel(in), target);
+            return target;
+        } catch (IOException | IllegalArgumentException e) {
+            discard(target);
+            throw new RuntimeException("Failed to stage base64 upload", e);
+        }
+    }
+
+    public void discard(Path staged) {
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private Path newStagingFile() {
+        return Paths.get(stagingDir).resolve(UUID.randomUUID() + ".upload").toAbsolutePath();
+    }
+
+    private static void write(ReadableByteChannel in, Path target) throws IOException {
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long n;
+            while ((n = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                position += n;
+            }
+        }
+    }
+
+    /** Reads an ASCII char sequence as bytes without copying it into a byte[] first. */
+    private static final class CharSequenceInputStream extends InputStream {
+        private final CharSequence chars;
+        private int pos;
+
+        CharSequenceInputStream(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read() {
+            return pos < chars.length() ? chars.charAt(pos++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            int remaining = chars.length() - pos;
+            if (remaining <= 0) return -1;
+            int n = Math.min(len, remaining);
+            for (int i = 0; i < n; i++) {
+                b[off + i] = (byte) chars.charAt(pos++);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.recipe_worker.worker;
+
+import com.example.recipe_worker.dto.ImageUploadDto;
+import com.example.recipe_worker.service.FileStorageService;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Moves upload bytes into the shared file store ahead of the recipe transaction, so hashing, fsync
+ * and remote PUTs never run while a connection is held. Each upload is left carrying only its
+ * stored path; anything stored for a request that then fails is unreferenced and collected.
+ */
+@Component
+public class ImageUploadStore {
+
+    private final ImageStagingArea stagingArea;
+    private final FileStorageService fileStorageService;
+
+    public ImageUploadStore(ImageStagingArea stagingArea, FileStorageService fileStorageService) {
+        this.stagingArea = stagingArea;
+        this.fileStorageService = fileStorageService;
+    }
+
+    public void storeAll(List<ImageUploadDto> uploads) {
+        if (uploads == null) return;
+        for (ImageUploadDto im : uploads) {
+            if (im.getStoredPath() != null) continue;
+            String storedPath = store(im);
+            if (storedPath == null) continue;
+            im.setStoredPath(storedPath);
+            // the bytes are not needed any more; drop the (possibly large) base64 string
+            im.setSource(null);
+            im.setDataBase64(null);
+        }
+    }
+
+    // staged first: a multipart part is usually just renamed, and base64 is decoded while copying
+    private String store(ImageUploadDto im) {
+        Path staged = stage(im);
+        if (staged == null) return null;
+        try (FileChannel in = FileChannel.open(staged, StandardOpenOption.READ)) {
+            return fileStorageService.store(in, im.getFilename());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store upload: " + im.getFilename(), e);
+        } finally {
+            stagingArea.discard(staged);
+        }
+    }
+
+    private Path stage(ImageUploadDto im) {
+        if (im.getSource() != null) return stagingArea.stage(im.getSource());
+        if (im.getDataBase64() != null && !im.getDataBase64().isBlank()) {
+            return stagingArea.stageBase64(im.getDataBase64());
+        }
+        return null;
+    }
+}
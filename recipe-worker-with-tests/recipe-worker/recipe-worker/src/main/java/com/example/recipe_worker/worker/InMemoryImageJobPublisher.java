@@ -0,0 +1,49 @@
+package com.example.recipe_worker.worker;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Broker-less mode: jobs are handed to a bounded local executor. When the queue is full the
+ * publishing thread runs the job itself, which throttles producers instead of dropping work.
+ */
+@Component
+@ConditionalOnProperty(name = "recipe-worker.image.queue.mode", havingValue = "in-memory")
+public class InMemoryImageJobPublisher implements ImageJobPublisher {
+
+    private final ImageJobWorker worker;
+    private final ThreadPoolExecutor executor;
+
+    public InMemoryImageJobPublisher(ImageJobWorker worker,
+                                     @Value("${recipe-worker.image.queue.concurrency:2}") int concurrency,
+                                     @Value("${recipe-worker.image.queue.capacity:100}") int capacity) {
+        this.worker = worker;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                r -> {
+                    Thread t = new Thread(r, "image-worker-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void publish(ImageJob job) {
+        executor.execute(() -> worker.process(job));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
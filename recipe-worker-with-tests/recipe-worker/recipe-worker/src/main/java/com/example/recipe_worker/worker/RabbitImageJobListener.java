@@ -0,0 +1,22 @@
+package com.example.recipe_worker.worker;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "recipe-worker.image.queue.mode", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitImageJobListener {
+
+    private final ImageJobWorker worker;
+
+    public RabbitImageJobListener(ImageJobWorker worker) {
+        this.worker = worker;
+    }
+
+    @RabbitListener(queues = "${recipe-worker.image.queue.name:recipe-worker.image-jobs}",
+                    concurrency = "${recipe-worker.image.queue.concurrency:2}")
+    public void onJob(ImageJob job) {
+        worker.process(job);
+    }
+}
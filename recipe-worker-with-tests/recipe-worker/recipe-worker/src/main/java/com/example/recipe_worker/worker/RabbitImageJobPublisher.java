@@ -0,0 +1,26 @@
+package com.example.recipe_worker.worker;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "recipe-worker.image.queue.mode", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitImageJobPublisher implements ImageJobPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final String queueName;
+
+    public RabbitImageJobPublisher(RabbitTemplate rabbitTemplate,
+                                   @Value("${recipe-worker.image.queue.name:recipe-worker.image-jobs}") String queueName) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.queueName = queueName;
+    }
+
+    @Override
+    public void publish(ImageJob job) {
+        // default exchange routes straight to the queue named by the routing key
+        rabbitTemplate.convertAndSend(queueName, job);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.recipe_worker.worker;
+
+import java.util.UUID;
+
+/** Published by the image worker once a recipe's image rows changed (stored, failed or new variants). */
+public record RecipeImagesChangedEvent(UUID recipeId) {}
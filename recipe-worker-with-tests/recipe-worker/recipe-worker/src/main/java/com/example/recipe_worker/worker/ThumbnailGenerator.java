@@ -0,0 +1,215 @@
+package com.example.recipe_worker.worker;
+
+import com.example.recipe_worker.entity.ImageFormat;
+import jakarta.annotation.PreDestroy;
+import net.coobird.thumbnailator.Thumbnails;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transcodes an upload into each configured {@code recipe-worker.image.formats} entry, at full size
+ * and at every {@code recipe-worker.image.sizes} entry below it. Outputs are re-encoded from pixels,
+ * so EXIF and other metadata are dropped (orientation is applied first). The full-size outputs are
+ * kept even when larger than the upload, since the upload itself is never served in their place.
+ * Formats without an ImageIO writer on the classpath (AVIF and WebP, unless a plugin provides one)
+ * are skipped. The source is decoded once and the sizes are encoded in parallel on a bounded pool.
+ * Dimensions are read from the header first: anything over {@code recipe-worker.image.max-pixels}
+ * is rejected before a pixel buffer is allocated for it.
+ */
+@Component
+public class ThumbnailGenerator {
+
+    private final Logger log = LoggerFactory.getLogger(ThumbnailGenerator.class);
+
+    private final List<Integer> sizes;
+    private final List<ImageFormat> formats;
+    private final float jpegQuality;
+    private final float compactQuality;
+    private final long maxPixels;
+    private final ThreadPoolExecutor executor;
+
+    public ThumbnailGenerator(@Value("${recipe-worker.image.sizes:1024,512,256}") List<Integer> sizes,
+                              @Value("${recipe-worker.image.formats:jpeg}") List<String> formats,
+                              @Value("${recipe-worker.image.jpeg-quality:0.82}") float jpegQuality,
+                              @Value("${recipe-worker.image.compact-quality:0.75}") float compactQuality,
+                              @Value("${recipe-worker.image.max-pixels:40000000}") long maxPixels,
+                              @Value("${recipe-worker.image.resize.threads:2}") int threads,
+                              @Value("${recipe-worker.image.resize.queue-capacity:50}") int queueCapacity) {
+        this.sizes = List.copyOf(sizes);
+        this.formats = writableFormats(formats);
+        this.jpegQuality = jpegQuality;
+        this.compactQuality = compactQuality;
+        this.maxPixels = maxPixels;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "image-resize-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /** @param sizeLabel a pixel size, or {@link ImageJobWorker#ORIGINAL_SIZE_LABEL} for full size */
+    public record Thumbnail(String sizeLabel, ImageFormat format, String filename, byte[] data) {}
+
+    public List<Thumbnail> generate(Path original, String filename) {
+        BufferedImage source = decode(original);
+        // the upload's extension and mime type are the uploader's word; only decoding proves an image
+        if (source == null) throw new ImageRejectedException("not a decodable image");
+
+        int longestSide = Math.max(source.getWidth(), source.getHeight());
+        List<CompletableFuture<List<Thumbnail>>> futures = new ArrayList<>();
+        futures.add(CompletableFuture.supplyAsync(
+                () -> encodeAll(source, ImageJobWorker.ORIGINAL_SIZE_LABEL, filename), executor));
+        sizes.stream()
+                .filter(size -> size < longestSide) // never upscale
+                .forEach(size -> futures.add(CompletableFuture.supplyAsync(
+                        () -> encodeAll(resize(source, size), String.valueOf(size), filename), executor)));
+        return futures.stream().flatMap(f -> f.join().stream()).toList();
+    }
+
+    private List<Thumbnail> encodeAll(BufferedImage image, String sizeLabel, String filename) {
+        List<Thumbnail> out = new ArrayList<>(formats.size());
+        for (ImageFormat format : formats) {
+            byte[] data = encode(image, format, filename);
+            out.add(new Thumbnail(sizeLabel, format, variantFilename(filename, sizeLabel, format), data));
+        }
+        return out;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int size) {
+        try {
+            return Thumbnails.of(source).size(size, size).asBufferedImage();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to resize to " + size, e);
+        }
+    }
+
+    private byte[] encode(BufferedImage image, ImageFormat format, String filename) {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(format.mimeType()).next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(format == ImageFormat.JPEG ? jpegQuality : compactQuality);
+            }
+            BufferedImage pixels = format == ImageFormat.JPEG ? withoutAlpha(image) : image;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+                writer.setOutput(ios);
+                // no metadata: nothing of the upload's EXIF survives
+                writer.write(null, new IIOImage(pixels, null, null), param);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode " + filename + " as " + format, e);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // JPEG has no alpha channel: transparent areas become white
+    private static BufferedImage withoutAlpha(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha() && image.getType() == BufferedImage.TYPE_INT_RGB) return image;
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    // thumbnailator applies the EXIF orientation while decoding
+    private BufferedImage decode(Path file) {
+        long pixels = pixelCount(file);
+        if (pixels < 0) return null;
+        if (pixels > maxPixels) {
+            throw new ImageRejectedException(pixels + " pixels, more than the " + maxPixels + " allowed");
+        }
+        try {
+            return Thumbnails.of(file.toFile()).scale(1.0).asBufferedImage();
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // width times height from the header alone; -1 when no reader understands the file
+    private static long pixelCount(Path file) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return -1;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return (long) reader.getWidth(0) * reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private List<ImageFormat> writableFormats(List<String> names) {
+        List<ImageFormat> writable = new ArrayList<>();
+        for (String name : names) {
+            ImageFormat format = ImageFormat.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(format.mimeType());
+            if (writers.hasNext()) {
+                writable.add(format);
+            } else {
+                log.warn("No ImageIO writer for {} on the classpath, not transcoding to it", format.mimeType());
+            }
+        }
+        return List.copyOf(writable);
+    }
+
+    // pic.png -> pic_512.webp; full size keeps the base name
+    private static String variantFilename(String filename, String sizeLabel, ImageFormat format) {
+        String name = filename == null ? "image" : filename;
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        String suffix = ImageJobWorker.ORIGINAL_SIZE_LABEL.equals(sizeLabel) ? "" : "_" + sizeLabel;
+        return base + suffix + "." + format.extension();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.recipe_worker.admission;
+
+import com.example.recipe_worker.admission.UploadAdmission.Lane;
+import com.example.recipe_worker.admission.UploadAdmission.Outcome;
+import com.example.recipe_worker.admission.UploadAdmission.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadAdmissionTest {
+
+    private static final long MIB = 1024 * 1024;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    // per user 2; uploads: 2 slots, 1 queued, 200 ms wait, 4 MiB budget; writes: 2 slots, none queued
+    private final UploadAdmission admission = new UploadAdmission(2, 65536, 2, 1, 200, 4 * MIB, MIB,
+            2, 0, 200, 3, registry);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void laneFor_sendsMultipartAndLargeBodiesToUploads() {
+        assertEquals(Lane.UPLOAD, admission.laneFor("multipart/form-data; boundary=x", 100));
+        assertEquals(Lane.UPLOAD, admission.laneFor("application/json", -1));
+        assertEquals(Lane.UPLOAD, admission.laneFor("application/json", 65537));
+        assertEquals(Lane.WRITE, admission.laneFor("application/json", 2000));
+    }
+
+    @Test
+    void userLimit_rejectsWithoutWaiting_andFreesOnClose() throws Exception {
+        Ticket first = admission.admit("alice", Lane.WRITE, 10);
+        Ticket second = admission.admit("alice", Lane.UPLOAD, MIB);
+
+        assertEquals(Outcome.USER_LIMIT, admission.admit("alice", Lane.WRITE, 10).outcome());
+        // someone else is unaffected
+        try (Ticket bob = admission.admit("bob", Lane.WRITE, 10)) {
+            assertEquals(Outcome.ADMITTED, bob.outcome());
+        }
+
+        first.close();
+        first.close(); // idempotent: must not free a second slot
+        try (Ticket again = admission.admit("alice", Lane.WRITE, 10)) {
+            assertEquals(Outcome.ADMITTED, again.outcome());
+            assertEquals(Outcome.USER_LIMIT, admission.admit("alice", Lane.WRITE, 10).outcome());
+        }
+        second.close();
+        assertEquals(2, registry.get("recipe_worker.admission.rejected").tag("reason", "user_limit").counter().count(), 1.0);
+    }
+
+    @Test
+    void fullLane_queuesUntilTimeout_thenBusy_whileOtherLaneKeepsAdmitting() throws Exception {
+        Ticket a = admission.admit("a", Lane.UPLOAD, MIB);
+        Ticket b = admission.admit("b", Lane.UPLOAD, MIB);
+
+        long start = System.nanoTime();
+        assertEquals(Outcome.BUSY, admission.admit("c", Lane.UPLOAD, MIB).outcome());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+
+        // light writes have their own slots
+        try (Ticket write = admission.admit("c", Lane.WRITE, 100)) {
+            assertEquals(Outcome.ADMITTED, write.outcome());
+        }
+
+        // a queued upload is admitted as soon as a slot frees up
+        CompletableFuture<Ticket> queued = CompletableFuture.supplyAsync(() -> admitQuietly("d", Lane.UPLOAD, MIB));
+        waitForQueued(1);
+        // the queue holds one: the next is turned away at once
+        assertEquals(Outcome.BUSY, admission.admit("e", Lane.UPLOAD, MIB).outcome());
+        a.close();
+        try (Ticket d = queued.get(2, TimeUnit.SECONDS)) {
+            assertEquals(Outcome.ADMITTED, d.outcome());
+        }
+        b.close();
+        assertEquals(2, registry.get("recipe_worker.admission.rejected").tags("lane", "upload", "reason", "busy").counter().count(), 0.0);
+    }
+
+    @Test
+    void byteBudget_limitsLargeUploads_belowTheSlotLimit() throws Exception {
+        Ticket big = admission.admit("a", Lane.UPLOAD, 3 * MIB);
+
+        // a free slot, but only 1 MiB of budget left
+        assertEquals(Outcome.BUSY, admission.admit("b", Lane.UPLOAD, 2 * MIB).outcome());
+        CompletableFuture<Ticket> waiting = CompletableFuture.supplyAsync(() -> admitQuietly("b", Lane.UPLOAD, 2 * MIB));
+        Thread.sleep(50);
+        big.close();
+        try (Ticket b = waiting.get(2, TimeUnit.SECONDS)) {
+            assertEquals(Outcome.ADMITTED, b.outcome());
+        }
+        // larger than the whole budget: takes all of it rather than waiting forever
+        try (Ticket huge = admission.admit("c", Lane.UPLOAD, 100 * MIB)) {
+            assertEquals(Outcome.ADMITTED, huge.outcome());
+        }
+    }
+
+    @Test
+    void filter_answers503WithRetryAfter_andLeavesReadsAlone() throws Exception {
+        UploadAdmissionFilter filter = new UploadAdmissionFilter(admission);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("zoe", null, List.of()));
+        Ticket a = admission.admit("a", Lane.UPLOAD, MIB);
+        Ticket b = admission.admit("b", Lane.UPLOAD, MIB);
+
+        MockHttpServletRequest upload = new MockHttpServletRequest("POST", "/api/recipes/1/images");
+        upload.setContentType("multipart/form-data; boundary=x");
+        upload.setContent(new byte[1000]);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockFilterChain rejectedChain = new MockFilterChain();
+        filter.doFilter(upload, rejected, rejectedChain);
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("3", rejected.getHeader("Retry-After"));
+        assertTrue(rejected.getContentAsString().contains("server_busy"));
+        assertNull(rejectedChain.getRequest());
+
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        MockFilterChain readChain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/recipes/1"), read, readChain);
+        assertEquals(200, read.getStatus());
+        assertNotNull(readChain.getRequest());
+
+        a.close();
+        b.close();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(upload, admitted, new MockFilterChain());
+        assertEquals(200, admitted.getStatus());
+        // the ticket was released with the request
+        assertEquals(0.0, registry.get("recipe_worker.admission.in_flight").tag("lane", "upload").gauge().value());
+    }
+
+    private Ticket admitQuietly(String user, Lane lane, long length) {
+        try {
+            return admission.admit(user, lane, length);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void waitForQueued(int n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (registry.get("recipe_worker.admission.queued").tag("lane", "upload").gauge().value() < n) {
+            if (System.currentTimeMillis() > deadline) fail("nothing queued");
+            Thread.sleep(5);
+        }
+    }
+}
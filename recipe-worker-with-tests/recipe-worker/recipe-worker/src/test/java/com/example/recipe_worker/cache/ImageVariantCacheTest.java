@@ -0,0 +1,69 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.ImageVariant;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantCacheTest {
+
+    private final ImageVariantCache cache = new ImageVariantCache(100, 60, new SimpleMeterRegistry());
+
+    @Test
+    void cachesResolutions_untilTheirRecipeChanges() {
+        AtomicInteger loads = new AtomicInteger();
+        List<ImageFormat> accepted = List.of(ImageFormat.WEBP, ImageFormat.JPEG);
+        UUID recipeId = UUID.randomUUID();
+        ImageVariant webp = new ImageVariant("v.webp", true, recipeId);
+        ImageVariant other = new ImageVariant("o.jpg", true, UUID.randomUUID());
+        cache.get("o.png", null, accepted, () -> Optional.of(other));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Optional.of(webp), cache.get("a.png", 256, accepted, () -> {
+                loads.incrementAndGet();
+                return Optional.of(webp);
+            }));
+        }
+        assertEquals(1, loads.get());
+
+        // e.g. the variant was deleted with its recipe: the next request resolves again
+        cache.onImagesChanged(new RecipeImagesChangedEvent(recipeId));
+        ImageVariant png = new ImageVariant("a.png", true, recipeId);
+        assertEquals(Optional.of(png), cache.get("a.png", 256, accepted, () -> Optional.of(png)));
+        cache.onRecipeChanged(new RecipeChangedEvent(recipeId, null));
+        assertEquals(Optional.empty(), cache.get("a.png", 256, accepted, Optional::empty));
+
+        // answers derived from other recipes stay
+        assertEquals(Optional.of(other), cache.get("o.png", null, accepted, () -> fail("reloaded")));
+    }
+
+    @Test
+    void loadOverlappingAnEviction_isNotKept() {
+        UUID recipeId = UUID.randomUUID();
+        ImageVariant stale = new ImageVariant("old.jpg", true, recipeId);
+        // the rows were read before the change committed, its eviction lands while the load runs
+        assertEquals(Optional.of(stale), cache.get("a.png", null, List.of(), () -> {
+            cache.evictRecipe(recipeId);
+            return Optional.of(stale);
+        }));
+
+        ImageVariant fresh = new ImageVariant("new.jpg", true, recipeId);
+        assertEquals(Optional.of(fresh), cache.get("a.png", null, List.of(), () -> Optional.of(fresh)));
+    }
+
+    @Test
+    void unknownNames_areNotCached() {
+        assertEquals(Optional.empty(), cache.get("new.png", null, List.of(), Optional::empty));
+        ImageVariant png = new ImageVariant("new.png", false, UUID.randomUUID());
+        assertEquals(Optional.of(png), cache.get("new.png", null, List.of(), () -> Optional.of(png)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecipeResponseCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RecipeResponseCache cache = new RecipeResponseCache(100, 600, registry);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Function<UUID, Optional<RecipeResponse>> loader(boolean exists) {
+        return id -> {
+            loads.incrementAndGet();
+            if (!exists) return Optional.empty();
+            RecipeResponse r = new RecipeResponse();
+            r.setId(id);
+            return Optional.of(r);
+        };
+    }
+
+    @Test
+    void get_loadsOnce_untilARecipeOrImageChange() {
+        UUID id = UUID.randomUUID();
+        RecipeResponse first = cache.get(id, loader(true)).orElseThrow();
+        assertSame(first, cache.get(id, loader(true)).orElseThrow());
+        assertEquals(1, loads.get());
+
+        cache.onRecipeChanged(new RecipeChangedEvent(id, null));
+        cache.get(id, loader(true));
+        assertEquals(2, loads.get());
+
+        cache.onImagesChanged(new RecipeImagesChangedEvent(id));
+        cache.get(id, loader(true));
+        assertEquals(3, loads.get());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "recipe.responses").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_doesNotCacheMissingRecipes() {
+        UUID id = UUID.randomUUID();
+        assertTrue(cache.get(id, loader(false)).isEmpty());
+        assertTrue(cache.get(id, loader(false)).isEmpty());
+        assertEquals(2, loads.get());
+    }
+}
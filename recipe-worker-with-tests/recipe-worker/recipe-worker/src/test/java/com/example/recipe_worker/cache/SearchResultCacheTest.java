@@ -0,0 +1,83 @@
+package com.example.recipe_worker.cache;
+
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.search.RecipeChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+
+    private final SearchResultCache cache = new SearchResultCache(100, 60, new SimpleMeterRegistry());
+
+    private static RecipeSearchRequest request(String q, List<String> labels) {
+        RecipeSearchRequest req = new RecipeSearchRequest();
+        req.setQ(q);
+        req.setLabels(labels);
+        req.setSortBy("publishedAt");
+        return req;
+    }
+
+    @Test
+    void key_ignoresCaseWhitespaceAndLabelOrder() {
+        assertEquals(SearchCacheKey.of("full", request("  Tomato   Soup ", List.of("Vegan", "quick"))),
+                SearchCacheKey.of("full", request("tomato soup", List.of("QUICK", "vegan"))));
+        assertNotEquals(SearchCacheKey.of("full", request("soup", List.of())),
+                SearchCacheKey.of("card", request("soup", List.of())));
+    }
+
+    @Test
+    void concurrentIdenticalMisses_runOneQuery() throws Exception {
+        SearchCacheKey key = SearchCacheKey.of("full", request(null, List.of()));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(pool.submit(() -> cache.get(key, () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "page";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> f : results) assertEquals("page", f.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void recipeChange_clears_andFailedLoadsAreNotCached() {
+        SearchCacheKey key = SearchCacheKey.of("card", request("bread", List.of()));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(key, loads::incrementAndGet);
+        cache.get(key, loads::incrementAndGet);
+        assertEquals(1, loads.get());
+
+        cache.onRecipeChanged(new RecipeChangedEvent(UUID.randomUUID(), null));
+        cache.get(key, loads::incrementAndGet);
+        assertEquals(2, loads.get());
+
+        SearchCacheKey failing = SearchCacheKey.of("card", request("cake", List.of()));
+        assertThrows(IllegalStateException.class, () -> cache.get(failing, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("ok", cache.get(failing, () -> "ok"));
+    }
+}
@@ -3,7 +3,10 @@ package com.example.recipe_worker.controller;
 import com.example.recipe_worker.dto.SignupRequest;
 import com.example.recipe_worker.entity.Role;
 import com.example.recipe_worker.entity.User;
+import com.example.recipe_worker.security.AccountUserDetails;
 import com.example.recipe_worker.security.JwtTokenProvider;
+import com.example.recipe_worker.security.PasswordHashingRejectedException;
+import com.example.recipe_worker.security.UserAccount;
 import com.example.recipe_worker.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
@@ -23,6 +26,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
@@ -76,21 +81,14 @@ class AuthControllerTest {
      @Test
     void login_shouldReturnVerificationLink_whenEmailNotVerified() throws Exception {
         // create a not-verified user
-        User mockUser = new User();
-        mockUser.setId(1L);
-        mockUser.setEmail("notverified@example.com");
-        mockUser.setEmailVerified(false);
-
-        // stub userService.findByEmail
-        when(userService.findByEmail("notverified@example.com"))
-                .thenReturn(Optional.of(mockUser));
+        UserAccount account = new UserAccount(1L, "notverified@example.com", "hash", "nv",
+                "ROLE_USER", false, null, null);
 
-        // stub authentication manager authenticate() to succeed
-        when(authManager.authenticate(any()))
-                .thenReturn(Mockito.mock(Authentication.class));
+        // stub authentication manager authenticate() to succeed with the loaded account
+        when(authManager.authenticate(any())).thenReturn(authenticated(account));
 
         // when userService.createVerificationTokenAndSend is called, return "dummy-token"
-        when(userService.createVerificationTokenAndSend(User.class.cast(mockUser)))
+        when(userService.createVerificationTokenAndSend("notverified@example.com"))
                 .thenReturn("dummy-token");
 
         // perform login POST
@@ -110,26 +108,20 @@ class AuthControllerTest {
 
     @Test
 void login_shouldReturnAccessToken_whenEmailVerified() throws Exception {
-    // Arrange: create a verified user with role
-    User mockUser = new User();
-    mockUser.setId(1L);
-    mockUser.setEmail("new123@example.com");
-    mockUser.setEmailVerified(true);
-    Role role = new Role();
-    role.setName("ROLE_USER");
-    mockUser.setRole(role);
-
-    when(userService.findByEmail("new123@example.com"))
-            .thenReturn(Optional.of(mockUser));
-
+    // Arrange: a verified chef whose profile already exists
+    UUID chefId = UUID.randomUUID();
+    UserAccount account = new UserAccount(1L, "new123@example.com", "hash", "new123",
+            "CHEF", true, chefId, "new123");
 
     when(authManager.authenticate(ArgumentMatchers.<UsernamePasswordAuthenticationToken>any()))
-            .thenReturn(Mockito.mock(Authentication.class));
+            .thenReturn(authenticated(account));
 
     when(jwtTokenProvider.generateAccessToken(
-            anyLong(),                 // for user id (primitive long/Long)
-            anyString(),               // for email
-            anySet() // for roles
+            eq(1L),
+            eq("new123@example.com"),
+            eq(Set.of("ROLE_CHEF")),
+            eq(chefId),
+            eq("new123")
     )).thenReturn("access-token-123");
 
 
@@ -143,8 +135,29 @@ void login_shouldReturnAccessToken_whenEmailVerified() throws Exception {
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.accessToken").value("access-token-123"))
             .andExpect(jsonPath("$.expiresIn").value(3600));
+
+    // the account comes from authentication; no second user lookup
+    Mockito.verify(userService, Mockito.never()).findByEmail(any());
 }
 
+    private static Authentication authenticated(UserAccount account) {
+        AccountUserDetails details = new AccountUserDetails(account);
+        return new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities());
+    }
+
+
+    @Test
+    void login_shouldReturn429_whenPasswordHashingIsSaturated() throws Exception {
+        when(authManager.authenticate(any())).thenThrow(new PasswordHashingRejectedException(2));
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(Map.of("email", "a@example.com", "password", "x")))
+                        .with(csrf()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.error").value("too_many_requests"));
+    }
 
     @Test
     void verify_shouldReturnVerifiedTrue_whenTokenValid() throws Exception {
@@ -1,12 +1,18 @@
 package com.example.recipe_worker.controller;
 
+import com.example.recipe_worker.dto.ImageVariant;
 import com.example.recipe_worker.dto.PagedResponse;
+import com.example.recipe_worker.dto.PantryMatchResponse;
+import com.example.recipe_worker.dto.RecipeCardResponse;
 import com.example.recipe_worker.dto.RecipeCreateRequest;
 import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
 import com.example.recipe_worker.dto.RecipeUpdateRequest;
+import com.example.recipe_worker.entity.ImageFormat;
 import com.example.recipe_worker.security.JwtTokenProvider;
-import com.example.recipe_worker.service.FileStorageService;
+import com.example.recipe_worker.service.ImageServingService;
 import com.example.recipe_worker.service.RecipeService;
+import com.example.recipe_worker.service.impl.LocalFileStorageService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.hamcrest.Matchers;
@@ -14,6 +20,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -23,6 +30,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -38,6 +46,7 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 
 @WebMvcTest(controllers = RecipeController.class)
 @AutoConfigureMockMvc(addFilters = false)  
+@Import({ImageServingService.class, LocalFileStorageService.class})
 class RecipeControllerTest {
 
     @Autowired
@@ -46,9 +55,6 @@ class RecipeControllerTest {
     @MockBean
     private RecipeService recipeService;
 
-    @MockBean
-    private FileStorageService fileStorageService;
-
     private final ObjectMapper mapper = new ObjectMapper();
 
     @MockBean
@@ -60,14 +66,12 @@ class RecipeControllerTest {
                 "chef@example.com", null, List.of(new SimpleGrantedAuthority("ROLE_CHEF"))
         );
     
-        when(fileStorageService.store(any(), eq("pic.jpg")))
-                .thenReturn("./data/storage/stored-pic.jpg");
-    
         RecipeResponse resp = new RecipeResponse();
         resp.setId(UUID.randomUUID());
         resp.setTitle("Pasta");
     
-        when(recipeService.createRecipe(any(RecipeCreateRequest.class), eq("chef@example.com")))
+        when(recipeService.createRecipe(any(RecipeCreateRequest.class),
+                argThat(chef -> chef != null && "chef@example.com".equals(chef.email()))))
                 .thenReturn(resp);
     
         MockMultipartFile img = new MockMultipartFile("images", "pic.jpg", "image/jpeg", "data".getBytes());
@@ -84,7 +88,11 @@ class RecipeControllerTest {
                         .with(csrf()))
                 .andExpect(status().isOk());
     
-        verify(fileStorageService, atLeastOnce()).store(any(), eq("pic.jpg"));
+        // the upload is handed to the service as a stream for the async image worker, not stored by the controller
+        verify(recipeService).createRecipe(argThat(req -> req.getImages() != null
+                && req.getImages().size() == 1
+                && "pic.jpg".equals(req.getImages().get(0).getFilename())
+                && req.getImages().get(0).getSource() != null), any());
     }
 
 
@@ -123,7 +131,7 @@ class RecipeControllerTest {
         updated.setTitle("New Title");
     
         // More permissive on actor (accept any string)
-        when(recipeService.updateRecipe(eq(id), any(RecipeUpdateRequest.class), anyString()))
+        when(recipeService.updateRecipe(eq(id), any(RecipeUpdateRequest.class), any()))
                 .thenReturn(updated);
     
         mockMvc.perform(patch("/api/recipes/{id}", id)
@@ -138,7 +146,7 @@ class RecipeControllerTest {
     @WithMockUser(roles = {"CHEF"})
     void delete_recipe_ok() throws Exception {
         UUID id = UUID.randomUUID();
-        doNothing().when(recipeService).deleteRecipe(eq(id), anyString());
+        doNothing().when(recipeService).deleteRecipe(eq(id), any());
 
         mockMvc.perform(delete("/api/recipes/{id}", id))
                 .andExpect(status().isNoContent());
@@ -160,17 +168,9 @@ class RecipeControllerTest {
         );
         PagedResponse<RecipeResponse> pageResp = new PagedResponse<>(meta, List.of(r));
 
-        when(recipeService.searchRecipes(
-                anyString(), // q
-                anyString(), // publishedFrom
-                anyString(), // publishedTo
-                anyString(), // chefId
-                anyString(), // chefHandle
-                anyInt(),    // page
-                anyInt(),    // pageSize
-                anyString(), // sortBy
-                anyString()  // sortDir
-        )).thenReturn(pageResp);
+        when(recipeService.searchRecipes(argThat(req ->
+                req.getPage() == 0 && req.getPageSize() == 20 && req.getSortBy() == null)))
+                .thenReturn(pageResp);
 
         mockMvc.perform(get("/api/recipes")
                         .param("page", "0")
@@ -179,6 +179,87 @@ class RecipeControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void listRecipes_cardView_usesProjection() throws Exception {
+        RecipeCardResponse card = new RecipeCardResponse(UUID.randomUUID(), "A", "short", "chef",
+                Instant.now(), "thumb.jpg");
+        PagedResponse<RecipeCardResponse> pageResp = new PagedResponse<>(Map.of("page", 0), List.of(card));
+        when(recipeService.searchRecipeCards(any(RecipeSearchRequest.class)))
+                .thenReturn(pageResp);
+
+        mockMvc.perform(get("/api/recipes").param("view", "card"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].thumbnailUrl").value("/api/recipes/images/thumb.jpg"))
+                .andExpect(jsonPath("$.data[0].ingredients").doesNotExist());
+        verify(recipeService, never()).searchRecipes(any(RecipeSearchRequest.class));
+    }
+
+    @Test
+    void listRecipes_unknownView_returns400() throws Exception {
+        mockMvc.perform(get("/api/recipes").param("view", "tiny"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listRecipes_withCursor_usesKeysetSearch() throws Exception {
+        Map<String,Object> meta = new HashMap<>();
+        meta.put("next_cursor", "abc");
+        when(recipeService.searchRecipesByCursor(argThat(req -> "".equals(req.getCursor()) && !req.isIncludeTotal())))
+                .thenReturn(new PagedResponse<>(meta, List.of()));
+
+        mockMvc.perform(get("/api/recipes").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.next_cursor").value("abc"));
+        verify(recipeService, never()).searchRecipes(any(RecipeSearchRequest.class));
+    }
+
+    @Test
+    void listRecipes_invalidCursor_returns400() throws Exception {
+        when(recipeService.searchRecipesByCursor(argThat(req -> "garbage".equals(req.getCursor()))))
+                .thenThrow(new IllegalArgumentException("malformed cursor"));
+
+        mockMvc.perform(get("/api/recipes").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_cursor"));
+    }
+
+    @Test
+    void matchPantry_passesPantryAndLimits() throws Exception {
+        PantryMatchResponse match = new PantryMatchResponse(
+                new RecipeCardResponse(UUID.randomUUID(), "Pancakes", null, "chef", Instant.now(), null),
+                2, 3, List.of("milk"));
+        when(recipeService.matchPantry(eq(List.of("flour", "eggs")), eq(1), eq(20)))
+                .thenReturn(new PagedResponse<>(Map.of("max_missing", 1), List.of(match)));
+
+        mockMvc.perform(get("/api/recipes/match")
+                        .param("ingredients", "flour,eggs")
+                        .param("max_missing", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].recipe.title").value("Pancakes"))
+                .andExpect(jsonPath("$.data[0].missingIngredients[0]").value("milk"));
+    }
+
+    @Test
+    void listRecipes_labelsAndFacets_reachService() throws Exception {
+        when(recipeService.searchRecipes(any(RecipeSearchRequest.class)))
+                .thenReturn(new PagedResponse<>(Map.of("facets", Map.of("labels", Map.of("vegan", 3))), List.of()));
+
+        mockMvc.perform(get("/api/recipes")
+                        .param("labels", "vegan,quick")
+                        .param("label_mode", "any")
+                        .param("include_facets", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.facets.labels.vegan").value(3));
+        verify(recipeService).searchRecipes(argThat(req -> req.getLabels().equals(List.of("vegan", "quick"))
+                && "any".equals(req.getLabelMode()) && req.isIncludeFacets()));
+    }
+
+    @Test
+    void listRecipes_unknownLabelMode_returns400() throws Exception {
+        mockMvc.perform(get("/api/recipes").param("labels", "vegan").param("label_mode", "some"))
+                .andExpect(status().isBadRequest());
+    }
+
     // ---------------- get image ----------------
     @Test
     void getImage_file_exists_returnsBytes() throws Exception {
@@ -189,10 +270,111 @@ class RecipeControllerTest {
 
         mockMvc.perform(get("/api/recipes/images/{filename}", "test-image.jpg"))
                 .andExpect(status().isOk())
-                .andExpect(header().string("Content-Type", Matchers.containsString("image")));
+                .andExpect(header().string("Content-Type", Matchers.containsString("image")))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().doesNotExist("Content-Disposition"));
 
         Files.deleteIfExists(f);
     }
 
-    
+    @Test
+    void getImage_activeContent_isServedAsAttachment() throws Exception {
+        Path base = Paths.get("./data/storage");
+        Files.createDirectories(base);
+        Path f = base.resolve("test-page.html");
+        Files.write(f, "<script>alert(1)</script>".getBytes());
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-page.html"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/octet-stream"))
+                .andExpect(header().string("Content-Disposition", "attachment"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+
+        Files.deleteIfExists(f);
+    }
+
+    @Test
+    void getImage_matchingEtag_returns304() throws Exception {
+        Path base = Paths.get("./data/storage");
+        Files.createDirectories(base);
+        Path f = base.resolve("test-etag.jpg");
+        Files.write(f, "image-bytes".getBytes());
+        when(recipeService.resolveImageVariant(eq("test-etag.jpg"), any(), any()))
+                .thenReturn(Optional.of(new ImageVariant("test-etag.jpg", true, UUID.randomUUID())));
+
+        String etag = mockMvc.perform(get("/api/recipes/images/{filename}", "test-etag.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", Matchers.containsString("immutable")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-etag.jpg").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        Files.deleteIfExists(f);
+    }
+
+    @Test
+    void getImage_whileProcessing_isNotImmutable() throws Exception {
+        Path base = Paths.get("./data/storage");
+        Files.createDirectories(base);
+        Path f = base.resolve("test-pending.jpg");
+        Files.write(f, "image-bytes".getBytes());
+        when(recipeService.resolveImageVariant(eq("test-pending.jpg"), any(), any()))
+                .thenReturn(Optional.of(new ImageVariant("test-pending.jpg", false, UUID.randomUUID())));
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-pending.jpg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", Matchers.not(Matchers.containsString("immutable"))));
+
+        Files.deleteIfExists(f);
+    }
+
+    @Test
+    void getImage_range_returnsPartialContent() throws Exception {
+        Path base = Paths.get("./data/storage");
+        Files.createDirectories(base);
+        Path f = base.resolve("test-range.jpg");
+        Files.write(f, "0123456789".getBytes());
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-range.jpg").header("Range", "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-range.jpg").header("Range", "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+
+        Files.deleteIfExists(f);
+    }
+
+    @Test
+    void getImage_negotiatesFormatFromAccept_andVariesOnIt() throws Exception {
+        Path base = Paths.get("./data/storage");
+        Files.createDirectories(base);
+        Path f = base.resolve("test-nego.webp");
+        Files.write(f, "webp-bytes".getBytes());
+        when(recipeService.resolveImageVariant("test-nego.png", null,
+                List.of(ImageFormat.AVIF, ImageFormat.WEBP, ImageFormat.JPEG)))
+                .thenReturn(Optional.of(new ImageVariant("test-nego.webp", true, UUID.randomUUID())));
+
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-nego.png")
+                        .header("Accept", "image/avif,image/webp,image/apng,image/*,*/*;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "image/webp"))
+                .andExpect(header().string("Vary", "Accept"))
+                .andExpect(content().string("webp-bytes"));
+
+        // compact formats need naming (and not refusing); JPEG goes to anyone taking images
+        mockMvc.perform(get("/api/recipes/images/{filename}", "test-nego.png").header("Accept", "image/webp;q=0, */*"));
+        verify(recipeService).resolveImageVariant("test-nego.png", null, List.of(ImageFormat.JPEG));
+
+        Files.deleteIfExists(f);
+    }
+
+    @Test
+    void getImage_missingFile_returns404() throws Exception {
+        mockMvc.perform(get("/api/recipes/images/{filename}", "does-not-exist.jpg"))
+                .andExpect(status().isNotFound());
+    }
 }
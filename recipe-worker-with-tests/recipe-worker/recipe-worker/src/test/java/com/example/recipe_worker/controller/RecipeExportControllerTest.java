@@ -0,0 +1,132 @@
+package com.example.recipe_worker.controller;
+
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.security.JwtTokenProvider;
+import com.example.recipe_worker.service.RecipeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = RecipeExportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class RecipeExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RecipeService recipeService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Test
+    void export_ndjson_isGzippedWhenAccepted() throws Exception {
+        stubExport(recipe("Bread", List.of("flour")), recipe("Soup", List.of("water")));
+
+        MvcResult started = mockMvc.perform(get("/api/recipes/export")
+                        .param("labels", "vegan")
+                        .header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String body;
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        verify(recipeService).exportRecipes(argThat(req -> req.getLabels().equals(List.of("vegan"))), any());
+        assertTrue(lines[0].contains("\"title\":\"Bread\""));
+        assertTrue(lines[1].contains("\"title\":\"Soup\""));
+    }
+
+    @Test
+    void export_rejectsTextQuery_ratherThanTruncating() throws Exception {
+        mockMvc.perform(get("/api/recipes/export").param("q", "soup"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+        verifyNoInteractions(recipeService);
+    }
+
+    @Test
+    void export_csv_quotesFieldsAndKeepsListsAsJson() throws Exception {
+        RecipeResponse r = recipe("Salt, \"pepper\"", List.of("salt", "black pepper"));
+        stubExport(r);
+
+        MvcResult started = mockMvc.perform(get("/api/recipes/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,title,summary,chef_id,chef_handle,published,published_at,ingredients,steps,labels", lines[0]);
+        assertEquals(r.getId() + ",\"Salt, \"\"pepper\"\"\",,,,true,,\"[\"\"salt\"\",\"\"black pepper\"\"]\",[],[]",
+                lines[1]);
+    }
+
+    @Test
+    void export_unknownFormat_returns400() throws Exception {
+        mockMvc.perform(get("/api/recipes/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(recipeService);
+    }
+
+    @Test
+    void acceptsGzip_honoursZeroQuality() {
+        assertTrue(RecipeExportController.acceptsGzip("gzip, deflate"));
+        assertFalse(RecipeExportController.acceptsGzip("gzip;q=0, deflate"));
+        assertFalse(RecipeExportController.acceptsGzip("identity"));
+        assertFalse(RecipeExportController.acceptsGzip(null));
+    }
+
+    private void stubExport(RecipeResponse... recipes) {
+        doAnswer(inv -> {
+            Consumer<RecipeResponse> sink = inv.getArgument(1);
+            for (RecipeResponse r : recipes) sink.accept(r);
+            return null;
+        }).when(recipeService).exportRecipes(any(RecipeSearchRequest.class), any());
+    }
+
+    private static RecipeResponse recipe(String title, List<String> ingredients) {
+        RecipeResponse r = new RecipeResponse();
+        r.setId(UUID.randomUUID());
+        r.setTitle(title);
+        r.setIngredients(ingredients);
+        r.setPublished(true);
+        return r;
+    }
+}
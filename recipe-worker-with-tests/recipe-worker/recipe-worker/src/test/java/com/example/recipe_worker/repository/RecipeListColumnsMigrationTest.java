@@ -0,0 +1,65 @@
+package com.example.recipe_worker.repository;
+
+import com.example.recipe_worker.entity.Recipe;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(RecipeListColumnsMigration.class)
+@TestPropertySource(properties = "recipe-worker.recipe-lists.migration-batch-size=2")
+class RecipeListColumnsMigrationTest {
+
+    @Autowired private RecipeListColumnsMigration migration;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager em;
+
+    @Test
+    void migrate_movesLegacyRowsIntoColumns_inBatches() {
+        jdbcTemplate.execute("create table if not exists recipe_ingredients (recipe_id uuid not null, ingredient varchar(500))");
+        jdbcTemplate.execute("create table if not exists recipe_steps (recipe_id uuid not null, step varchar(2000))");
+        UUID bread = legacyRecipe("Bread", List.of("flour", "water", "salt"), List.of("mix", "bake"));
+        UUID soup = legacyRecipe("Soup", List.of("water"), List.of());
+        UUID toast = legacyRecipe("Toast", List.of(), List.of("toast"));
+        // written by the new code while legacy rows were still around: the column wins
+        jdbcTemplate.update("update recipe set ingredients = '[\"rye\"]' where id = ?", toast);
+
+        assertEquals(3, migration.migrate());
+
+        assertEquals(List.of("flour", "water", "salt"), recipe(bread).getIngredients());
+        assertEquals(List.of("mix", "bake"), recipe(bread).getSteps());
+        assertEquals(List.of("water"), recipe(soup).getIngredients());
+        assertEquals(List.of(), recipe(soup).getSteps());
+        assertEquals(List.of("rye"), recipe(toast).getIngredients());
+        assertEquals(List.of("toast"), recipe(toast).getSteps());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from recipe_ingredients", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from recipe_steps", Integer.class));
+        // nothing left to do on the next start
+        assertEquals(0, migration.migrate());
+    }
+
+    private UUID legacyRecipe(String title, List<String> ingredients, List<String> steps) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into recipe (id, title, published, created_at) values (?, ?, false, ?)",
+                id, title, Timestamp.from(Instant.now()));
+        ingredients.forEach(i -> jdbcTemplate.update("insert into recipe_ingredients values (?, ?)", id, i));
+        steps.forEach(s -> jdbcTemplate.update("insert into recipe_steps values (?, ?)", id, s));
+        return id;
+    }
+
+    private Recipe recipe(UUID id) {
+        em.clear();
+        return em.find(Recipe.class, id);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.recipe_worker.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRecipeTextSearchTest {
+
+    private final InMemoryRecipeTextSearch search = new InMemoryRecipeTextSearch();
+
+    @Test
+    void search_ranksTitleMatchesAboveStepMatches() {
+        UUID inSteps = UUID.randomUUID();
+        UUID inTitle = UUID.randomUUID();
+        search.index(new RecipeDocument(inSteps, "Flatbread", null, List.of("flour"), List.of("Top with Garlic butter"), List.of()));
+        search.index(new RecipeDocument(inTitle, "Garlic Bread", "crispy", List.of("garlic", "bread"), List.of(), List.of()));
+
+        assertEquals(List.of(inTitle, inSteps), search.search("garlic", 10));
+    }
+
+    @Test
+    void search_requiresEveryTerm() {
+        UUID id = UUID.randomUUID();
+        search.index(new RecipeDocument(id, "Tomato soup", null, List.of("tomato", "basil"), List.of(), List.of()));
+
+        assertEquals(List.of(id), search.search("Tomato, basil", 10));
+        assertTrue(search.search("tomato garlic", 10).isEmpty());
+    }
+
+    @Test
+    void onRecipeChanged_replacesAndRemovesDocuments() {
+        UUID id = UUID.randomUUID();
+        search.onRecipeChanged(new RecipeChangedEvent(id, new RecipeDocument(id, "Pancakes", null, List.of(), List.of(), List.of())));
+        search.onRecipeChanged(new RecipeChangedEvent(id, new RecipeDocument(id, "Waffles", null, List.of(), List.of(), List.of())));
+        assertTrue(search.search("pancakes", 10).isEmpty());
+        assertEquals(List.of(id), search.search("waffles", 10));
+
+        search.onRecipeChanged(new RecipeChangedEvent(id, null));
+        assertTrue(search.search("waffles", 10).isEmpty());
+    }
+
+    @Test
+    void search_matchesPrefixes_belowExactMatches() {
+        UUID exact = UUID.randomUUID();
+        UUID prefixed = UUID.randomUUID();
+        search.index(new RecipeDocument(prefixed, "Breadsticks", null, List.of(), List.of(), List.of()));
+        search.index(new RecipeDocument(exact, "Bread", null, List.of(), List.of(), List.of()));
+
+        assertEquals(List.of(exact, prefixed), search.search("bread", 10));
+        assertEquals(Set.of(exact, prefixed), Set.copyOf(search.search("brea", 10)));
+        // too short to expand
+        assertTrue(search.search("br", 10).isEmpty());
+    }
+
+    @Test
+    void search_rareTermsWeighMoreThanCommonOnes() {
+        UUID common = UUID.randomUUID();
+        UUID rare = UUID.randomUUID();
+        for (int i = 0; i < 20; i++) {
+            search.index(new RecipeDocument(UUID.randomUUID(), "Salad " + i, null, List.of("salt"), List.of(), List.of()));
+        }
+        search.index(new RecipeDocument(common, "Soup", null, List.of("salt", "salt"), List.of(), List.of()));
+        search.index(new RecipeDocument(rare, "Soup", null, List.of("saffron"), List.of(), List.of()));
+
+        assertEquals(rare, search.search("soup saffron", 10).get(0));
+        assertEquals(List.of(common), search.search("soup salt", 10));
+        assertEquals(5, search.search("salt", 5).size());
+    }
+
+    @Test
+    void search_includesLabels() {
+        UUID id = UUID.randomUUID();
+        search.index(new RecipeDocument(id, "Lentil stew", null, List.of(), List.of(), List.of("vegan")));
+        assertEquals(List.of(id), search.search("vegan", 10));
+    }
+}
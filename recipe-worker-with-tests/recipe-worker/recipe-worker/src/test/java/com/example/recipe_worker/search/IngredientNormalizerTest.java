@@ -0,0 +1,36 @@
+package com.example.recipe_worker.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class IngredientNormalizerTest {
+
+    private final IngredientNormalizer normalizer = new IngredientNormalizer();
+
+    @Test
+    void normalize_dropsQuantitiesUnitsAndPreparation() {
+        assertEquals("tomato", normalizer.normalize("2 cups chopped Tomatoes"));
+        assertEquals("red onion", normalizer.normalize("1 large red onion, finely diced"));
+        assertEquals("egg", normalizer.normalize("3 eggs, beaten"));
+        assertNull(normalizer.normalize("2 tbsp"));
+    }
+
+    @Test
+    void normalize_singularisesEachWord() {
+        assertEquals("blueberry", normalizer.normalize("blueberries"));
+        assertEquals("peach", normalizer.normalize("peaches"));
+        assertEquals("bay leaf", normalizer.normalize("bay leaves"));
+        assertEquals("asparagus", normalizer.normalize("asparagus"));
+        assertEquals("glass", normalizer.normalize("glass"));
+    }
+
+    @Test
+    void normalize_appliesSynonyms() {
+        assertEquals("flour", normalizer.normalize("250g all-purpose flour"));
+        assertEquals("green onion", normalizer.normalize("2 scallions"));
+        assertEquals("chickpea", normalizer.normalize("1 can garbanzo beans"));
+        assertEquals("olive oil", normalizer.normalize("extra virgin olive oil"));
+    }
+}
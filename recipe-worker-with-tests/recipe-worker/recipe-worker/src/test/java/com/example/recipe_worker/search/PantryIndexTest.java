@@ -0,0 +1,57 @@
+package com.example.recipe_worker.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PantryIndexTest {
+
+    private final PantryIndex index = new PantryIndex(new IngredientNormalizer());
+
+    private UUID add(String title, String... ingredients) {
+        UUID id = UUID.randomUUID();
+        index.index(new RecipeDocument(id, title, null, List.of(ingredients), List.of(), List.of()));
+        return id;
+    }
+
+    @Test
+    void match_ranksByCoverage_andRespectsMaxMissing() {
+        UUID pancakes = add("Pancakes", "2 cups flour", "2 eggs", "1 cup milk");
+        UUID omelette = add("Omelette", "3 eggs", "salt", "butter", "chives");
+        UUID bread = add("Bread", "500g plain flour", "water", "salt", "yeast");
+
+        List<PantryMatch> exact = index.match(List.of("Flour", "egg", "milk"), 0, 10);
+        assertEquals(1, exact.size());
+        assertEquals(pancakes, exact.get(0).recipeId());
+        assertTrue(exact.get(0).missing().isEmpty());
+
+        List<PantryMatch> loose = index.match(List.of("flour", "eggs", "milk", "salt", "water"), 2, 10);
+        assertEquals(List.of(pancakes, bread, omelette), loose.stream().map(PantryMatch::recipeId).toList());
+        assertEquals(List.of("yeast"), loose.get(1).missing());
+        assertEquals(List.of("butter", "chive"), loose.get(2).missing());
+    }
+
+    @Test
+    void match_singleWordCoversItsKinds() {
+        UUID soup = add("Soup", "1 red onion", "carrots");
+
+        List<PantryMatch> matches = index.match(List.of("onion", "carrot"), 0, 10);
+        assertEquals(List.of(soup), matches.stream().map(PantryMatch::recipeId).toList());
+    }
+
+    @Test
+    void index_updateAndRemove_replaceIngredients() {
+        UUID id = add("Toast", "bread", "butter");
+        index.index(new RecipeDocument(id, "Toast", null, List.of("bread", "jam"), List.of(), List.of()));
+
+        assertTrue(index.match(List.of("bread", "butter"), 0, 10).isEmpty());
+        assertEquals(1, index.match(List.of("bread", "jam"), 0, 10).size());
+
+        index.remove(id);
+        assertTrue(index.match(List.of("bread", "jam"), 0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.recipe_worker.search;
+
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.repository.RecipeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+class RecipeSearchIndexLoaderTest {
+
+    @Autowired private RecipeRepository recipeRepository;
+    @Autowired private TestEntityManager em;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    /** Keeps the last document per recipe; runs a hook on the first one it is given. */
+    private static class RecordingIndex implements LocalRecipeIndex {
+        final Map<UUID, RecipeDocument> documents = new HashMap<>();
+        Runnable onFirst;
+
+        @Override
+        public void index(RecipeDocument document) {
+            documents.put(document.id(), document);
+            Runnable hook = onFirst;
+            onFirst = null;
+            if (hook != null) hook.run();
+        }
+
+        @Override
+        public void remove(UUID recipeId) {
+            documents.remove(recipeId);
+        }
+    }
+
+    @Test
+    void load_rereadsRecipesChangedWhileItRan() {
+        Recipe r = new Recipe();
+        r.setId(UUID.randomUUID());
+        r.setTitle("Old title");
+        em.persist(r);
+        em.flush();
+        em.clear();
+
+        RecordingIndex index = new RecordingIndex();
+        RecipeSearchIndexLoader loader = new RecipeSearchIndexLoader(recipeRepository, List.of(index), transactionTemplate);
+        // the recipe is edited after its batch was read: the edit reaches the index before the stale batch does
+        index.onFirst = () -> {
+            em.getEntityManager().createQuery("update Recipe r set r.title = 'New title' where r.id = :id")
+                    .setParameter("id", r.getId()).executeUpdate();
+            em.clear();
+            loader.onRecipeChanged(new RecipeChangedEvent(r.getId(), null));
+        };
+
+        loader.load();
+
+        assertEquals("New title", index.documents.get(r.getId()).title());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.recipe_worker.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void hashesOnPool_andRecordsLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(4, 1, 4, 1, registry)) {
+            String hash = encoder.encode("secret");
+
+            assertTrue(encoder.matches("secret", hash));
+            assertFalse(encoder.matches("wrong", hash));
+            assertEquals(1, registry.get("recipe_worker.password.hash").tag("operation", "encode").timer().count());
+            assertEquals(2, registry.get("recipe_worker.password.hash").tag("operation", "matches").timer().count());
+        }
+    }
+
+    @Test
+    void upgradeEncoding_whenCostDiffers() {
+        String cost4 = new BCryptPasswordEncoder(4).encode("secret");
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 1, 4, 1, new SimpleMeterRegistry())) {
+            assertTrue(encoder.upgradeEncoding(cost4));
+            assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+            assertFalse(encoder.upgradeEncoding("{noop}secret"));
+        }
+    }
+
+    @Test
+    void rejects_whenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence raw) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return raw.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence raw, String encoded) {
+                return raw.toString().equals(encoded);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 10, 1, 1, 3, registry)) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (registry.get("recipe_worker.password.hash.queued").gauge().value() < 1) Thread.onSpinWait();
+
+            PasswordHashingRejectedException ex =
+                    assertThrows(PasswordHashingRejectedException.class, () -> encoder.encode("c"));
+            assertEquals(3, ex.getRetryAfterSeconds());
+            assertEquals(1, registry.get("recipe_worker.password.hash.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("a", running.get(5, TimeUnit.SECONDS));
+            assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+}
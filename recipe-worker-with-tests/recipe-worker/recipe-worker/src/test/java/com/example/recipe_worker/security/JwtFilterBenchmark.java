@@ -0,0 +1,118 @@
+package com.example.recipe_worker.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Key;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request cost of JWT authentication: the previous filter (new parser per parse, token parsed
+ * twice) against the current one (shared parser, verified-token cache). Run {@link #main} on the
+ * test classpath. Both cases go through the same filter harness, including building a servlet
+ * request and response, since {@code OncePerRequestFilter} skips a request it has already seen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "f29fca1c440201373957f03ffad95f9209a804c22b5bd6076649d91f2c446b99";
+
+    private String token;
+    private OncePerRequestFilter legacyFilter;
+    private JwtAuthenticationFilter filter;
+    private final FilterChain chain = (req, res) -> { };
+
+    /** What the filter did before: validate, then parse again, each with a freshly built parser. */
+    static class LegacyJwtFilter extends OncePerRequestFilter {
+
+        private final Key key;
+
+        LegacyJwtFilter(Key key) {
+            this.key = key;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        FilterChain chain) throws IOException, ServletException {
+            String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+            if (header != null && header.startsWith("Bearer ")) {
+                String token = header.substring(7);
+                if (validate(token)) {
+                    Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+                    List<String> roles = claims.get("roles", List.class);
+                    var authorities = roles.stream().map(r -> new SimpleGrantedAuthority(r)).collect(Collectors.toList());
+                    var auth = new UsernamePasswordAuthenticationToken(claims.get("email", String.class), null, authorities);
+                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
+            }
+            chain.doFilter(request, response);
+        }
+
+        private boolean validate(String token) {
+            try {
+                Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+                return true;
+            } catch (JwtException | IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 3600);
+        token = provider.generateAccessToken(42L, "chef@example.com", Set.of("ROLE_USER", "ROLE_CHEF"));
+        legacyFilter = new LegacyJwtFilter(Keys.hmacShaKeyFor(SECRET.getBytes()));
+        filter = new JwtAuthenticationFilter(new VerifiedTokenCache(provider, 10_000));
+    }
+
+    @Benchmark
+    public void legacyFilter() throws Exception {
+        run(legacyFilter);
+    }
+
+    @Benchmark
+    public void cachedFilter() throws Exception {
+        run(filter);
+    }
+
+    private void run(OncePerRequestFilter f) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/recipes");
+        request.addHeader("Authorization", "Bearer " + token);
+        f.doFilter(request, new MockHttpServletResponse(), chain);
+        SecurityContextHolder.clearContext();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
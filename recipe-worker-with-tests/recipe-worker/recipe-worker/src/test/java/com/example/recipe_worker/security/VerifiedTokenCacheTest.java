@@ -0,0 +1,49 @@
+package com.example.recipe_worker.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "f29fca1c440201373957f03ffad95f9209a804c22b5bd6076649d91f2c446b99";
+
+    @Test
+    void verify_parsesEachTokenOnce() {
+        JwtTokenProvider provider = spy(new JwtTokenProvider(SECRET, 3600));
+        VerifiedTokenCache cache = new VerifiedTokenCache(provider, 100);
+        String token = provider.generateAccessToken(7L, "chef@example.com", Set.of("ROLE_CHEF"));
+
+        Optional<VerifiedToken> first = cache.verify(token);
+        Optional<VerifiedToken> second = cache.verify(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("7", first.get().subject());
+        assertEquals("chef@example.com", first.get().email());
+        assertEquals("ROLE_CHEF", first.get().authorities().get(0).getAuthority());
+        assertSame(first.get(), second.get());
+        verify(provider, times(1)).verify(token);
+    }
+
+    @Test
+    void verify_rejectsTamperedAndExpiredTokens_withoutCachingThem() {
+        JwtTokenProvider provider = spy(new JwtTokenProvider(SECRET, 3600));
+        VerifiedTokenCache cache = new VerifiedTokenCache(provider, 100);
+        String token = provider.generateAccessToken(7L, "chef@example.com", Set.of());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(cache.verify(tampered).isEmpty());
+        assertTrue(cache.verify(tampered).isEmpty());
+        verify(provider, times(2)).verify(tampered);
+
+        JwtTokenProvider expiring = new JwtTokenProvider(SECRET, -60);
+        String expired = expiring.generateAccessToken(7L, "chef@example.com", Set.of());
+        assertTrue(cache.verify(expired).isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.recipe_worker.service;
+
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.dto.RecipeCreateRequest;
+import com.example.recipe_worker.dto.RecipeImportReport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RecipeImportServiceTest {
+
+    private final RecipeService recipeService = mock(RecipeService.class);
+    private final RecipeImportService importService = new RecipeImportService(recipeService, new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    private final ChefIdentity chef = ChefIdentity.ofEmail("chef@example.com");
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<UUID> idsFor(List<RecipeCreateRequest> chunk) {
+        List<UUID> ids = new ArrayList<>();
+        chunk.forEach(r -> ids.add(UUID.randomUUID()));
+        return ids;
+    }
+
+    @Test
+    void importNdjson_writesInChunks_andReportsBadLines() throws Exception {
+        when(recipeService.importRecipes(anyList(), eq(chef))).thenAnswer(inv -> idsFor(inv.getArgument(0)));
+
+        RecipeImportReport report = importService.importNdjson(ndjson(
+                "{\"title\":\"Bread\",\"ingredients\":[\"flour\"]}",
+                "",
+                "{\"title\":\"\"}",
+                "{not json",
+                "{\"title\":\"Soup\"}",
+                "{\"title\":\"Cake\"}"), chef);
+
+        assertEquals(3, report.created());
+        assertEquals(2, report.failed());
+        assertEquals(List.of(1, 3, 4, 5, 6), report.results().stream().map(RecipeImportReport.LineResult::line).toList());
+        assertTrue(report.results().get(1).error().startsWith("title"));
+        assertTrue(report.results().get(2).error().startsWith("invalid_json"));
+        // Bread + Soup fill a chunk, Cake is flushed at the end
+        verify(recipeService, times(2)).importRecipes(anyList(), eq(chef));
+    }
+
+    @Test
+    void importNdjson_isolatesFailingLines_whenAChunkFails() throws Exception {
+        when(recipeService.importRecipes(anyList(), eq(chef))).thenAnswer(inv -> {
+            List<RecipeCreateRequest> chunk = inv.getArgument(0);
+            if (chunk.stream().anyMatch(r -> r.getTitle().equals("Poison"))) throw new IllegalStateException("constraint");
+            return idsFor(chunk);
+        });
+
+        RecipeImportReport report = importService.importNdjson(ndjson(
+                "{\"title\":\"Bread\"}",
+                "{\"title\":\"Poison\"}"), chef);
+
+        assertEquals(1, report.created());
+        assertNotNull(report.results().get(0).id());
+        assertEquals("import_failed: constraint", report.results().get(1).error());
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.recipe_worker.service;
+
+import com.example.recipe_worker.dto.ChefIdentity;
+import com.example.recipe_worker.dto.PagedResponse;
+import com.example.recipe_worker.dto.RecipeCardResponse;
+import com.example.recipe_worker.dto.RecipeCreateRequest;
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.dto.RecipeUpdateRequest;
+import com.example.recipe_worker.entity.Chef;
+import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.search.InMemoryRecipeTextSearch;
+import com.example.recipe_worker.search.IngredientNormalizer;
+import com.example.recipe_worker.search.PantryIndex;
+import com.example.recipe_worker.search.RecipeDocument;
+import com.example.recipe_worker.service.impl.RecipeServiceImpl;
+import com.example.recipe_worker.worker.ImageJobPublisher;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "recipe-worker.export.fetch-size=8"})
+@Import({RecipeServiceImpl.class, ChefIdentityResolver.class, InMemoryRecipeTextSearch.class, PantryIndex.class,
+        IngredientNormalizer.class})
+class RecipeSearchStatementCountTest {
+
+    @Autowired private RecipeService recipeService;
+    @Autowired private TestEntityManager em;
+    @Autowired private EntityManagerFactory emf;
+    @Autowired private InMemoryRecipeTextSearch textSearch;
+
+    @MockBean private ImageJobPublisher imageJobPublisher;
+
+    private Statistics statistics;
+    // the index bean outlives each test's rolled-back data
+    private final List<UUID> indexed = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        indexed.forEach(textSearch::remove);
+    }
+
+    @BeforeEach
+    void setUp() {
+        Chef chef = new Chef();
+        chef.setEmail("chef@example.com");
+        chef.setHandle("chef");
+        em.persist(chef);
+
+        for (int i = 0; i < 30; i++) {
+            Recipe r = new Recipe();
+            r.setId(UUID.randomUUID());
+            r.setTitle("Recipe " + i);
+            r.setIngredients(List.of("flour", "water", "salt"));
+            r.setSteps(List.of("mix", "bake"));
+            r.setLabels(i % 3 == 0 ? List.of("bread", "Vegan") : List.of("bread"));
+            r.setPublished(true);
+            r.setPublishedAt(Instant.now().minusSeconds(i));
+            r.setChef(chef);
+            ImageEntity img = new ImageEntity();
+            img.setId(UUID.randomUUID());
+            img.setFilename("pic.jpg");
+            img.setStoredName("orig-" + i + ".jpg");
+            r.addImage(img);
+            if (i % 2 == 0) {
+                ImageEntity thumb = new ImageEntity();
+                thumb.setFilename("pic_256.jpg");
+                thumb.setStoredName("thumb-" + i + ".jpg");
+                thumb.setSizeLabel("256");
+                thumb.setOriginalId(img.getId());
+                r.addImage(thumb);
+            }
+            em.persist(r);
+            textSearch.index(RecipeDocument.of(r));
+            indexed.add(r.getId());
+        }
+        em.flush();
+        em.clear(); // nothing may be served from the persistence context
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static RecipeSearchRequest request(String q, int page, int pageSize, String sortBy) {
+        RecipeSearchRequest req = new RecipeSearchRequest();
+        req.setQ(q);
+        req.setPage(page);
+        req.setPageSize(pageSize);
+        req.setSortBy(sortBy);
+        return req;
+    }
+
+    private long statementsFor(int pageSize) {
+        em.clear();
+        statistics.clear();
+        PagedResponse<RecipeResponse> page = recipeService.searchRecipes(request(null, 0, pageSize, "publishedAt"));
+        assertEquals(pageSize, page.getData().size());
+        // mapping must be complete without further lazy loads
+        page.getData().forEach(r -> {
+            assertEquals(3, r.getIngredients().size());
+            assertEquals("chef", r.getChefHandle());
+            assertFalse(r.getImages().isEmpty());
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void searchRecipes_statementCount_doesNotGrowWithPageSize() {
+        long small = statementsFor(5);
+        long large = statementsFor(25);
+
+        assertEquals(small, large);
+        // page + count + chef/labels, images; ingredients and steps come with the recipe row
+        assertEquals(4, large);
+    }
+
+    @Test
+    void searchRecipeCards_usesSingleProjectionStatement() {
+        em.clear();
+        statistics.clear();
+        PagedResponse<RecipeCardResponse> page = recipeService.searchRecipeCards(request(null, 0, 10, "publishedAt"));
+
+        // page + count, independent of page size
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(10, page.getData().size());
+        assertEquals(30L, page.getMeta().get("total_elements"));
+
+        RecipeCardResponse first = page.getData().get(0);   // recipe 0: has a 256 variant
+        RecipeCardResponse second = page.getData().get(1);  // recipe 1: only the original
+        assertEquals("Recipe 0", first.getTitle());
+        assertEquals("chef", first.getChefHandle());
+        assertEquals("/api/recipes/images/thumb-0.jpg", first.getThumbnailUrl());
+        assertEquals("/api/recipes/images/orig-1.jpg", second.getThumbnailUrl());
+    }
+
+    @Test
+    void searchRecipeCards_thumbnailIsFirstUploadedImagesSmallVariant() {
+        Chef chef = em.getEntityManager().createQuery("select c from Chef c", Chef.class).getSingleResult();
+        Recipe r = new Recipe();
+        r.setId(UUID.randomUUID());
+        r.setTitle("Gallery");
+        r.setPublished(true);
+        r.setPublishedAt(Instant.now().plusSeconds(60));
+        r.setChef(chef);
+        // the second upload's names sort first, which must not matter
+        for (String[] upload : new String[][] {{"zz-first", "0"}, {"aa-second", "1"}}) {
+            ImageEntity original = new ImageEntity();
+            original.setId(UUID.randomUUID());
+            original.setStoredName(upload[0] + ".jpg");
+            original.setSortOrder(Integer.valueOf(upload[1]));
+            r.addImage(original);
+            for (String name : List.of(upload[0] + "_256.webp", upload[0] + "_256.jpg", upload[0] + "_1024.jpg")) {
+                ImageEntity variant = new ImageEntity();
+                variant.setStoredName(name);
+                variant.setSizeLabel(name.contains("_256") ? "256" : "1024");
+                variant.setOriginalId(original.getId());
+                r.addImage(variant);
+            }
+        }
+        em.persist(r);
+        em.flush();
+        em.clear();
+
+        RecipeCardResponse card = recipeService.searchRecipeCards(request(null, 0, 1, "publishedAt")).getData().get(0);
+        assertEquals("Gallery", card.getTitle());
+        assertEquals("/api/recipes/images/zz-first_256.jpg", card.getThumbnailUrl());
+    }
+
+    @Test
+    void searchRecipesByCursor_walksEveryRowOnce_withoutCount() {
+        // a tie on publishedAt must be broken by id
+        em.getEntityManager().createQuery(
+                "update Recipe r set r.publishedAt = :t where r.title in ('Recipe 3', 'Recipe 4', 'Recipe 5')")
+                .setParameter("t", Instant.parse("2020-01-01T00:00:00Z"))
+                .executeUpdate();
+        em.clear();
+
+        Set<UUID> seen = new LinkedHashSet<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            statistics.clear();
+            RecipeSearchRequest req = request(null, 0, 7, null);
+            req.setCursor(cursor);
+            PagedResponse<RecipeResponse> page = recipeService.searchRecipesByCursor(req);
+            // page + chef/labels, images; never a count
+            assertEquals(3, statistics.getPrepareStatementCount());
+            assertFalse(page.getMeta().containsKey("total_elements"));
+            page.getData().forEach(r -> assertTrue(seen.add(r.getId())));
+            cursor = (String) page.getMeta().get("next_cursor");
+            pages++;
+            em.clear();
+        } while (cursor != null);
+
+        assertEquals(30, seen.size());
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void searchRecipesByCursor_includeTotal_addsCount() {
+        RecipeSearchRequest req = request(null, 0, 10, null);
+        req.setIncludeTotal(true);
+        PagedResponse<RecipeResponse> page = recipeService.searchRecipesByCursor(req);
+        assertEquals(30L, page.getMeta().get("total_elements"));
+        assertEquals(true, page.getMeta().get("has_next"));
+    }
+
+    @Test
+    void searchRecipes_relevance_ordersByRankAndPagesInMemory() {
+        // "Recipe 7" matches on the title as well, so it outranks the rest
+        UUID best = em.getEntityManager()
+                .createQuery("select r.id from Recipe r where r.title = 'Recipe 7'", UUID.class).getSingleResult();
+        textSearch.index(new RecipeDocument(best, "Recipe 7 flour tortillas", null, List.of("flour"), List.of(), List.of()));
+        em.clear();
+
+        PagedResponse<RecipeResponse> page = recipeService.searchRecipes(request("flour", 0, 5, "relevance"));
+        assertEquals(best, page.getData().get(0).getId());
+        assertEquals(5, page.getData().size());
+        assertEquals(30L, page.getMeta().get("total_elements"));
+
+        RecipeSearchRequest future = request("tortillas", 0, 5, "relevance");
+        future.setPublishedFrom("2999-01-01T00:00:00Z");
+        PagedResponse<RecipeResponse> none = recipeService.searchRecipes(future);
+        assertTrue(none.getData().isEmpty());
+    }
+
+    @Test
+    void searchRecipes_labelFilters_andFacets() {
+        RecipeSearchRequest all = request(null, 0, 5, null);
+        all.setLabels(List.of("BREAD", "vegan"));
+        all.setIncludeFacets(true);
+        em.clear();
+        statistics.clear();
+        PagedResponse<RecipeResponse> page = recipeService.searchRecipes(all);
+
+        assertEquals(10L, page.getMeta().get("total_elements"));
+        // page + count + 2 association queries + one grouped query per facet
+        assertEquals(6, statistics.getPrepareStatementCount());
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Long>> facets = (Map<String, Map<String, Long>>) page.getMeta().get("facets");
+        assertEquals(Map.of("bread", 10L, "Vegan", 10L), facets.get("labels"));
+        assertEquals(Map.of("chef", 10L), facets.get("chefs"));
+
+        RecipeSearchRequest any = request(null, 0, 5, null);
+        any.setLabels(List.of("vegan", "gluten-free"));
+        any.setLabelMode("any");
+        assertEquals(10L, recipeService.searchRecipeCards(any).getMeta().get("total_elements"));
+
+        RecipeSearchRequest none = request(null, 0, 5, null);
+        none.setLabels(List.of("vegan", "gluten-free"));
+        assertEquals(0L, recipeService.searchRecipes(none).getMeta().get("total_elements"));
+    }
+
+    @Test
+    void searchRecipes_filtersByChef() {
+        RecipeSearchRequest byHandle = request(null, 0, 5, null);
+        byHandle.setChefHandle("CHEF");
+        assertEquals(30L, recipeService.searchRecipes(byHandle).getMeta().get("total_elements"));
+
+        UUID chefId = em.getEntityManager().createQuery("select c.id from Chef c", UUID.class).getSingleResult();
+        RecipeSearchRequest byId = request(null, 0, 5, null);
+        byId.setChefId(chefId.toString());
+        assertEquals(30L, recipeService.searchRecipeCards(byId).getMeta().get("total_elements"));
+
+        byId.setChefId(UUID.randomUUID().toString());
+        assertEquals(0L, recipeService.searchRecipes(byId).getMeta().get("total_elements"));
+    }
+
+    @Test
+    void createRecipe_withTokenIdentity_loadsNoChef() {
+        Chef chef = em.getEntityManager().createQuery("select c from Chef c", Chef.class).getSingleResult();
+        ChefIdentity fromToken = new ChefIdentity(chef.getId(), chef.getEmail(), chef.getHandle());
+        RecipeCreateRequest req = new RecipeCreateRequest();
+        req.setTitle("Soda bread");
+        req.setIngredients(List.of("flour", "buttermilk"));
+        req.setSteps(List.of("mix", "bake"));
+        req.setLabels(List.of("bread"));
+        em.clear();
+        statistics.clear();
+
+        RecipeResponse created = recipeService.createRecipe(req, fromToken);
+        em.flush();
+        indexed.add(created.getId());
+
+        assertEquals("chef", created.getChefHandle());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(chef.getId(), em.find(Recipe.class, created.getId()).getChef().getId());
+    }
+
+    @Test
+    void updateRecipe_changingOneStep_isSingleRowUpdate() {
+        Chef chef = em.getEntityManager().createQuery("select c from Chef c", Chef.class).getSingleResult();
+        Recipe recipe = em.getEntityManager().createQuery("select r from Recipe r where r.title = 'Recipe 7'", Recipe.class)
+                .getSingleResult();
+        RecipeUpdateRequest update = new RecipeUpdateRequest();
+        update.setSteps(List.of("mix", "rest", "bake"));
+        em.clear();
+        statistics.clear();
+
+        recipeService.updateRecipe(recipe.getId(), update, new ChefIdentity(chef.getId(), chef.getEmail(), chef.getHandle()));
+        em.flush();
+        indexed.add(recipe.getId());
+
+        assertEquals(1, statistics.getEntityUpdateCount());
+        // no join-table rows deleted and re-inserted
+        assertEquals(0, statistics.getCollectionRemoveCount());
+        assertEquals(0, statistics.getCollectionRecreateCount());
+        em.clear();
+        assertEquals(List.of("mix", "rest", "bake"), em.find(Recipe.class, recipe.getId()).getSteps());
+    }
+
+    @Test
+    void importRecipes_persistsWithoutSelects_inBatches() {
+        List<RecipeCreateRequest> chunk = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RecipeCreateRequest req = new RecipeCreateRequest();
+            req.setTitle("Imported " + i);
+            req.setIngredients(List.of("flour", "water"));
+            req.setSteps(List.of("mix"));
+            req.setLabels(List.of("bread"));
+            chunk.add(req);
+        }
+        Chef chef = em.getEntityManager().createQuery("select c from Chef c", Chef.class).getSingleResult();
+        ChefIdentity fromToken = new ChefIdentity(chef.getId(), chef.getEmail(), chef.getHandle());
+        em.clear();
+        statistics.clear();
+
+        List<UUID> ids = recipeService.importRecipes(chunk, fromToken);
+        em.flush();
+        indexed.addAll(ids);
+
+        assertEquals(50, ids.size());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        // one batched recipe insert; label rows go through a plain JDBC batch on the same connection
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(50L, ((Number) em.getEntityManager()
+                .createNativeQuery("select count(*) from recipe_labels where recipe_id in (:ids)")
+                .setParameter("ids", ids).getSingleResult()).longValue());
+        Recipe imported = em.find(Recipe.class, ids.get(0));
+        assertEquals(List.of("flour", "water"), imported.getIngredients());
+        assertEquals(List.of("bread"), imported.getLabels());
+        assertEquals(50L, em.getEntityManager()
+                .createQuery("select count(r) from Recipe r where r.title like 'Imported %'", Long.class)
+                .getSingleResult());
+    }
+
+    @Test
+    void exportRecipes_streamsInChunks_withFixedQueriesPerChunk() {
+        em.clear();
+        statistics.clear();
+
+        List<RecipeResponse> exported = new ArrayList<>();
+        recipeService.exportRecipes(new RecipeSearchRequest(), exported::add);
+
+        assertEquals(30, exported.size());
+        assertEquals("Recipe 0", exported.get(0).getTitle());
+        assertEquals("Recipe 29", exported.get(29).getTitle());
+        assertEquals(List.of("flour", "water", "salt"), exported.get(17).getIngredients());
+        assertEquals("chef", exported.get(17).getChefHandle());
+        // one cursor, then 2 association queries for each of the 4 chunks of 8
+        assertEquals(9, statistics.getPrepareStatementCount());
+        // every chunk is detached once written
+        assertEquals(0, em.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount());
+    }
+}
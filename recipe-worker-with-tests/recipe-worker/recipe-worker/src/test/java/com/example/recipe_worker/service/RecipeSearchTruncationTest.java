@@ -0,0 +1,148 @@
+package com.example.recipe_worker.service;
+
+import com.example.recipe_worker.dto.PagedResponse;
+import com.example.recipe_worker.dto.RecipeCardResponse;
+import com.example.recipe_worker.dto.RecipeResponse;
+import com.example.recipe_worker.dto.RecipeSearchRequest;
+import com.example.recipe_worker.entity.Chef;
+import com.example.recipe_worker.entity.Recipe;
+import com.example.recipe_worker.search.CriteriaTextMatch;
+import com.example.recipe_worker.search.InMemoryRecipeTextSearch;
+import com.example.recipe_worker.search.IngredientNormalizer;
+import com.example.recipe_worker.search.PantryIndex;
+import com.example.recipe_worker.search.RecipeDocument;
+import com.example.recipe_worker.service.impl.RecipeServiceImpl;
+import com.example.recipe_worker.worker.ImageJobPublisher;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "recipe-worker.search.max-hits=5")
+@Import({RecipeServiceImpl.class, ChefIdentityResolver.class, RecipeSearchTruncationTest.TitleSearch.class,
+        PantryIndex.class, IngredientNormalizer.class})
+class RecipeSearchTruncationTest {
+
+    /** The in-memory engine, optionally answering through a title match in SQL as the postgres engine does. */
+    static class TitleSearch extends InMemoryRecipeTextSearch {
+        boolean sql;
+
+        @Override
+        public CriteriaTextMatch criteria(String query) {
+            if (!sql) return null;
+            return new CriteriaTextMatch() {
+                @Override
+                public Predicate matches(Root<Recipe> root, CriteriaBuilder cb) {
+                    return cb.like(cb.lower(root.get("title")), "%" + query.toLowerCase() + "%");
+                }
+
+                @Override
+                public Expression<Integer> rank(Root<Recipe> root, CriteriaBuilder cb) {
+                    return cb.neg(cb.length(root.get("title")));
+                }
+            };
+        }
+    }
+
+    @Autowired private RecipeService recipeService;
+    @Autowired private TestEntityManager em;
+    @Autowired private TitleSearch textSearch;
+
+    @MockBean private ImageJobPublisher imageJobPublisher;
+
+    private final List<UUID> indexed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Chef chef = new Chef();
+        chef.setEmail("chef@example.com");
+        chef.setHandle("chef");
+        em.persist(chef);
+
+        // eight matches for "flour", more than max-hits; the two cakes rank last in the index
+        for (int i = 0; i < 8; i++) {
+            Recipe r = new Recipe();
+            r.setId(UUID.randomUUID());
+            r.setTitle("Flour " + (i < 6 ? "bread " : "cake ") + i);
+            r.setIngredients(List.of("flour"));
+            r.setSteps(List.of("bake"));
+            r.setLabels(List.of(i < 6 ? "bread" : "cake"));
+            r.setPublished(true);
+            r.setPublishedAt(Instant.now().minusSeconds(i));
+            r.setChef(chef);
+            em.persist(r);
+            textSearch.index(i < 6
+                    ? new RecipeDocument(r.getId(), r.getTitle() + " flour", null, List.of("flour"), List.of(), List.of())
+                    : RecipeDocument.of(r));
+            indexed.add(r.getId());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        indexed.forEach(textSearch::remove);
+        textSearch.sql = false;
+    }
+
+    private static RecipeSearchRequest request(String q, String sortBy, String label) {
+        RecipeSearchRequest req = new RecipeSearchRequest();
+        req.setQ(q);
+        req.setPageSize(3);
+        req.setSortBy(sortBy);
+        if (label != null) req.setLabels(List.of(label));
+        return req;
+    }
+
+    @Test
+    void cappedEngine_flagsListingsThatMayMissMatches() {
+        PagedResponse<RecipeResponse> relevance = recipeService.searchRecipes(request("flour", null, "cake"));
+        assertEquals(true, relevance.getMeta().get("truncated"));
+
+        PagedResponse<RecipeCardResponse> newest = recipeService.searchRecipeCards(request("flour", "publishedAt", null));
+        assertEquals(true, newest.getMeta().get("truncated"));
+
+        PagedResponse<RecipeResponse> few = recipeService.searchRecipes(request("cake", null, null));
+        assertEquals(2L, few.getMeta().get("total_elements"));
+        assertFalse(few.getMeta().containsKey("truncated"));
+    }
+
+    @Test
+    void criteriaEngine_filtersAndCountsEveryMatch() {
+        textSearch.sql = true;
+
+        PagedResponse<RecipeResponse> cakes = recipeService.searchRecipes(request("flour", null, "cake"));
+        assertEquals(2L, cakes.getMeta().get("total_elements"));
+        assertEquals(2, cakes.getData().size());
+        assertTrue(cakes.getData().stream().allMatch(r -> r.getTitle().contains("cake")));
+        assertFalse(cakes.getMeta().containsKey("truncated"));
+
+        PagedResponse<RecipeCardResponse> newest = recipeService.searchRecipeCards(request("flour", "publishedAt", null));
+        assertEquals(8L, newest.getMeta().get("total_elements"));
+        assertEquals(3, newest.getData().size());
+
+        RecipeSearchRequest paged = request("flour", null, null);
+        paged.setPage(2);
+        PagedResponse<RecipeResponse> last = recipeService.searchRecipes(paged);
+        assertEquals(8L, last.getMeta().get("total_elements"));
+        assertEquals(2, last.getData().size());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.repository.ImageRepository;
+import com.example.recipe_worker.service.StorageLayout;
+import com.example.recipe_worker.worker.RecipeImagesChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+class FlatStorageMigrationTest {
+
+    @TempDir
+    Path base;
+
+    @Autowired private ImageRepository imageRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_repointsRowsByStoredNameAndLegacyPath_thenRemovesFlatFiles() throws Exception {
+        LocalFileStorageService storage = new LocalFileStorageService();
+        ReflectionTestUtils.setField(storage, "baseDir", base.toString());
+        storage.init();
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        UUID recipeId = recipe();
+        String name = "1700000000_abc_cake.jpg";
+        byte[] cake = "cake".getBytes(StandardCharsets.UTF_8);
+        Files.write(base.resolve(name), cake);
+        Files.write(base.resolve("orphan.png"), "orphan".getBytes(StandardCharsets.UTF_8));
+        String shardedBefore = storage.store("already sharded".getBytes(StandardCharsets.UTF_8), "x.png");
+        // as written by the baseline: no stored name, absolute path from a relative base dir
+        UUID legacy = image(recipeId, base.toAbsolutePath().resolve(".").resolve(name).toString(), null);
+        UUID named = image(recipeId, base.resolve(name).toString(), name);
+        // '_' must not act as a LIKE wildcard
+        String lookalikePath = base.resolve("1700000000Xabc_cake.jpg").toString();
+        UUID lookalike = image(recipeId, lookalikePath, null);
+
+        FlatStorageMigration migration = new FlatStorageMigration(storage, imageRepository, publisher, base.toString());
+        assertEquals(2, migration.migrate());
+
+        assertFalse(Files.exists(base.resolve(name)));
+        assertFalse(Files.exists(base.resolve("orphan.png")));
+        assertTrue(Files.exists(Path.of(shardedBefore)));
+        Path moved;
+        try (var files = Files.walk(base)) {
+            moved = files.filter(p -> p.getFileName().toString().endsWith(".jpg")).findFirst().orElseThrow();
+        }
+        String newName = moved.getFileName().toString();
+        assertTrue(StorageLayout.isContentAddressed(newName));
+        assertArrayEquals(cake, Files.readAllBytes(moved));
+        for (UUID id : new UUID[] {legacy, named}) {
+            Map<String, Object> row = row(id);
+            assertEquals(newName, row.get("stored_name"));
+            assertEquals(moved.toAbsolutePath().toString(), row.get("path"));
+        }
+        assertNull(row(lookalike).get("stored_name"));
+        assertEquals(lookalikePath, row(lookalike).get("path"));
+        verify(publisher).publishEvent(new RecipeImagesChangedEvent(recipeId));
+        // a second run finds nothing left in the flat layout
+        assertEquals(0, migration.migrate());
+    }
+
+    private UUID recipe() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into recipe (id, title, published, created_at) values (?, 'Cake', false, ?)",
+                id, Timestamp.from(Instant.now()));
+        return id;
+    }
+
+    private UUID image(UUID recipeId, String path, String storedName) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into image_entity (id, filename, path, stored_name, recipe_id) values (?, 'cake.jpg', ?, ?, ?)",
+                id, path, storedName, recipeId);
+        return id;
+    }
+
+    private Map<String, Object> row(UUID id) {
+        return jdbcTemplate.queryForMap("select path, stored_name from image_entity where id = ?", id);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.recipe_worker.service.impl;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough of the S3 REST API (path-style object PUT/GET/HEAD/DELETE and multipart uploads) to
+ * run {@link S3FileStorageService} against, in memory. Every request's SigV4 signature and payload
+ * hash are checked, so signing bugs fail the tests as they would against a real store.
+ */
+class InProcessS3Server implements AutoCloseable {
+
+    private static final Pattern PART = Pattern.compile("<PartNumber>(\\d+)</PartNumber><ETag>([^<]+)</ETag>");
+    private static final Pattern AUTHORIZATION = Pattern.compile("SignedHeaders=([^,]+), Signature=([0-9a-f]+)");
+    private static final DateTimeFormatter AMZ_DATE =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    record StoredObject(byte[] data, String contentType, Instant lastModified) {}
+
+    final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    final AtomicInteger objectPuts = new AtomicInteger();
+    final AtomicInteger maxConcurrentParts = new AtomicInteger();
+    // some S3-compatible stores answer a ranged GET with the whole object
+    volatile boolean ignoreRanges;
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+
+    private final S3RequestSigner signer;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    InProcessS3Server(String region, String accessKey, String secretKey) throws IOException {
+        this.signer = new S3RequestSigner(region, accessKey, secretKey);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            URI uri = URI.create("http://" + exchange.getRequestHeaders().getFirst("Host")
+                    + exchange.getRequestURI().getRawPath()
+                    + (exchange.getRequestURI().getRawQuery() == null ? "" : "?" + exchange.getRequestURI().getRawQuery()));
+            Map<String, String> query = query(uri.getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (!authorized(exchange, method, uri, query, body)) {
+                respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+                return;
+            }
+            String key = URLDecoder.decode(uri.getRawPath(), StandardCharsets.UTF_8);
+
+            if (query.containsKey("uploads")) {
+                String uploadId = UUID.randomUUID().toString();
+                uploads.put(uploadId, new ConcurrentHashMap<>());
+                respond(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if (query.containsKey("partNumber")) {
+                uploadPart(exchange, query, body);
+            } else if (query.containsKey("uploadId") && method.equals("POST")) {
+                complete(exchange, key, query.get("uploadId"), body);
+            } else if (query.containsKey("uploadId") && method.equals("DELETE")) {
+                uploads.remove(query.get("uploadId"));
+                respond(exchange, 204, null);
+            } else {
+                switch (method) {
+                    case "PUT" -> {
+                        objectPuts.incrementAndGet();
+                        objects.put(key, new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type"), Instant.now()));
+                        respond(exchange, 200, null);
+                    }
+                    case "GET", "HEAD" -> read(exchange, method, key);
+                    case "DELETE" -> {
+                        objects.remove(key);
+                        respond(exchange, 204, null);
+                    }
+                    default -> respond(exchange, 405, null);
+                }
+            }
+        }
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+        if (parts == null) {
+            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        maxConcurrentParts.accumulateAndGet(partsInFlight.incrementAndGet(), Math::max);
+        try {
+            // long enough for parallel parts to overlap
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            partsInFlight.decrementAndGet();
+        }
+        parts.put(Integer.parseInt(query.get("partNumber")), body);
+        exchange.getResponseHeaders().set("ETag", etag(body));
+        respond(exchange, 200, null);
+    }
+
+    private void complete(HttpExchange exchange, String key, String uploadId, byte[] body) throws IOException {
+        Map<Integer, byte[]> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+            return;
+        }
+        ByteArrayOutputStream object = new ByteArrayOutputStream();
+        Matcher m = PART.matcher(new String(body, StandardCharsets.UTF_8).replace("&quot;", "\""));
+        int expected = 1;
+        while (m.find()) {
+            byte[] part = parts.get(Integer.parseInt(m.group(1)));
+            if (Integer.parseInt(m.group(1)) != expected++ || part == null || !etag(part).equals(m.group(2))) {
+                respond(exchange, 200, "<Error><Code>InvalidPart</Code></Error>");
+                return;
+            }
+            object.writeBytes(part);
+        }
+        objects.put(key, new StoredObject(object.toByteArray(), null, Instant.now()));
+        respond(exchange, 200, "<CompleteMultipartUploadResult/>");
+    }
+
+    private void read(HttpExchange exchange, String method, String key) throws IOException {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            respond(exchange, 404, method.equals("HEAD") ? null : "<Error><Code>NoSuchKey</Code></Error>");
+            return;
+        }
+        byte[] data = object.data();
+        exchange.getResponseHeaders().set("Last-Modified",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+        if (object.contentType() != null) exchange.getResponseHeaders().set("Content-Type", object.contentType());
+        if (method.equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", Integer.toString(data.length));
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && !ignoreRanges) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+            byte[] slice = Arrays.copyOfRange(data, start, end + 1);
+            exchange.sendResponseHeaders(206, slice.length);
+            exchange.getResponseBody().write(slice);
+            return;
+        }
+        exchange.sendResponseHeaders(200, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private boolean authorized(HttpExchange exchange, String method, URI uri, Map<String, String> query, byte[] body) {
+        if (query.containsKey("X-Amz-Signature")) {
+            Instant date = Instant.from(AMZ_DATE.parse(query.get("X-Amz-Date")));
+            Duration ttl = Duration.ofSeconds(Long.parseLong(query.get("X-Amz-Expires")));
+            if (Instant.now().isAfter(date.plus(ttl))) return false;
+            URI expected = signer.presign(method, URI.create("http://" + uri.getRawAuthority() + uri.getRawPath()), ttl, date);
+            return expected.equals(uri);
+        }
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (authorization == null || amzDate == null || payloadHash == null) return false;
+        if (!payloadHash.equals(S3RequestSigner.UNSIGNED_PAYLOAD)
+                && !payloadHash.equals(HexFormat.of().formatHex(LocalFileStorageService.sha256().digest(body)))) {
+            return false;
+        }
+        Matcher m = AUTHORIZATION.matcher(authorization);
+        if (!m.find()) return false;
+        Map<String, String> extra = new TreeMap<>();
+        for (String name : m.group(1).split(";")) {
+            if (name.equals("host") || name.equals("x-amz-date") || name.equals("x-amz-content-sha256")) continue;
+            extra.put(name, exchange.getRequestHeaders().getFirst(name));
+        }
+        Map<String, String> expected = signer.sign(method, uri, extra, payloadHash, Instant.from(AMZ_DATE.parse(amzDate)));
+        return authorization.equals(expected.get("Authorization"));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery == null) return params;
+        for (String param : rawQuery.split("&")) {
+            int eq = param.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? param : param.substring(0, eq), StandardCharsets.UTF_8);
+            params.put(name, eq < 0 ? "" : URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String etag(byte[] data) {
+        return "\"" + HexFormat.of().formatHex(LocalFileStorageService.sha256().digest(data)).substring(0, 32) + "\"";
+    }
+}
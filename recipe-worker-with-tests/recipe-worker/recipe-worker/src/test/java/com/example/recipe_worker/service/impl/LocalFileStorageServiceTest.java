@@ -0,0 +1,110 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.service.StorageLayout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalFileStorageServiceTest {
+
+    @TempDir
+    Path base;
+
+    private final LocalFileStorageService storage = new LocalFileStorageService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(storage, "baseDir", base.toString());
+        storage.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    void store_namesFilesByContentHash_inFanOutDirectories() throws Exception {
+        byte[] data = "hero shot".getBytes(StandardCharsets.UTF_8);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+
+        Path stored = Path.of(storage.store(data, "Hero Shot.JPG"));
+
+        assertEquals(base.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".jpg")
+                .toAbsolutePath(), stored);
+        assertEquals(stored, StorageLayout.resolve(base, hash + ".jpg").toAbsolutePath());
+        assertArrayEquals(data, Files.readAllBytes(stored));
+    }
+
+    @Test
+    void store_sameBytesTwice_keepsOneFile() throws Exception {
+        byte[] data = new byte[200_000];
+        for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+
+        String first = storage.store(data, "a.png");
+        String second = storage.store(new ByteArrayInputStream(data), "b.png");
+        String other = storage.store("different".getBytes(StandardCharsets.UTF_8), "c.png");
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        try (var files = Files.walk(base)) {
+            assertEquals(2, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void store_withFsync_concurrentUploadsAllLandDurably() throws Exception {
+        LocalFileStorageService synced = new LocalFileStorageService();
+        ReflectionTestUtils.setField(synced, "baseDir", base.toString());
+        ReflectionTestUtils.setField(synced, "fsync", true);
+        ReflectionTestUtils.setField(synced, "fsyncMaxBatch", 8);
+        synced.init();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> stored = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                byte[] data = ("image " + i).getBytes(StandardCharsets.UTF_8);
+                stored.add(pool.submit(() -> synced.store(data, "img.jpg")));
+            }
+            for (int i = 0; i < stored.size(); i++) {
+                assertArrayEquals(("image " + i).getBytes(StandardCharsets.UTF_8),
+                        Files.readAllBytes(Path.of(stored.get(i).get())));
+            }
+            FsyncBatcher batcher = (FsyncBatcher) ReflectionTestUtils.getField(synced, "fsyncBatcher");
+            assertTrue(batcher.batches() >= 5 && batcher.batches() <= 40);
+            try (var temp = Files.list(base.resolve(LocalFileStorageService.TEMP_DIR))) {
+                assertEquals(0, temp.count());
+            }
+        } finally {
+            pool.shutdown();
+            synced.close();
+        }
+    }
+
+    @Test
+    void extension_keepsOnlyShortAlphanumericSuffix() {
+        assertEquals(".jpeg", LocalFileStorageService.extension("photo.JPEG"));
+        assertEquals("", LocalFileStorageService.extension("../../etc/passwd"));
+        assertEquals("", LocalFileStorageService.extension("archive.tar.g z"));
+        assertEquals("", LocalFileStorageService.extension(null));
+    }
+}
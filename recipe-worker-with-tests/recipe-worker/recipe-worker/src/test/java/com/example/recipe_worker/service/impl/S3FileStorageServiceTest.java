@@ -0,0 +1,131 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.service.BlobInfo;
+import com.example.recipe_worker.service.ImageServingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3FileStorageServiceTest {
+
+    @TempDir
+    Path staging;
+
+    private InProcessS3Server s3;
+    private S3FileStorageService storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        s3 = new InProcessS3Server("eu-west-1", "test-key", "test-secret");
+        // tiny parts so a 1 MB upload goes multipart
+        storage = new S3FileStorageService(s3.endpoint(), "eu-west-1", "images", "test-key", "test-secret",
+                true, 64 * 1024, 128 * 1024, 4, 10, staging.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.destroy();
+        s3.close();
+    }
+
+    @Test
+    void store_smallUpload_roundTripsThroughHeadGetAndDelete() throws Exception {
+        byte[] data = "pancakes".getBytes(StandardCharsets.UTF_8);
+
+        String stored = storage.store(data, "Pancakes.JPG");
+        String name = Path.of(stored).getFileName().toString();
+        assertEquals(stored, storage.store(data, "again.jpg"));
+
+        assertTrue(stored.startsWith("s3://images/" + name.substring(0, 2) + "/" + name.substring(2, 4) + "/"));
+        assertEquals(1, s3.objectPuts.get());
+        assertEquals("image/jpeg", s3.objects.get("/images/" + stored.substring("s3://images/".length())).contentType());
+        BlobInfo info = storage.head(name).orElseThrow();
+        assertEquals(data.length, info.length());
+        assertNull(info.localFile());
+        try (InputStream in = storage.get(name, 2, 5)) {
+            assertEquals("ncak", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        storage.delete(name);
+        assertTrue(storage.head(name).isEmpty());
+        assertThrows(NoSuchFileException.class, () -> storage.get(name, 0, 1));
+        try (var temp = Files.list(staging)) {
+            assertEquals(0, temp.count());
+        }
+    }
+
+    @Test
+    void get_whenStoreIgnoresRange_returnsOnlyTheRange() throws Exception {
+        String name = Path.of(storage.store("pancakes".getBytes(StandardCharsets.UTF_8), "p.jpg")).getFileName().toString();
+        s3.ignoreRanges = true;
+
+        try (InputStream in = storage.get(name, 2, 5)) {
+            assertEquals("ncak", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void store_nonImage_isStoredAsOpaqueBytes() throws Exception {
+        String stored = storage.store("<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8), "page.html");
+
+        assertEquals("application/octet-stream",
+                s3.objects.get("/images/" + stored.substring("s3://images/".length())).contentType());
+    }
+
+    @Test
+    void store_largeUpload_sendsPartsInParallel() throws Exception {
+        byte[] data = new byte[1024 * 1024 + 123];
+        new Random(7).nextBytes(data);
+
+        String name = Path.of(storage.store(data, "big.png")).getFileName().toString();
+
+        try (InputStream in = storage.get(name, 0, data.length - 1)) {
+            assertArrayEquals(data, in.readAllBytes());
+        }
+        assertEquals(0, s3.objectPuts.get());
+        assertTrue(s3.maxConcurrentParts.get() > 1);
+        assertTrue(s3.uploads.isEmpty());
+    }
+
+    @Test
+    void presignedGetUrl_isFetchableWithoutCredentials_andServedAsRedirect() throws Exception {
+        byte[] data = "soup".getBytes(StandardCharsets.UTF_8);
+        String name = Path.of(storage.store(data, "soup.webp")).getFileName().toString();
+
+        URI url = storage.presignedGetUrl(name, Duration.ofHours(1)).orElseThrow();
+        assertEquals(url, storage.presignedGetUrl(name, Duration.ofHours(1)).orElseThrow());
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<byte[]> fetched = client.send(HttpRequest.newBuilder(url).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, fetched.statusCode());
+        assertArrayEquals(data, fetched.body());
+        URI tampered = URI.create(url.toString().replace(name, "0" + name.substring(1)));
+        assertEquals(403, client.send(HttpRequest.newBuilder(tampered).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ImageServingService(storage, 3600).serve(name, true, new MockHttpServletRequest("GET", "/"), response);
+        assertEquals(302, response.getStatus());
+        assertEquals(url.toString(), response.getRedirectedUrl());
+        assertEquals("private, max-age=1800", response.getHeader("Cache-Control"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.recipe_worker.service.impl;
+
+import com.example.recipe_worker.repository.ImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StorageGarbageCollectorTest {
+
+    @TempDir
+    Path base;
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final LocalFileStorageService storage = new LocalFileStorageService();
+    private StorageGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(storage, "baseDir", base.toString());
+        storage.init();
+        collector = new StorageGarbageCollector(imageRepository, base.toString(), 0, 60, 2);
+    }
+
+    @Test
+    void collect_deletesOnlyOldUnreferencedBlobs() throws Exception {
+        Path referenced = old(storage.store(bytes("kept"), "a.jpg"));
+        Path orphanA = old(storage.store(bytes("orphan a"), "b.jpg"));
+        Path orphanB = old(storage.store(bytes("orphan b"), "c.jpg"));
+        Path fresh = Path.of(storage.store(bytes("just uploaded"), "d.jpg"));
+        Path legacy = old(Files.write(base.resolve("0b6c-legacy.jpg"), bytes("legacy")));
+        Path staleTemp = old(Files.write(base.resolve(LocalFileStorageService.TEMP_DIR).resolve("x.part"), bytes("x")));
+        when(imageRepository.findReferencedStoredNames(anyCollection()))
+                .thenReturn(List.of(referenced.getFileName().toString()));
+
+        assertEquals(3, collector.collect());
+
+        assertTrue(Files.exists(referenced));
+        assertFalse(Files.exists(orphanA));
+        assertFalse(Files.exists(orphanB));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(legacy));
+        assertFalse(Files.exists(staleTemp));
+    }
+
+    @Test
+    void store_reusingAnOldBlob_protectsItFromCollection() throws Exception {
+        Path blob = old(storage.store(bytes("reposted"), "a.jpg"));
+        when(imageRepository.findReferencedStoredNames(anyCollection())).thenReturn(List.of());
+
+        // the new row referring to it has not committed yet
+        assertEquals(blob.toString(), storage.store(bytes("reposted"), "a.jpg"));
+
+        assertEquals(0, collector.collect());
+        assertTrue(Files.exists(blob));
+    }
+
+    @Test
+    void collect_putsBackABlobReferencedWhileItWasBeingRemoved() throws Exception {
+        Path blob = old(storage.store(bytes("raced"), "a.jpg"));
+        // the referencing row commits between the first check and the move to the trash
+        when(imageRepository.findReferencedStoredNames(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(blob.getFileName().toString()));
+
+        assertEquals(0, collector.collect());
+
+        assertTrue(Files.exists(blob));
+        assertFalse(Files.exists(base.resolve(StorageGarbageCollector.TRASH_DIR).resolve(blob.getFileName())));
+    }
+
+    @Test
+    void store_afterTheCollectorMovedTheBlob_placesANewCopy() throws Exception {
+        Path blob = old(storage.store(bytes("raced"), "a.jpg"));
+        Path trash = Files.createDirectories(base.resolve(StorageGarbageCollector.TRASH_DIR));
+        Files.move(blob, trash.resolve(blob.getFileName()));
+
+        assertEquals(blob.toString(), storage.store(bytes("raced"), "a.jpg"));
+
+        assertTrue(Files.exists(blob));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Path old(String path) throws Exception {
+        return old(Path.of(path));
+    }
+
+    private static Path old(Path path) throws Exception {
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minusSeconds(3600)));
+        return path;
+    }
+}
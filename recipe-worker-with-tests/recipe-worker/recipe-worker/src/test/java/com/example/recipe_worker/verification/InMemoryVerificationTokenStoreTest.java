@@ -0,0 +1,31 @@
+package com.example.recipe_worker.verification;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryVerificationTokenStoreTest {
+
+    @Test
+    void consume_isSingleUse_andHonoursExpiry() {
+        InMemoryVerificationTokenStore store = new InMemoryVerificationTokenStore(100);
+        store.put("live", "a@example.com", Instant.now().plusSeconds(60));
+        store.put("stale", "b@example.com", Instant.now().minusSeconds(1));
+
+        assertEquals(Optional.of("a@example.com"), store.consume("live"));
+        assertEquals(Optional.empty(), store.consume("live"));
+        assertEquals(Optional.empty(), store.consume("stale"));
+    }
+
+    @Test
+    void sizeStaysWithinCap_underFlood() {
+        InMemoryVerificationTokenStore store = new InMemoryVerificationTokenStore(50);
+        for (int i = 0; i < 1_000; i++) store.put("t" + i, "u" + i + "@example.com", Instant.now().plusSeconds(120));
+
+        assertTrue(store.size() <= 50);
+    }
+}
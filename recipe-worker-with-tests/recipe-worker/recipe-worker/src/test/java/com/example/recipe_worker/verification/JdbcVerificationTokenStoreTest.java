@@ -0,0 +1,46 @@
+package com.example.recipe_worker.verification;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Import(JdbcVerificationTokenStore.class)
+@TestPropertySource(properties = "recipe-worker.verification.purge-batch-size=2")
+class JdbcVerificationTokenStoreTest {
+
+    @Autowired private JdbcVerificationTokenStore store;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void consume_isSingleUse_andHonoursExpiry() {
+        store.put("live", "a@example.com", Instant.now().plusSeconds(60));
+        store.put("stale", "b@example.com", Instant.now().minusSeconds(1));
+
+        assertEquals(Optional.of("a@example.com"), store.consume("live"));
+        assertEquals(Optional.empty(), store.consume("live"));
+        assertEquals(Optional.empty(), store.consume("stale"));
+        assertEquals(Optional.empty(), store.consume("unknown"));
+    }
+
+    @Test
+    void purgeExpired_deletesInBatches_andKeepsLiveTokens() {
+        for (int i = 0; i < 5; i++) store.put("old-" + i, "u" + i + "@example.com", Instant.now().minusSeconds(10));
+        store.put("fresh", "f@example.com", Instant.now().plusSeconds(60));
+
+        assertEquals(5, store.purgeExpired());
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from verification_token", Integer.class));
+        // tokens are stored hashed
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from verification_token where token_hash = 'fresh'", Integer.class));
+        assertEquals(Optional.of("f@example.com"), store.consume("fresh"));
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.recipe_worker.worker;
+
+import com.example.recipe_worker.entity.ImageEntity;
+import com.example.recipe_worker.entity.ImageFormat;
+import com.example.recipe_worker.entity.ImageStatus;
+import com.example.recipe_worker.repository.ImageRepository;
+import com.example.recipe_worker.repository.RecipeRepository;
+import com.example.recipe_worker.service.BlobInfo;
+import com.example.recipe_worker.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageJobWorkerTest {
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final RecipeRepository recipeRepository = mock(RecipeRepository.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ImageStagingArea stagingArea = new ImageStagingArea();
+    private final ImageJobWorker worker = new ImageJobWorker(imageRepository, recipeRepository, fileStorageService,
+            new ThumbnailGenerator(List.of(512, 256), List.of("webp", "jpeg"), 0.8f, 0.75f, 1_000_000, 2, 10), stagingArea, transactionTemplate,
+            eventPublisher);
+
+    @TempDir
+    Path storage;
+
+    @TempDir
+    Path scratch;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(stagingArea, "stagingDir", scratch.toString());
+    }
+
+    // an upload already in the local file store
+    private Path stored(byte[] data) throws Exception {
+        Path file = Files.write(storage.resolve(UUID.randomUUID() + ".png"), data);
+        when(fileStorageService.head(file.getFileName().toString()))
+                .thenReturn(Optional.of(new BlobInfo(data.length, 0, file)));
+        return file;
+    }
+
+    @Test
+    void process_marksUndecodableUploadFailed_insteadOfServingIt() throws Exception {
+        UUID imageId = UUID.randomUUID();
+        // named and typed as an image by the uploader, but HTML inside
+        Path upload = stored("<html><script>alert(1)</script></html>".getBytes());
+
+        UUID recipeId = UUID.randomUUID();
+        worker.process(new ImageJob(imageId, recipeId, "pic.jpg", "image/jpeg", upload.toString()));
+
+        verify(imageRepository).markProcessed(imageId, null, null, null, ImageStatus.FAILED);
+        verify(imageRepository, never()).markProcessed(any(), any(), any(), any(), eq(ImageStatus.READY));
+        verifyNoInteractions(transactionTemplate);
+        verify(eventPublisher).publishEvent(new RecipeImagesChangedEvent(recipeId));
+    }
+
+    @Test
+    void process_marksImageFailed_whenUploadIsMissingFromStorage() throws Exception {
+        UUID imageId = UUID.randomUUID();
+        when(fileStorageService.head(anyString())).thenReturn(Optional.empty());
+
+        worker.process(new ImageJob(imageId, UUID.randomUUID(), "pic.jpg", "image/jpeg", "/elsewhere/abc.jpg"));
+
+        verify(imageRepository).markProcessed(imageId, null, null, null, ImageStatus.FAILED);
+    }
+
+    @Test
+    void process_marksImageFailed_whenUploadHasTooManyPixels() throws Exception {
+        UUID imageId = UUID.randomUUID();
+        // a few kilobytes on disk, two million pixels once decoded
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2000, 1000, BufferedImage.TYPE_BYTE_BINARY), "png", png);
+
+        worker.process(new ImageJob(imageId, UUID.randomUUID(), "bomb.png", "image/png", stored(png.toByteArray()).toString()));
+
+        verify(imageRepository).markProcessed(imageId, null, null, null, ImageStatus.FAILED);
+        verify(imageRepository, never()).markProcessed(any(), any(), any(), any(), eq(ImageStatus.READY));
+        verify(fileStorageService, never()).store(any(byte[].class), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_fetchesRemoteUpload_intoScratchForDecoding() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "png", png);
+        when(fileStorageService.head("abc.png")).thenReturn(Optional.of(new BlobInfo(png.size(), 0, null)));
+        when(fileStorageService.get("abc.png", 0, png.size() - 1)).thenReturn(new ByteArrayInputStream(png.toByteArray()));
+        when(fileStorageService.store(any(byte[].class), anyString())).thenAnswer(inv -> "s3://b/x-" + inv.getArgument(1));
+        when(imageRepository.markProcessed(any(), any(), any(), any(), any())).thenReturn(1);
+        runTransactionsInline();
+
+        UUID imageId = UUID.randomUUID();
+        worker.process(new ImageJob(imageId, UUID.randomUUID(), "pic.png", "image/png", "s3://b/ab/c/abc.png"));
+
+        ArgumentCaptor<List<ImageEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(imageRepository).saveAll(saved.capture());
+        assertEquals(List.of(ImageJobWorker.ORIGINAL_SIZE_LABEL, "512", "256"),
+                saved.getValue().stream().map(ImageEntity::getSizeLabel).toList());
+        verify(imageRepository).markProcessed(imageId, "s3://b/ab/c/abc.png", "abc.png",
+                ImageJobWorker.ORIGINAL_SIZE_LABEL, ImageStatus.READY);
+        try (var left = Files.list(scratch)) {
+            assertEquals(0, left.count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_storesOneJpegPerConfiguredSize_andAtFullSize() throws Exception {
+        UUID imageId = UUID.randomUUID();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB), "png", png);
+        when(fileStorageService.store(any(byte[].class), anyString()))
+                .thenAnswer(inv -> "/data/storage/x-" + inv.getArgument(1));
+        when(imageRepository.markProcessed(any(), any(), any(), any(), any())).thenReturn(1);
+        runTransactionsInline();
+
+        worker.process(new ImageJob(imageId, UUID.randomUUID(), "pic.png", "image/png", stored(png.toByteArray()).toString()));
+
+        // kept at full size although a flat PNG is smaller than any JPEG of it: the upload may carry
+        // EXIF and is never served in its place; WebP has no writer here
+        ArgumentCaptor<List<ImageEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(imageRepository).saveAll(saved.capture());
+        assertEquals(List.of(ImageJobWorker.ORIGINAL_SIZE_LABEL, "512", "256"),
+                saved.getValue().stream().map(ImageEntity::getSizeLabel).toList());
+        assertEquals(List.of("x-pic.jpg", "x-pic_512.jpg", "x-pic_256.jpg"),
+                saved.getValue().stream().map(ImageEntity::getStoredName).toList());
+        saved.getValue().forEach(v -> assertEquals(imageId, v.getOriginalId()));
+        saved.getValue().forEach(v -> assertEquals(ImageFormat.JPEG, v.getFormat()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void process_transcodesLargeUploadAtFullSize_withoutMetadata() throws Exception {
+        UUID imageId = UUID.randomUUID();
+        // noisy pixels with transparency: a big PNG that JPEG has to flatten
+        BufferedImage photo = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(3);
+        for (int x = 0; x < 300; x++) for (int y = 0; y < 200; y++) photo.setRGB(x, y, random.nextInt());
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(photo, "png", png);
+        ArgumentCaptor<byte[]> encoded = ArgumentCaptor.forClass(byte[].class);
+        when(fileStorageService.store(encoded.capture(), anyString())).thenAnswer(inv -> "/data/storage/x-" + inv.getArgument(1));
+        when(imageRepository.markProcessed(any(), any(), any(), any(), any())).thenReturn(1);
+        runTransactionsInline();
+
+        worker.process(new ImageJob(imageId, UUID.randomUUID(), "photo.png", "image/png", stored(png.toByteArray()).toString()));
+
+        ArgumentCaptor<List<ImageEntity>> saved = ArgumentCaptor.forClass(List.class);
+        verify(imageRepository).saveAll(saved.capture());
+        assertEquals(List.of(ImageJobWorker.ORIGINAL_SIZE_LABEL, "256"),
+                saved.getValue().stream().map(ImageEntity::getSizeLabel).toList());
+        assertEquals("x-photo.jpg", saved.getValue().get(0).getStoredName());
+        byte[] jpeg = encoded.getAllValues().get(0);
+        assertTrue(jpeg.length < png.size());
+        assertEquals(300, ImageIO.read(new ByteArrayInputStream(jpeg)).getWidth());
+        assertFalse(hasExifSegment(jpeg));
+        // original and variants become visible in one transaction
+        verify(transactionTemplate).execute(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<Integer>>getArgument(0).doInTransaction(null));
+    }
+
+    // APP1 (0xFFE1) is where EXIF lives
+    private static boolean hasExifSegment(byte[] jpeg) {
+        for (int i = 0; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xff) == 0xff && (jpeg[i + 1] & 0xff) == 0xe1) return true;
+            if ((jpeg[i] & 0xff) == 0xff && (jpeg[i + 1] & 0xff) == 0xda) return false; // start of scan
+        }
+        return false;
+    }
+}
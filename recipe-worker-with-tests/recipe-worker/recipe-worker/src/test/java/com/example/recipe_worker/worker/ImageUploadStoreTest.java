@@ -0,0 +1,45 @@
+package com.example.recipe_worker.worker;
+
+import com.example.recipe_worker.dto.ImageUploadDto;
+import com.example.recipe_worker.service.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImageUploadStoreTest {
+
+    @TempDir
+    Path staging;
+
+    @Test
+    void storeAll_storesUploadsWithData_andLeavesOnlyTheStoredPath() throws Exception {
+        ImageStagingArea stagingArea = new ImageStagingArea();
+        ReflectionTestUtils.setField(stagingArea, "stagingDir", staging.toString());
+        FileStorageService storage = mock(FileStorageService.class);
+        when(storage.store(any(ReadableByteChannel.class), eq("pic.jpg"))).thenReturn("/data/storage/ab/cd/abcd.jpg");
+        ImageUploadDto upload = new ImageUploadDto("pic.jpg", "image/jpeg",
+                Base64.getEncoder().encodeToString("bytes".getBytes()));
+        ImageUploadDto reference = new ImageUploadDto("https://cdn.example/x.jpg", null, null);
+
+        new ImageUploadStore(stagingArea, storage).storeAll(List.of(upload, reference));
+
+        assertEquals("/data/storage/ab/cd/abcd.jpg", upload.getStoredPath());
+        assertNull(upload.getDataBase64());
+        assertNull(reference.getStoredPath());
+        verify(storage, times(1)).store(any(ReadableByteChannel.class), any());
+        try (var left = Files.list(staging)) {
+            assertEquals(0, left.count());
+        }
+    }
+}